@@ -0,0 +1,71 @@
+package com.nianien.core.collection.map;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 按照最近最少使用(LRU)策略淘汰数据的Map实现类<br>
+ * 当容量超过上限时, 淘汰最久未被访问的数据, 并通知淘汰监听器; 该类不是线程安全的
+ *
+ * @param <K>
+ * @param <V>
+ * @author skyfalling
+ */
+public class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 容量上限
+     */
+    private final int maxSize;
+    /**
+     * 数据被淘汰时的监听器
+     */
+    private final transient BiConsumer<K, V> evictionListener;
+
+    /**
+     * 构造方法,指定容量上限
+     *
+     * @param maxSize 容量上限
+     */
+    public LruMap(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * 构造方法,指定容量上限和淘汰监听器
+     *
+     * @param maxSize          容量上限
+     * @param evictionListener 数据被淘汰时的监听器, 可以为null
+     */
+    public LruMap(int maxSize, BiConsumer<K, V> evictionListener) {
+        super(16, 0.75f, true);
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("illegal max size: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * 容量上限
+     *
+     * @return
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        if (size() > maxSize) {
+            if (evictionListener != null) {
+                evictionListener.accept(eldest.getKey(), eldest.getValue());
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package com.nianien.core.comparator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Comparator;
+
+/**
+ * 字节缓冲区比较类, 按无符号字节的字典顺序比较ByteBuffer的剩余内容<br>
+ * 对于UTF-8编码的文本, 该顺序与字符的Unicode码点顺序一致, 比较过程中不会创建String对象
+ *
+ * @author skyfalling
+ */
+public enum ByteBufferComparator implements Comparator<ByteBuffer> {
+
+    /**
+     * 按字典顺序排序
+     */
+    DictionaryAsc {
+        @Override
+        public int compare(ByteBuffer buffer1, ByteBuffer buffer2) {
+            return compareD(buffer1, buffer2);
+        }
+    },
+    /**
+     * 按字典逆序排序
+     */
+    DictionaryDesc {
+        @Override
+        public int compare(ByteBuffer buffer1, ByteBuffer buffer2) {
+            return compareD(buffer2, buffer1);
+        }
+    };
+
+    /**
+     * 按无符号字节的字典顺序比较buffer1和buffer2从position到limit之间的内容<br>
+     * 该方法不会改变ByteBuffer的position和limit
+     *
+     * @param buffer1
+     * @param buffer2
+     * @return
+     */
+    public static int compareD(ByteBuffer buffer1, ByteBuffer buffer2) {
+        int p1 = buffer1.position();
+        int p2 = buffer2.position();
+        int len1 = buffer1.remaining();
+        int len2 = buffer2.remaining();
+        int n = Math.min(len1, len2);
+        int i = 0;
+        // 大端字节序下, 8字节无符号整数的比较结果与逐字节比较一致
+        if (buffer1.order() == buffer2.order()) {
+            boolean bigEndian = buffer1.order() == ByteOrder.BIG_ENDIAN;
+            for (; i + 8 <= n; i += 8) {
+                long v1 = buffer1.getLong(p1 + i);
+                long v2 = buffer2.getLong(p2 + i);
+                if (v1 != v2) {
+                    if (!bigEndian) {
+                        v1 = Long.reverseBytes(v1);
+                        v2 = Long.reverseBytes(v2);
+                    }
+                    return Long.compareUnsigned(v1, v2);
+                }
+            }
+        }
+        for (; i < n; i++) {
+            int c = (buffer1.get(p1 + i) & 0xff) - (buffer2.get(p2 + i) & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return len1 - len2;
+    }
+}
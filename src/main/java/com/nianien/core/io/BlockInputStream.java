@@ -0,0 +1,145 @@
+package com.nianien.core.io;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 分块解压的输入流, 读取{@link BlockOutputStream}写出的数据, 并逐块校验CRC32
+ *
+ * @author skyfalling
+ */
+public class BlockInputStream extends FilterInputStream {
+
+    private final DataInputStream input;
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+    private byte[] block = new byte[0];
+    private byte[] compressed = new byte[0];
+    private int count;
+    private int position;
+    private boolean closed;
+
+    /**
+     * 构造方法
+     *
+     * @param in
+     */
+    public BlockInputStream(InputStream in) {
+        super(in);
+        this.input = new DataInputStream(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == count && !readBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == count && !readBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, count - position);
+        System.arraycopy(block, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && (position < count || readBlock())) {
+            int step = (int) Math.min(n - skipped, count - position);
+            position += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return count - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            inflater.end();
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * 读取并解压下一块数据
+     *
+     * @return 如果数据已结束, 返回false
+     * @throws IOException 数据损坏或校验失败时抛出
+     */
+    private boolean readBlock() throws IOException {
+        int length;
+        try {
+            length = input.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        int size = input.readInt();
+        int checksum = input.readInt();
+        if (length < 0 || size < 0) {
+            throw new IOException("corrupted block header: " + length + "/" + size);
+        }
+        if (block.length < length) {
+            block = new byte[length];
+        }
+        if (compressed.length < size) {
+            compressed = new byte[size];
+        }
+        input.readFully(compressed, 0, size);
+        inflater.reset();
+        inflater.setInput(compressed, 0, size);
+        try {
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                int read = inflater.inflate(block, n, length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != length) {
+                throw new IOException("corrupted block: expected " + length + " bytes, got " + n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("corrupted block", e);
+        }
+        crc.reset();
+        crc.update(block, 0, length);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("block checksum mismatch");
+        }
+        this.count = length;
+        this.position = 0;
+        return true;
+    }
+}
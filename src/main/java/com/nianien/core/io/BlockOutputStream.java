@@ -0,0 +1,131 @@
+package com.nianien.core.io;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 分块压缩的输出流, 数据按块压缩后写出, 每块附带原始数据的CRC32校验码<br>
+ * 块格式: 原始长度(int) + 压缩长度(int) + CRC32(int) + 压缩数据, 与{@link BlockInputStream}配合使用
+ *
+ * @author skyfalling
+ */
+public class BlockOutputStream extends FilterOutputStream {
+
+    /**
+     * 默认块大小
+     */
+    public final static int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private final DataOutputStream output;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] block;
+    private byte[] compressed;
+    private int count;
+    private boolean closed;
+
+    /**
+     * 构造方法, 使用默认块大小和最快的压缩级别
+     *
+     * @param out
+     */
+    public BlockOutputStream(OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE, Deflater.BEST_SPEED);
+    }
+
+    /**
+     * 构造方法, 指定块大小和压缩级别
+     *
+     * @param out       目标输出流
+     * @param blockSize 块大小
+     * @param level     压缩级别, 参见{@link Deflater}
+     */
+    public BlockOutputStream(OutputStream out, int blockSize, int level) {
+        super(out);
+        this.output = new DataOutputStream(out);
+        this.deflater = new Deflater(level);
+        this.block = new byte[blockSize];
+        this.compressed = new byte[blockSize + blockSize / 16 + 64];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == block.length) {
+            writeBlock();
+        }
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == block.length) {
+                writeBlock();
+            }
+            int n = Math.min(len, block.length - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * 写出当前块并刷新底层输出流
+     *
+     * @throws IOException
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            deflater.end();
+            output.close();
+        }
+    }
+
+    /**
+     * 压缩并写出当前块
+     *
+     * @throws IOException
+     */
+    private void writeBlock() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        crc.reset();
+        crc.update(block, 0, count);
+        deflater.reset();
+        deflater.setInput(block, 0, count);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                byte[] larger = new byte[compressed.length * 2];
+                System.arraycopy(compressed, 0, larger, 0, length);
+                compressed = larger;
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        output.writeInt(count);
+        output.writeInt(length);
+        output.writeInt((int) crc.getValue());
+        output.write(compressed, 0, length);
+        count = 0;
+    }
+}
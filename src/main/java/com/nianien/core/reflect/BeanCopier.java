@@ -0,0 +1,300 @@
+package com.nianien.core.reflect;
+
+import com.nianien.core.log.LoggerFactory;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * 属性复制器, 在bean与bean、Map与bean之间复制同名属性<br/>
+ * 首次使用时为每一对(源类型, 目标类型)生成专门的字节码, 直接调用getter和setter方法, 原始类型与包装类型之间直接转换;
+ * 缺少javassist或者无法生成字节码时(例如类型不是public的), 使用基于{@link ClassMetadata.Accessor}的实现<br/>
+ * 复制规则:
+ * <ol>
+ * <li>只使用public的getter和setter方法, 属性名称以{@link com.nianien.core.annotation.Property}注解为准</li>
+ * <li>值为null的属性不复制</li>
+ * <li>bean到bean: 源属性可以赋值给目标属性, 或者二者为对应的原始类型和包装类型时复制, 重载的setter方法只调用第一个类型兼容的</li>
+ * <li>Map到bean: 以属性名称为键, 值是目标属性类型(原始类型取其包装类型)的实例时复制</li>
+ * <li>bean到Map: 以属性名称为键放入Map</li>
+ * </ol>
+ *
+ * @author skyfalling
+ */
+public abstract class BeanCopier {
+
+    private static Logger logger = LoggerFactory.getLogger(BeanCopier.class);
+
+    /**
+     * 源类型到(目标类型, 复制器)的映射, 用于复制器由源类型持有的情况
+     */
+    private final static ClassValue<Map<Class<?>, BeanCopier>> sourceCopiers = new ClassValue<Map<Class<?>, BeanCopier>>() {
+        @Override
+        protected Map<Class<?>, BeanCopier> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Class<?>, BeanCopier>();
+        }
+    };
+    /**
+     * 目标类型到(源类型, 复制器)的映射, 用于复制器由目标类型持有的情况
+     */
+    private final static ClassValue<Map<Class<?>, BeanCopier>> targetCopiers = new ClassValue<Map<Class<?>, BeanCopier>>() {
+        @Override
+        protected Map<Class<?>, BeanCopier> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Class<?>, BeanCopier>();
+        }
+    };
+
+    protected BeanCopier() {
+    }
+
+    /**
+     * 将from的属性复制到to
+     *
+     * @param from 源对象, bean或者Map
+     * @param to   目标对象, bean或者Map
+     */
+    public abstract void copy(Object from, Object to);
+
+    /**
+     * 获取从源类型到目标类型的复制器, 复制器首次使用时创建<br/>
+     * 复制器缓存在{@link #owner(Class, Class)}返回的类上, 不会被父类加载器中的类(如HashMap)持有
+     *
+     * @param from 源类型, bean类型或者Map的实现类
+     * @param to   目标类型, bean类型或者Map的实现类
+     * @return
+     */
+    public static BeanCopier of(Class<?> from, Class<?> to) {
+        if (owner(from, to) == to) {
+            return targetCopiers.get(to).computeIfAbsent(from, (type) -> create(type, to));
+        }
+        return sourceCopiers.get(from).computeIfAbsent(to, (type) -> create(from, type));
+    }
+
+    /**
+     * 将from的属性复制到to
+     *
+     * @param from
+     * @param to
+     * @param <T>
+     * @return to
+     */
+    public static <T> T copyProperties(Object from, T to) {
+        of(from.getClass(), to.getClass()).copy(from, to);
+        return to;
+    }
+
+    /**
+     * 创建复制器, 优先生成字节码
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    private static BeanCopier create(Class<?> from, Class<?> to) {
+        if (!Map.class.isAssignableFrom(from) || !Map.class.isAssignableFrom(to)) {
+            try {
+                return BeanCopierGenerator.generate(from, to);
+            } catch (Throwable e) {
+                // 每对类型只创建一次复制器, 因此只记录一次
+                logger.warning("failed to generate copier from " + from.getName() + " to " + to.getName() + ", use accessors instead: " + e);
+            }
+        }
+        return new AccessorCopier(from, to);
+    }
+
+    /**
+     * 持有复制器的类型: 源类型为Map时取目标类型, 目标类型为Map时取源类型,
+     * 否则取类加载器为子加载器的类型, 使得缓存和生成的类只引用该类型可见的类
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    static Class<?> owner(Class<?> from, Class<?> to) {
+        if (Map.class.isAssignableFrom(from)) {
+            return to;
+        }
+        if (Map.class.isAssignableFrom(to)) {
+            return from;
+        }
+        return isDescendant(to.getClassLoader(), from.getClassLoader()) ? to : from;
+    }
+
+    /**
+     * 判断loader是否为ancestor的子孙加载器, null表示启动类加载器
+     *
+     * @param loader
+     * @param ancestor
+     * @return
+     */
+    private static boolean isDescendant(ClassLoader loader, ClassLoader ancestor) {
+        if (loader == ancestor) {
+            return false;
+        }
+        if (ancestor == null) {
+            return true;
+        }
+        for (ClassLoader parent = loader; parent != null; parent = parent.getParent()) {
+            if (parent == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断source类型的值能否赋值给target类型, 原始类型按照包装类型判断
+     *
+     * @param target
+     * @param source
+     * @return
+     */
+    static boolean assignable(Class<?> target, Class<?> source) {
+        Class<?> wrapped = Reflections.wrapClass(target);
+        return wrapped.isAssignableFrom(Reflections.wrapClass(source));
+    }
+
+    /**
+     * 向目标Map写入键值对
+     *
+     * @param map
+     * @param key
+     * @param value
+     */
+    @SuppressWarnings("unchecked")
+    private static void put(Object map, Object key, Object value) {
+        ((Map<Object, Object>) map).put(key, value);
+    }
+
+    /**
+     * public的getter方法, 每个属性一个
+     *
+     * @param clazz
+     * @return
+     */
+    static List<ClassMetadata.Accessor> getters(Class<?> clazz) {
+        List<ClassMetadata.Accessor> getters = new ArrayList<ClassMetadata.Accessor>();
+        for (ClassMetadata.Accessor getter : ClassMetadata.of(clazz).getterAccessors()) {
+            if (Modifier.isPublic(getter.getMethod().getModifiers())) {
+                getters.add(getter);
+            }
+        }
+        return getters;
+    }
+
+    /**
+     * 按属性名称分组的public的setter方法
+     *
+     * @param clazz
+     * @return
+     */
+    static Map<String, List<ClassMetadata.Accessor>> setters(Class<?> clazz) {
+        Map<String, List<ClassMetadata.Accessor>> setters = new LinkedHashMap<String, List<ClassMetadata.Accessor>>();
+        for (ClassMetadata.Accessor setter : ClassMetadata.of(clazz).setterAccessors()) {
+            if (Modifier.isPublic(setter.getMethod().getModifiers())) {
+                setters.computeIfAbsent(setter.getPropertyName(), (name) -> new ArrayList<ClassMetadata.Accessor>()).add(setter);
+            }
+        }
+        return setters;
+    }
+
+    /**
+     * 匹配bean到bean复制的getter和setter方法, 每个属性一对
+     *
+     * @param from
+     * @param to
+     * @return 元素为{getter, setter}
+     */
+    static List<ClassMetadata.Accessor[]> pairs(Class<?> from, Class<?> to) {
+        Map<String, ClassMetadata.Accessor> getters = new LinkedHashMap<String, ClassMetadata.Accessor>();
+        for (ClassMetadata.Accessor getter : getters(from)) {
+            getters.put(getter.getPropertyName(), getter);
+        }
+        List<ClassMetadata.Accessor[]> pairs = new ArrayList<ClassMetadata.Accessor[]>();
+        for (Map.Entry<String, List<ClassMetadata.Accessor>> entry : setters(to).entrySet()) {
+            ClassMetadata.Accessor getter = getters.get(entry.getKey());
+            if (getter == null) {
+                continue;
+            }
+            for (ClassMetadata.Accessor setter : entry.getValue()) {
+                if (assignable(setter.getType(), getter.getType())) {
+                    pairs.add(new ClassMetadata.Accessor[]{getter, setter});
+                    break;
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * 基于{@link ClassMetadata.Accessor}的复制器
+     */
+    private static class AccessorCopier extends BeanCopier {
+
+        /**
+         * 每个属性的复制操作
+         */
+        private final List<BiConsumer<Object, Object>> operations = new ArrayList<BiConsumer<Object, Object>>();
+
+        AccessorCopier(Class<?> from, Class<?> to) {
+            boolean fromMap = Map.class.isAssignableFrom(from);
+            boolean toMap = Map.class.isAssignableFrom(to);
+            if (fromMap && toMap) {
+                operations.add((source, target) -> ((Map<?, ?>) source).forEach((key, value) -> {
+                    if (value != null) {
+                        put(target, key, value);
+                    }
+                }));
+            } else if (fromMap) {
+                for (Map.Entry<String, List<ClassMetadata.Accessor>> entry : setters(to).entrySet()) {
+                    String name = entry.getKey();
+                    List<ClassMetadata.Accessor> setters = entry.getValue();
+                    operations.add((source, target) -> {
+                        Object value = ((Map<?, ?>) source).get(name);
+                        if (value != null) {
+                            for (ClassMetadata.Accessor setter : setters) {
+                                if (Reflections.instanceOf(setter.getType(), value)) {
+                                    setter.set(target, value);
+                                    break;
+                                }
+                            }
+                        }
+                    });
+                }
+            } else if (toMap) {
+                for (ClassMetadata.Accessor getter : getters(from)) {
+                    String name = getter.getPropertyName();
+                    operations.add((source, target) -> {
+                        Object value = getter.get(source);
+                        if (value != null) {
+                            put(target, name, value);
+                        }
+                    });
+                }
+            } else {
+                for (ClassMetadata.Accessor[] pair : pairs(from, to)) {
+                    ClassMetadata.Accessor getter = pair[0];
+                    ClassMetadata.Accessor setter = pair[1];
+                    operations.add((source, target) -> {
+                        Object value = getter.get(source);
+                        if (value != null) {
+                            setter.set(target, value);
+                        }
+                    });
+                }
+            }
+        }
+
+        @Override
+        public void copy(Object from, Object to) {
+            for (BiConsumer<Object, Object> operation : operations) {
+                operation.accept(from, to);
+            }
+        }
+    }
+}
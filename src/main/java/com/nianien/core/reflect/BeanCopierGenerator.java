@@ -0,0 +1,253 @@
+package com.nianien.core.reflect;
+
+import com.nianien.core.exception.ExceptionHandler;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 使用javassist为{@link BeanCopier}生成字节码<br/>
+ * 生成的类直接调用getter和setter方法, 原始类型通过valueOf和xxxValue方法与包装类型转换, 不经过反射
+ *
+ * @author skyfalling
+ */
+final class BeanCopierGenerator {
+
+    /**
+     * 生成类的序号
+     */
+    private final static AtomicInteger sequence = new AtomicInteger();
+
+    private BeanCopierGenerator() {
+    }
+
+    /**
+     * 生成从源类型到目标类型的复制器
+     *
+     * @param from
+     * @param to
+     * @return
+     * @throws Exception
+     */
+    static BeanCopier generate(Class<?> from, Class<?> to) throws Exception {
+        ExceptionHandler.throwIf(!isPublic(from) || !isPublic(to), "both " + from.getName() + " and " + to.getName() + " must be public");
+        String body;
+        if (Map.class.isAssignableFrom(from)) {
+            body = mapToBean(to);
+        } else if (Map.class.isAssignableFrom(to)) {
+            body = beanToMap(from);
+        } else {
+            body = beanToBean(from, to);
+        }
+        // 生成的类由持有复制器的类型的加载器加载, 该加载器可以看到源类型和目标类型
+        ClassLoader loader = BeanCopier.owner(from, to).getClassLoader();
+        // 生成的代码按名称引用类型, 名称相同而类加载器不同的类型无法区分
+        ExceptionHandler.throwIf(!isVisible(from, loader) || !isVisible(to, loader), "both " + from.getName() + " and " + to.getName() + " must be visible from " + loader);
+        ClassPool pool = new ClassPool(true);
+        pool.appendClassPath(new LoaderClassPath(BeanCopier.class.getClassLoader()));
+        if (loader != null) {
+            pool.appendClassPath(new LoaderClassPath(loader));
+        }
+        String className = BeanCopier.class.getName() + "$$" + from.getSimpleName() + "$$" + to.getSimpleName() + "$$" + sequence.incrementAndGet();
+        CtClass ctClass = pool.makeClass(className);
+        try {
+            ctClass.setSuperclass(pool.get(BeanCopier.class.getName()));
+            ctClass.addConstructor(CtNewConstructor.defaultConstructor(ctClass));
+            ctClass.addMethod(CtNewMethod.make(body, ctClass));
+            Class<?> clazz = new GeneratedClassLoader(loader).define(className, ctClass.toBytecode());
+            return (BeanCopier) clazz.newInstance();
+        } finally {
+            ctClass.detach();
+        }
+    }
+
+    /**
+     * 判断通过类加载器loader按名称加载的类是否为clazz
+     *
+     * @param clazz
+     * @param loader
+     * @return
+     */
+    private static boolean isVisible(Class<?> clazz, ClassLoader loader) {
+        try {
+            return Class.forName(clazz.getName(), false, loader) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * bean到bean的复制方法
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    private static String beanToBean(Class<?> from, Class<?> to) {
+        StringBuilder sb = new StringBuilder("public void copy(Object from, Object to) {\n");
+        sb.append(typeName(from)).append(" s = (").append(typeName(from)).append(") $1;\n");
+        sb.append(typeName(to)).append(" t = (").append(typeName(to)).append(") $2;\n");
+        List<ClassMetadata.Accessor[]> pairs = BeanCopier.pairs(from, to);
+        for (int i = 0; i < pairs.size(); i++) {
+            Method getter = pairs.get(i)[0].getMethod();
+            Method setter = pairs.get(i)[1].getMethod();
+            Class<?> sourceType = getter.getReturnType();
+            Class<?> targetType = setter.getParameterTypes()[0];
+            String get = "s." + getter.getName() + "()";
+            String set = "t." + setter.getName();
+            if (sourceType.isPrimitive() && targetType.isPrimitive()) {
+                sb.append(set).append("(").append(get).append(");\n");
+            } else if (sourceType.isPrimitive()) {
+                sb.append(set).append("(").append(box(sourceType, get)).append(");\n");
+            } else {
+                String value = "v" + i;
+                sb.append(typeName(sourceType)).append(" ").append(value).append(" = ").append(get).append(";\n");
+                sb.append("if (").append(value).append(" != null) ").append(set).append("(")
+                        .append(targetType.isPrimitive() ? unbox(targetType, value) : value).append(");\n");
+            }
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * Map到bean的复制方法
+     *
+     * @param to
+     * @return
+     */
+    private static String mapToBean(Class<?> to) {
+        StringBuilder sb = new StringBuilder("public void copy(Object from, Object to) {\n");
+        sb.append("java.util.Map m = (java.util.Map) $1;\n");
+        sb.append(typeName(to)).append(" t = (").append(typeName(to)).append(") $2;\n");
+        sb.append("Object v;\n");
+        for (Map.Entry<String, List<ClassMetadata.Accessor>> entry : BeanCopier.setters(to).entrySet()) {
+            sb.append("v = m.get(").append(literal(entry.getKey())).append(");\n");
+            String prefix = "if";
+            for (ClassMetadata.Accessor accessor : entry.getValue()) {
+                Method setter = accessor.getMethod();
+                Class<?> type = setter.getParameterTypes()[0];
+                String wrapper = typeName(Reflections.wrapClass(type));
+                String value = "((" + wrapper + ") v)";
+                sb.append(prefix).append(" (v instanceof ").append(wrapper).append(") t.").append(setter.getName()).append("(")
+                        .append(type.isPrimitive() ? unbox(type, value) : value).append(");\n");
+                prefix = "else if";
+            }
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * bean到Map的复制方法
+     *
+     * @param from
+     * @return
+     */
+    private static String beanToMap(Class<?> from) {
+        StringBuilder sb = new StringBuilder("public void copy(Object from, Object to) {\n");
+        sb.append(typeName(from)).append(" s = (").append(typeName(from)).append(") $1;\n");
+        sb.append("java.util.Map m = (java.util.Map) $2;\n");
+        sb.append("Object v;\n");
+        for (ClassMetadata.Accessor accessor : BeanCopier.getters(from)) {
+            Method getter = accessor.getMethod();
+            Class<?> type = getter.getReturnType();
+            String key = literal(accessor.getPropertyName());
+            String get = "s." + getter.getName() + "()";
+            if (type.isPrimitive()) {
+                sb.append("m.put(").append(key).append(", ").append(box(type, get)).append(");\n");
+            } else {
+                sb.append("v = ").append(get).append(";\n");
+                sb.append("if (v != null) m.put(").append(key).append(", v);\n");
+            }
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * 原始类型装箱的表达式
+     *
+     * @param primitive
+     * @param expression
+     * @return
+     */
+    private static String box(Class<?> primitive, String expression) {
+        return typeName(Reflections.wrapClass(primitive)) + ".valueOf(" + expression + ")";
+    }
+
+    /**
+     * 包装类型拆箱的表达式
+     *
+     * @param primitive
+     * @param expression
+     * @return
+     */
+    private static String unbox(Class<?> primitive, String expression) {
+        return expression + "." + primitive.getName() + "Value()";
+    }
+
+    /**
+     * javassist源码中的类型名称, 数组以[]表示, 内部类以$分隔
+     *
+     * @param type
+     * @return
+     */
+    private static String typeName(Class<?> type) {
+        return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+    }
+
+    /**
+     * 字符串字面量
+     *
+     * @param value
+     * @return
+     */
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * 判断类型能否被生成的类访问, 即类型及其外部类都是public的
+     *
+     * @param type
+     * @return
+     */
+    private static boolean isPublic(Class<?> type) {
+        for (; type != null; type = type.getDeclaringClass()) {
+            if (!Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 定义生成类的类加载器, 优先从bean的类加载器加载类, 其次从{@link BeanCopier}的类加载器加载
+     */
+    private static class GeneratedClassLoader extends ClassLoader {
+
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            try {
+                return super.loadClass(name, resolve);
+            } catch (ClassNotFoundException e) {
+                return BeanCopier.class.getClassLoader().loadClass(name);
+            }
+        }
+
+        Class<?> define(String name, byte[] bytecode) {
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.nianien.core.reflect;
+
+import com.nianien.core.log.LoggerFactory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import static com.nianien.core.exception.ExceptionHandler.throwIf;
+
+/**
+ * 类的反射元数据, 包括方法、getter和setter方法、字段以及属性的访问器<br/>
+ * 元数据通过{@link ClassValue}与类关联, 每个类只解析一次; 缓存不持有类加载器, 类被卸载时元数据随之回收, 热部署时不会造成泄漏<br/>
+ * 属性访问器在首次调用时将方法绑定为函数对象, 此后的调用开销接近直接调用
+ *
+ * @author skyfalling
+ */
+public final class ClassMetadata {
+
+    private final static Logger logger = LoggerFactory.getLogger(ClassMetadata.class);
+
+    /**
+     * JDK 9以上的MethodHandles.privateLookupIn方法, JDK 8时为null
+     */
+    private final static Method privateLookupIn;
+
+    static {
+        Method method = null;
+        try {
+            method = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+        } catch (NoSuchMethodException e) {
+            // JDK 8
+        }
+        privateLookupIn = method;
+    }
+
+    /**
+     * 类与元数据的关联
+     */
+    private final static ClassValue<ClassMetadata> metadata = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    /**
+     * 元数据对应的类
+     */
+    private final Class<?> type;
+    /**
+     * 该类及其父类声明的非静态方法, 不包含{@link Object}声明的方法
+     */
+    private final List<Method> methods;
+    /**
+     * getter方法
+     */
+    private final List<Method> getters;
+    /**
+     * setter方法
+     */
+    private final List<Method> setters;
+    /**
+     * 该类及其父类声明的字段, 不包含{@link Object}声明的字段
+     */
+    private final List<Field> fields;
+    /**
+     * 属性名称到getter访问器的映射, 同名属性以子类声明的为准
+     */
+    private final Map<String, Accessor> getterAccessors = new LinkedHashMap<String, Accessor>();
+    /**
+     * 属性名称到setter访问器的映射, 同名属性可能有多个重载的setter方法
+     */
+    private final Map<String, List<Accessor>> setterAccessors = new LinkedHashMap<String, List<Accessor>>();
+    /**
+     * getter或setter方法到访问器的映射
+     */
+    private final Map<Method, Accessor> accessors = new HashMap<Method, Accessor>();
+    /**
+     * 按名称查找字段的缓存
+     */
+    private final Map<String, Optional<Field>> namedFields = new ConcurrentHashMap<String, Optional<Field>>();
+
+    private ClassMetadata(Class<?> type) {
+        this.type = type;
+        this.methods = Collections.unmodifiableList(Reflections.getMethods(type, Object.class, Reflections.IS_STATIC_METHOD.negate()));
+        List<Method> getters = new ArrayList<Method>();
+        List<Method> setters = new ArrayList<Method>();
+        for (Method method : methods) {
+            if (Reflections.isGetter(method)) {
+                getters.add(method);
+                Accessor accessor = new Accessor(method);
+                accessors.put(method, accessor);
+                getterAccessors.putIfAbsent(accessor.getPropertyName(), accessor);
+            } else if (Reflections.isSetter(method)) {
+                setters.add(method);
+                Accessor accessor = new Accessor(method);
+                accessors.put(method, accessor);
+                setterAccessors.computeIfAbsent(accessor.getPropertyName(), (name) -> new ArrayList<Accessor>()).add(accessor);
+            }
+        }
+        this.getters = Collections.unmodifiableList(getters);
+        this.setters = Collections.unmodifiableList(setters);
+        this.fields = Collections.unmodifiableList(Reflections.getFields(type, Object.class, null));
+    }
+
+    /**
+     * 获取类的元数据
+     *
+     * @param type
+     * @return
+     */
+    public static ClassMetadata of(Class<?> type) {
+        return metadata.get(type);
+    }
+
+    /**
+     * 获取getter或setter方法的访问器, 同一方法共享同一个访问器
+     *
+     * @param method
+     * @return
+     */
+    public static Accessor accessor(Method method) {
+        Accessor accessor = of(method.getDeclaringClass()).accessors.get(method);
+        return accessor != null ? accessor : new Accessor(method);
+    }
+
+    /**
+     * 清除类的元数据, 下次获取时重新解析
+     *
+     * @param type
+     */
+    public static void evict(Class<?> type) {
+        metadata.remove(type);
+    }
+
+    /**
+     * 元数据对应的类
+     *
+     * @return
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * 该类及其父类声明的非静态方法, 不包含{@link Object}声明的方法
+     *
+     * @return 不可修改的列表
+     */
+    public List<Method> getMethods() {
+        return methods;
+    }
+
+    /**
+     * getter方法列表, 不包含{@link Object}声明的getter方法
+     *
+     * @return 不可修改的列表
+     */
+    public List<Method> getGetters() {
+        return getters;
+    }
+
+    /**
+     * setter方法列表, 不包含{@link Object}声明的setter方法
+     *
+     * @return 不可修改的列表
+     */
+    public List<Method> getSetters() {
+        return setters;
+    }
+
+    /**
+     * 该类及其父类声明的字段, 不包含{@link Object}声明的字段
+     *
+     * @return 不可修改的列表
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * 查找指定名称的字段, 规则同{@link Reflections#getField(Class, String)}
+     *
+     * @param fieldName
+     * @return 不存在时返回null
+     */
+    public Field getField(String fieldName) {
+        return namedFields.computeIfAbsent(fieldName, (name) -> Optional.ofNullable(findField(name))).orElse(null);
+    }
+
+    /**
+     * 全部属性的getter访问器
+     *
+     * @return
+     */
+    public Iterable<Accessor> getterAccessors() {
+        return getterAccessors.values();
+    }
+
+    /**
+     * 全部setter访问器
+     *
+     * @return
+     */
+    public List<Accessor> setterAccessors() {
+        List<Accessor> accessors = new ArrayList<Accessor>();
+        for (List<Accessor> list : setterAccessors.values()) {
+            accessors.addAll(list);
+        }
+        return accessors;
+    }
+
+    /**
+     * 获取属性的getter访问器
+     *
+     * @param propertyName 属性名称,注解{@link com.nianien.core.annotation.Property}的优先级高于方法名
+     * @return 不存在时返回null
+     */
+    public Accessor getter(String propertyName) {
+        return getterAccessors.get(propertyName);
+    }
+
+    /**
+     * 获取属性的setter访问器
+     *
+     * @param propertyName 属性名称,注解{@link com.nianien.core.annotation.Property}的优先级高于方法名
+     * @return 不存在时返回null
+     */
+    public Accessor setter(String propertyName) {
+        List<Accessor> accessors = setterAccessors.get(propertyName);
+        return accessors != null ? accessors.get(0) : null;
+    }
+
+    /**
+     * 获取参数类型为propertyType的setter访问器
+     *
+     * @param propertyName
+     * @param propertyType
+     * @return 不存在时返回null
+     */
+    public Accessor setter(String propertyName, Class<?> propertyType) {
+        List<Accessor> accessors = setterAccessors.get(propertyName);
+        if (accessors != null) {
+            for (Accessor accessor : accessors) {
+                if (accessor.getType() == propertyType) {
+                    return accessor;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取可以接受propertyValue作为参数的setter访问器
+     *
+     * @param propertyName
+     * @param propertyValue
+     * @return 不存在时返回null
+     */
+    public Accessor setterFor(String propertyName, Object propertyValue) {
+        List<Accessor> accessors = setterAccessors.get(propertyName);
+        if (accessors != null) {
+            for (Accessor accessor : accessors) {
+                if (Reflections.instanceOf(accessor.getType(), propertyValue)) {
+                    return accessor;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Field findField(String fieldName) {
+        try {
+            return type.getField(fieldName);
+        } catch (NoSuchFieldException e) {
+            for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+                try {
+                    return clazz.getDeclaredField(fieldName);
+                } catch (NoSuchFieldException ex) {
+                    //ignore
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * getter或setter方法的访问器<br/>
+     * 首次调用时通过{@link LambdaMetafactory}将方法绑定为{@link Function}或{@link BiConsumer}, 此后的调用与直接调用方法相当;
+     * 无法绑定时(例如JDK 9以上无法访问的类)使用反射调用
+     */
+    public static final class Accessor {
+        /**
+         * getter或setter方法
+         */
+        private final Method method;
+        /**
+         * 属性名称
+         */
+        private final String propertyName;
+        /**
+         * 是否为getter方法
+         */
+        private final boolean getter;
+        /**
+         * getter方法绑定的函数, 对象不可变, 重复创建不影响正确性
+         */
+        private Function<Object, Object> function;
+        /**
+         * setter方法绑定的函数, 对象不可变, 重复创建不影响正确性
+         */
+        private BiConsumer<Object, Object> consumer;
+
+        Accessor(Method method) {
+            this.method = method;
+            this.propertyName = Reflections.propertyName(method);
+            this.getter = method.getParameterTypes().length == 0;
+        }
+
+        /**
+         * 访问器对应的方法
+         *
+         * @return
+         */
+        public Method getMethod() {
+            return method;
+        }
+
+        /**
+         * 属性名称
+         *
+         * @return
+         */
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        /**
+         * 属性类型, 即getter方法的返回类型或setter方法的参数类型
+         *
+         * @return
+         */
+        public Class<?> getType() {
+            return getter ? method.getReturnType() : method.getParameterTypes()[0];
+        }
+
+        /**
+         * 调用getter方法获取属性值
+         *
+         * @param bean
+         * @return
+         */
+        public Object get(Object bean) {
+            return function().apply(bean);
+        }
+
+        /**
+         * 调用setter方法设置属性值
+         *
+         * @param bean
+         * @param value
+         */
+        public void set(Object bean, Object value) {
+            consumer().accept(bean, value);
+        }
+
+        /**
+         * getter方法绑定的函数, 原始类型的返回值自动装箱<br/>
+         * 调用方可以持有该函数, 避免每次调用时经过访问器
+         *
+         * @return
+         */
+        public Function<Object, Object> function() {
+            Function<Object, Object> function = this.function;
+            if (function == null) {
+                throwIf(!getter, "not a getter method: " + method);
+                this.function = function = bind(Function.class, "apply", MethodType.methodType(Object.class, Object.class),
+                        MethodType.methodType(Reflections.wrapClass(method.getReturnType()), method.getDeclaringClass()));
+                if (function == null) {
+                    function = (bean) -> Reflections.invoke(method, bean);
+                    this.function = function;
+                }
+            }
+            return function;
+        }
+
+        /**
+         * setter方法绑定的函数, 原始类型的参数自动拆箱<br/>
+         * 调用方可以持有该函数, 避免每次调用时经过访问器
+         *
+         * @return
+         */
+        public BiConsumer<Object, Object> consumer() {
+            BiConsumer<Object, Object> consumer = this.consumer;
+            if (consumer == null) {
+                throwIf(getter, "not a setter method: " + method);
+                this.consumer = consumer = bind(BiConsumer.class, "accept", MethodType.methodType(void.class, Object.class, Object.class),
+                        MethodType.methodType(void.class, method.getDeclaringClass(), Reflections.wrapClass(method.getParameterTypes()[0])));
+                if (consumer == null) {
+                    consumer = (bean, value) -> Reflections.invoke(method, bean, value);
+                    this.consumer = consumer;
+                }
+            }
+            return consumer;
+        }
+
+        /**
+         * 将方法绑定为函数式接口的实现
+         *
+         * @param functionType     函数式接口
+         * @param functionName     接口方法名
+         * @param samType          接口方法擦除后的类型
+         * @param instantiatedType 接口方法实例化后的类型
+         * @return 无法绑定时返回null
+         */
+        @SuppressWarnings("unchecked")
+        private <F> F bind(Class<?> functionType, String functionName, MethodType samType, MethodType instantiatedType) {
+            try {
+                MethodHandles.Lookup lookup = lookupIn(method.getDeclaringClass());
+                CallSite site = LambdaMetafactory.metafactory(lookup, functionName, MethodType.methodType(functionType),
+                        samType, lookup.unreflect(method), instantiatedType);
+                return (F) site.getTarget().invoke();
+            } catch (Throwable e) {
+                logger.fine("use reflection for method[" + method + "]: " + e);
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return method.toString();
+        }
+    }
+
+    /**
+     * 获取具有类的全部访问权限的Lookup对象, {@link LambdaMetafactory}要求Lookup对象具有私有访问权限<br/>
+     * JDK 9以上使用MethodHandles.privateLookupIn, JDK 8使用Lookup的私有构造方法
+     *
+     * @param type
+     * @return
+     * @throws Exception
+     */
+    private static MethodHandles.Lookup lookupIn(Class<?> type) throws Exception {
+        if (privateLookupIn != null) {
+            return (MethodHandles.Lookup) privateLookupIn.invoke(null, type, MethodHandles.lookup());
+        }
+        Constructor<MethodHandles.Lookup> constructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(type, MethodHandles.Lookup.PUBLIC | MethodHandles.Lookup.PRIVATE
+                | MethodHandles.Lookup.PROTECTED | MethodHandles.Lookup.PACKAGE);
+    }
+}
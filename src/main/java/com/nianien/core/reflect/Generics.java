@@ -1,22 +1,44 @@
 package com.nianien.core.reflect;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * 泛型工具类,用于获取类对象绑定的泛型参数
+ * 泛型工具类,用于获取类对象绑定的泛型参数<br/>
+ * 解析结果按照(类, 声明泛型的类)缓存, 缓存通过{@link ClassValue}与类关联, 不会阻止类加载器的回收
  *
  * @author skyfalling
  * @version 1.0.0
  */
 public class Generics {
 
+  /**
+   * 表示未绑定泛型参数的解析结果
+   */
+  private final static Type[] UNRESOLVED = new Type[0];
+
+  /**
+   * 类到(声明泛型的类, 泛型参数)的映射
+   */
+  private final static ClassValue<Map<Class<?>, Type[]>> resolved = new ClassValue<Map<Class<?>, Type[]>>() {
+    @Override
+    protected Map<Class<?>, Type[]> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<Class<?>, Type[]>();
+    }
+  };
+
   /**
    * 查找类对象clazz绑定的genericClass声明的泛型参数
    *
@@ -26,89 +48,154 @@ public class Generics {
    * @return 如果绑定了泛型参数, 则返回泛型类型, 否则返回null
    */
   public static Class find(Class clazz, Class genericClass, int index) {
-    if (!genericClass.isAssignableFrom(clazz)) {
+    Type type = findType(clazz, genericClass, index);
+    return type != null ? rawClass(type) : null;
+  }
+
+  /**
+   * 查找类对象clazz绑定的genericClass声明的泛型参数, 返回完整的泛型类型, 如List&lt;String>
+   *
+   * @param clazz        绑定泛型参数的类
+   * @param genericClass 声明泛型的类
+   * @param index        泛型在声明类中的索引位置
+   * @return 如果绑定了泛型参数, 则返回泛型类型, 否则返回null
+   */
+  public static Type findType(Class<?> clazz, Class<?> genericClass, int index) {
+    Type[] types = resolve(clazz, genericClass);
+    if (types == null || index >= types.length || types[index] instanceof TypeVariable) {
       return null;
     }
-    List<Type> types = getGenericTypes(clazz);
-    for (Type type : types) {
-      Class genericType = find(type, genericClass, index);
-      if (genericType != null) {
-        return genericType;
-      }
-    }
-    return null;
+    return types[index];
   }
 
   /**
-   * 查找类type上绑定的genericClass声明的泛型类型
+   * 解析类对象clazz绑定的genericClass声明的全部泛型参数<br/>
+   * 未绑定的泛型参数以{@link TypeVariable}表示
    *
-   * @param type         泛型对象
+   * @param clazz        绑定泛型参数的类
    * @param genericClass 声明泛型的类
-   * @param index        泛型在声明类中的索引位置
+   * @return 如果clazz不是genericClass的子类, 则返回null
+   */
+  public static Type[] resolve(Class<?> clazz, Class<?> genericClass) {
+    if (clazz == genericClass || !genericClass.isAssignableFrom(clazz)) {
+      return null;
+    }
+    Type[] types = resolved.get(clazz).computeIfAbsent(genericClass, (type) -> {
+      Type[] result = resolve(clazz, type, Collections.<TypeVariable<?>, Type>emptyMap());
+      return result != null ? result : UNRESOLVED;
+    });
+    return types != UNRESOLVED ? types.clone() : null;
+  }
+
+  /**
+   * 创建参数化类型, 如parameterize(Map.class, String.class, Integer.class)表示Map&lt;String, Integer>
+   *
+   * @param rawClass      声明泛型的类
+   * @param typeArguments 泛型参数
    * @return
    */
-  private static Class find(Type type, Class genericClass, int index) {
+  public static ParameterizedType parameterize(Class<?> rawClass, Type... typeArguments) {
+    if (rawClass.getTypeParameters().length != typeArguments.length) {
+      throw new IllegalArgumentException("the number of type arguments of " + rawClass.getName()
+              + " should be " + rawClass.getTypeParameters().length + ": " + Arrays.toString(typeArguments));
+    }
+    return new ParameterizedTypeImpl(rawClass, typeArguments.clone(), rawClass.getDeclaringClass());
+  }
+
+  /**
+   * 获取泛型类型对应的类对象
+   *
+   * @param type
+   * @return 如果是未绑定的泛型变量或通配符, 则返回其上界
+   */
+  public static Class<?> rawClass(Type type) {
     if (type instanceof Class) {
-      return find((Class) type, genericClass, index);
+      return (Class<?>) type;
     }
     if (type instanceof ParameterizedType) {
-      ParameterizedType pType = (ParameterizedType) type;
-      Type rawType = pType.getRawType();
-      if (rawType instanceof Class) {
-        Class rawClass = (Class) rawType;
-        if (rawClass == genericClass) {
-          Type realType = pType.getActualTypeArguments()[index];
-          if (realType instanceof Class) {
-            return (Class) realType;
-          } else if (realType instanceof ParameterizedType) {
-            //这里是泛型的泛型
-            return (Class) ((ParameterizedType) realType).getRawType();
-          }
-        } else if (genericClass.isAssignableFrom(rawClass)) {
-          Map<String, Type> map = combine(pType.getActualTypeArguments(), rawClass);
-          return find(rawClass, genericClass, index, map);
-        }
-      }
+      return (Class<?>) ((ParameterizedType) type).getRawType();
     }
-    return null;
+    if (type instanceof GenericArrayType) {
+      return Array.newInstance(rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+    }
+    if (type instanceof TypeVariable) {
+      return rawClass(((TypeVariable<?>) type).getBounds()[0]);
+    }
+    if (type instanceof WildcardType) {
+      return rawClass(((WildcardType) type).getUpperBounds()[0]);
+    }
+    return Object.class;
   }
 
   /**
-   * 查找类currentClass上绑定的genericClass声明的泛型类型
+   * 沿继承关系查找genericClass, 同时将泛型变量替换为已绑定的类型
    *
-   * @param currentClass 绑定泛型参数的类
+   * @param currentClass 当前类
    * @param genericClass 声明泛型的类
-   * @param index        泛型在声明类中的索引位置
-   * @param typeMap      已绑定的泛型类型映射表
+   * @param bindings     当前类的泛型变量到类型的映射
    * @return
    */
-  private static Class find(Class currentClass, Class genericClass, int index, Map<String, Type> typeMap) {
-    List<Type> types = getGenericTypes(currentClass);
-    for (Type type : types) {
+  private static Type[] resolve(Class<?> currentClass, Class<?> genericClass, Map<TypeVariable<?>, Type> bindings) {
+    for (Type type : getGenericTypes(currentClass)) {
+      Class<?> rawClass = type instanceof ParameterizedType ? (Class<?>) ((ParameterizedType) type).getRawType() : (Class<?>) type;
+      if (rawClass == null || !genericClass.isAssignableFrom(rawClass)) {
+        continue;
+      }
+      TypeVariable<?>[] typeParameters = rawClass.getTypeParameters();
+      Map<TypeVariable<?>, Type> map = new HashMap<TypeVariable<?>, Type>(typeParameters.length * 2);
       if (type instanceof ParameterizedType) {
-        ParameterizedType pType = (ParameterizedType) type;
-        Type rawType = pType.getRawType();
-        if (rawType instanceof Class) {
-          Class rawClass = (Class) rawType;
-          Map<String, Type> map = transfer(pType, typeMap);
-          Type[] typeArray = map.values().toArray(new Type[0]);
-          if (rawClass == genericClass) {
-            Type realType = typeArray[index];
-            if (realType instanceof Class) {
-              return (Class) realType;
-            } else if (realType instanceof ParameterizedType) {
-              //这里是泛型的泛型
-              return (Class) ((ParameterizedType) realType).getRawType();
-            }
-          } else if (genericClass.isAssignableFrom(rawClass)) {
-            return find(rawClass, genericClass, index, combine(typeArray, rawClass));
-          }
+        Type[] typeArguments = ((ParameterizedType) type).getActualTypeArguments();
+        for (int i = 0; i < typeParameters.length; i++) {
+          map.put(typeParameters[i], substitute(typeArguments[i], bindings));
+        }
+      }
+      if (rawClass == genericClass) {
+        Type[] types = new Type[typeParameters.length];
+        for (int i = 0; i < types.length; i++) {
+          types[i] = map.getOrDefault(typeParameters[i], typeParameters[i]);
         }
+        return types;
+      }
+      Type[] types = resolve(rawClass, genericClass, map);
+      if (types != null) {
+        return types;
       }
     }
     return null;
   }
 
+  /**
+   * 将类型中的泛型变量替换为已绑定的类型
+   *
+   * @param type
+   * @param bindings
+   * @return
+   */
+  private static Type substitute(Type type, Map<TypeVariable<?>, Type> bindings) {
+    if (type instanceof TypeVariable) {
+      return bindings.getOrDefault(type, type);
+    }
+    if (type instanceof ParameterizedType) {
+      ParameterizedType pType = (ParameterizedType) type;
+      Type[] typeArguments = pType.getActualTypeArguments();
+      boolean changed = false;
+      for (int i = 0; i < typeArguments.length; i++) {
+        Type typeArgument = substitute(typeArguments[i], bindings);
+        changed |= typeArgument != typeArguments[i];
+        typeArguments[i] = typeArgument;
+      }
+      return changed ? new ParameterizedTypeImpl((Class<?>) pType.getRawType(), typeArguments, pType.getOwnerType()) : type;
+    }
+    if (type instanceof GenericArrayType) {
+      Type componentType = ((GenericArrayType) type).getGenericComponentType();
+      Type resolvedType = substitute(componentType, bindings);
+      if (resolvedType == componentType) {
+        return type;
+      }
+      return resolvedType instanceof Class ? Array.newInstance((Class<?>) resolvedType, 0).getClass() : new GenericArrayTypeImpl(resolvedType);
+    }
+    return type;
+  }
 
   /**
    * 获取当前类继承的父类和实现接口的泛型列表
@@ -125,48 +212,97 @@ public class Generics {
     for (Type type : types) {
       list.add(type);
     }
-    list.add(clazz.getGenericSuperclass());
+    if (clazz.getGenericSuperclass() != null) {
+      list.add(clazz.getGenericSuperclass());
+    }
     return list;
   }
 
   /**
-   * 构建泛型映射表
-   *
-   * @param typeArguments 泛型参数
-   * @param rawClass      声明泛型的类
-   * @return
+   * 泛型变量替换后的参数化类型, equals和hashCode与JDK的实现一致
    */
-  private static Map<String, Type> combine(Type[] typeArguments, Class rawClass) {
-    Map<String, Type> map = new LinkedHashMap<>(typeArguments.length);
-    TypeVariable[] typeParameters = rawClass.getTypeParameters();
-    for (int i = 0; i < typeParameters.length; i++) {
-      map.put(typeParameters[i].getName(), typeArguments[i]);
+  private static class ParameterizedTypeImpl implements ParameterizedType {
+
+    private final Class<?> rawType;
+    private final Type[] typeArguments;
+    private final Type ownerType;
+
+    ParameterizedTypeImpl(Class<?> rawType, Type[] typeArguments, Type ownerType) {
+      this.rawType = rawType;
+      this.typeArguments = typeArguments;
+      this.ownerType = ownerType;
+    }
+
+    @Override
+    public Type[] getActualTypeArguments() {
+      return typeArguments.clone();
+    }
+
+    @Override
+    public Type getRawType() {
+      return rawType;
+    }
+
+    @Override
+    public Type getOwnerType() {
+      return ownerType;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof ParameterizedType)) {
+        return false;
+      }
+      ParameterizedType that = (ParameterizedType) obj;
+      return rawType.equals(that.getRawType())
+              && Objects.equals(ownerType, that.getOwnerType())
+              && Arrays.equals(typeArguments, that.getActualTypeArguments());
     }
-    return map;
-  }
 
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(typeArguments) ^ Objects.hashCode(ownerType) ^ rawType.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder(rawType.getName()).append("<");
+      for (int i = 0; i < typeArguments.length; i++) {
+        sb.append(i > 0 ? ", " : "").append(typeArguments[i].getTypeName());
+      }
+      return sb.append(">").toString();
+    }
+  }
 
   /**
-   * 转换泛型映射表
-   *
-   * @param parameterizedType 绑定参数类型的泛型对象
-   * @param typeMap           已绑定的泛型类型映射表
-   * @return
+   * 泛型变量替换后的数组类型
    */
-  private static Map<String, Type> transfer(ParameterizedType parameterizedType, Map<String, Type> typeMap) {
-
-    Type[] actualTypeArguments = parameterizedType.getActualTypeArguments();
-    TypeVariable[] typeParameters = ((Class) parameterizedType.getRawType()).getTypeParameters();
-    Map<String, Type> map = new LinkedHashMap<>();
-    for (int i = 0; i < actualTypeArguments.length; i++) {
-      Type type = actualTypeArguments[i];
-      if (type instanceof TypeVariable) {
-        String variableName = ((TypeVariable) type).getName();
-        map.put(variableName, typeMap.get(variableName));
-      } else {
-        map.put(typeParameters[i].getName(), type);
-      }
+  private static class GenericArrayTypeImpl implements GenericArrayType {
+
+    private final Type componentType;
+
+    GenericArrayTypeImpl(Type componentType) {
+      this.componentType = componentType;
+    }
+
+    @Override
+    public Type getGenericComponentType() {
+      return componentType;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof GenericArrayType && componentType.equals(((GenericArrayType) obj).getGenericComponentType());
+    }
+
+    @Override
+    public int hashCode() {
+      return componentType.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return componentType.getTypeName() + "[]";
     }
-    return map;
   }
 }
@@ -3,15 +3,25 @@ package com.nianien.core.reflect;
 import com.nianien.core.exception.ExceptionHandler;
 
 import javassist.ClassPool;
+import javassist.CtBehavior;
 import javassist.CtClass;
-import javassist.CtMethod;
+import javassist.LoaderClassPath;
 import javassist.Modifier;
 import javassist.NotFoundException;
 import javassist.bytecode.CodeAttribute;
 import javassist.bytecode.LocalVariableAttribute;
 import javassist.bytecode.MethodInfo;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 获取方法相关信息的工具类
@@ -20,6 +30,16 @@ import java.lang.reflect.Method;
  */
 public class Methods {
 
+  /**
+   * 类到(方法, 参数名称)的映射
+   */
+  private final static ClassValue<ParameterNames> parameterNames = new ClassValue<ParameterNames>() {
+    @Override
+    protected ParameterNames computeValue(Class<?> type) {
+      return new ParameterNames(type);
+    }
+  };
+
   /**
    * 获取指定调用深度的方法所在类的名称<br/>
    * 当前方法的堆栈深度为0,调用当前方法的方法堆栈深度为1,依次类推
@@ -74,17 +94,24 @@ public class Methods {
   }
 
   /**
-   * 获取指定方法的参数名称
+   * 获取指定方法的参数名称<br/>
+   * 优先使用{@link Parameter}(类以-parameters编译时), 否则读取字节码中的局部变量表, 每个类只读取一次; 结果按方法缓存
    *
    * @param method
    * @return 方法参数名称数组
    */
   public static String[] getParameterNames(Method method) {
-    Class<?> clazz = method.getDeclaringClass();
-    String methodName = method.getName();
-    Class<?>[] paramTypes = method.getParameterTypes();
-    return getParameterNames(clazz, methodName, paramTypes);
+    return getParameterNames((Executable) method);
+  }
 
+  /**
+   * 获取指定构造方法的参数名称, 规则同{@link #getParameterNames(Method)}
+   *
+   * @param constructor
+   * @return 构造方法参数名称数组
+   */
+  public static String[] getParameterNames(Constructor<?> constructor) {
+    return getParameterNames((Executable) constructor);
   }
 
   /**
@@ -98,42 +125,213 @@ public class Methods {
   public static String[] getParameterNames(Class<?> clazz, String methodName,
                                            Class<?>... paramTypes) {
     try {
-      String[] paramTypeNames = new String[paramTypes.length];
-      for (int i = 0; i < paramTypes.length; i++)
-        paramTypeNames[i] = paramTypes[i].getName();
-      ClassPool pool = ClassPool.getDefault();
-      CtClass cc = pool.get(clazz.getName());
-      CtMethod cm = cc.getDeclaredMethod(methodName, pool
-              .get(paramTypeNames));
-      return getMethodParamNames(cm);
+      return getParameterNames(clazz.getDeclaredMethod(methodName, paramTypes));
     } catch (Exception e) {
       throw ExceptionHandler.throwException(e);
     }
   }
 
+  /**
+   * 获取方法或构造方法的参数名称
+   *
+   * @param executable
+   * @return
+   */
+  private static String[] getParameterNames(Executable executable) {
+    String[] names = parameterNames.get(executable.getDeclaringClass())
+            .computeIfAbsent(executable, Methods::resolveParameterNames);
+    return names.clone();
+  }
+
+  /**
+   * 解析方法的参数名称, 优先使用{@link Parameter}, 其次使用字节码中的局部变量表
+   *
+   * @param executable
+   * @return
+   */
+  private static String[] resolveParameterNames(Executable executable) {
+    Parameter[] parameters = executable.getParameters();
+    String[] names = new String[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      if (!parameters[i].isNamePresent()) {
+        names = parameterNames.get(executable.getDeclaringClass()).scanned(executable);
+        ExceptionHandler.throwIf(names == null, "no parameter names found for " + executable
+                + ", compile with -g or -parameters");
+        return names;
+      }
+      names[i] = parameters[i].getName();
+    }
+    return names;
+  }
+
+  /**
+   * 方法的描述符键值, 由方法名称和参数描述符组成
+   *
+   * @param name
+   * @param descriptor 完整的方法描述符, 如(Ljava/lang/String;I)V
+   * @return
+   */
+  private static String key(String name, String descriptor) {
+    return name + descriptor.substring(0, descriptor.indexOf(')') + 1);
+  }
+
+  /**
+   * 方法的描述符键值
+   *
+   * @param executable
+   * @return
+   */
+  private static String key(Executable executable) {
+    StringBuilder sb = new StringBuilder(executable instanceof Constructor ? "<init>" : executable.getName()).append('(');
+    for (Class<?> type : executable.getParameterTypes()) {
+      sb.append(descriptor(type));
+    }
+    return sb.append(')').toString();
+  }
+
+  /**
+   * 类型的描述符
+   *
+   * @param type
+   * @return
+   */
+  private static String descriptor(Class<?> type) {
+    if (type.isArray()) {
+      return type.getName().replace('.', '/');
+    }
+    if (type.isPrimitive()) {
+      switch (type.getName()) {
+        case "boolean":
+          return "Z";
+        case "byte":
+          return "B";
+        case "char":
+          return "C";
+        case "short":
+          return "S";
+        case "int":
+          return "I";
+        case "long":
+          return "J";
+        case "float":
+          return "F";
+        case "double":
+          return "D";
+        default:
+          return "V";
+      }
+    }
+    return "L" + type.getName().replace('.', '/') + ";";
+  }
 
   /**
-   * 获取方法参数名称
+   * 参数在局部变量表中的槽位
    *
-   * @param cm
+   * @param descriptor 方法描述符
+   * @param isStatic   是否为静态方法
    * @return
-   * @throws javassist.NotFoundException
-   */
-  private static String[] getMethodParamNames(CtMethod cm)
-          throws NotFoundException {
-    CtClass cc = cm.getDeclaringClass();
-    MethodInfo methodInfo = cm.getMethodInfo();
-    CodeAttribute codeAttribute = methodInfo.getCodeAttribute();
-    LocalVariableAttribute attr = (LocalVariableAttribute) codeAttribute
-            .getAttribute(LocalVariableAttribute.tag);
-    ExceptionHandler.throwIf(attr == null, cc.getName());
-
-    String[] paramNames = new String[cm.getParameterTypes().length];
-    int pos = Modifier.isStatic(cm.getModifiers()) ? 0 : 1;
-    for (int i = 0; i < paramNames.length; i++)
-      paramNames[i] = attr.variableName(i + pos);
-    return paramNames;
+   */
+  private static int[] slots(String descriptor, boolean isStatic) {
+    int[] slots = new int[descriptor.length()];
+    int count = 0;
+    int slot = isStatic ? 0 : 1;
+    for (int i = 1; descriptor.charAt(i) != ')'; i++) {
+      slots[count++] = slot;
+      char c = descriptor.charAt(i);
+      slot += c == 'J' || c == 'D' ? 2 : 1;
+      while (c == '[') {
+        c = descriptor.charAt(++i);
+      }
+      if (c == 'L') {
+        i = descriptor.indexOf(';', i);
+      }
+    }
+    return Arrays.copyOf(slots, count);
   }
 
+  /**
+   * 一个类中全部方法的参数名称
+   */
+  private static class ParameterNames extends ConcurrentHashMap<Executable, String[]> {
+
+    /**
+     * 声明方法的类
+     */
+    private final Class<?> type;
+    /**
+     * 从字节码中读取的参数名称, 键值参见{@link #key(String, String)}, 首次使用时读取
+     */
+    private volatile Map<String, String[]> scanned;
 
+    ParameterNames(Class<?> type) {
+      this.type = type;
+    }
+
+    /**
+     * 从字节码中读取的参数名称
+     *
+     * @param executable
+     * @return 如果没有局部变量表, 则返回null
+     */
+    String[] scanned(Executable executable) {
+      Map<String, String[]> scanned = this.scanned;
+      if (scanned == null) {
+        synchronized (this) {
+          if ((scanned = this.scanned) == null) {
+            this.scanned = scanned = scan();
+          }
+        }
+      }
+      return scanned.get(key(executable));
+    }
+
+    /**
+     * 读取类中全部方法和构造方法的局部变量表, 读取后释放{@link CtClass}对象
+     *
+     * @return
+     */
+    private Map<String, String[]> scan() {
+      Map<String, String[]> names = new HashMap<String, String[]>();
+      ClassPool pool = new ClassPool(true);
+      if (type.getClassLoader() != null) {
+        pool.appendClassPath(new LoaderClassPath(type.getClassLoader()));
+      }
+      CtClass cc = null;
+      try {
+        cc = pool.get(type.getName());
+        List<CtBehavior> behaviors = new ArrayList<CtBehavior>();
+        behaviors.addAll(Arrays.asList(cc.getDeclaredMethods()));
+        behaviors.addAll(Arrays.asList(cc.getDeclaredConstructors()));
+        for (CtBehavior behavior : behaviors) {
+          MethodInfo methodInfo = behavior.getMethodInfo();
+          CodeAttribute codeAttribute = methodInfo.getCodeAttribute();
+          LocalVariableAttribute attr = codeAttribute == null ? null
+                  : (LocalVariableAttribute) codeAttribute.getAttribute(LocalVariableAttribute.tag);
+          if (attr == null) {
+            continue;
+          }
+          String descriptor = methodInfo.getDescriptor();
+          int[] slots = slots(descriptor, Modifier.isStatic(behavior.getModifiers()));
+          String[] paramNames = new String[slots.length];
+          for (int i = 0; i < attr.tableLength(); i++) {
+            int index = Arrays.binarySearch(slots, attr.index(i));
+            if (index >= 0) {
+              paramNames[index] = attr.variableName(i);
+            }
+          }
+          String key = key(methodInfo.getName(), descriptor);
+          if (!Arrays.asList(paramNames).contains(null)) {
+            names.putIfAbsent(key, paramNames);
+          }
+        }
+      } catch (NotFoundException e) {
+        // 类文件不可读取
+      } finally {
+        if (cc != null) {
+          cc.detach();
+        }
+      }
+      return names;
+    }
+  }
 }
@@ -1,7 +1,6 @@
 package com.nianien.core.reflect;
 
 import com.nianien.core.annotation.Property;
-import com.nianien.core.util.CollectionUtils;
 import com.nianien.core.util.EnumUtils;
 
 import java.lang.annotation.Annotation;
@@ -13,11 +12,14 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static com.nianien.core.exception.ExceptionHandler.throwException;
 import static com.nianien.core.exception.ExceptionHandler.throwIfNull;
@@ -25,7 +27,8 @@ import static com.nianien.core.util.StringUtils.headLower;
 import static com.nianien.core.util.StringUtils.isNotEmpty;
 
 /**
- * 反射工具类
+ * 反射工具类<br/>
+ * 方法、字段以及属性的查找结果缓存在{@link ClassMetadata}中, 属性的读写通过方法句柄完成
  *
  * @author skyfalling
  */
@@ -128,7 +131,7 @@ public class Reflections {
      * @return
      */
     public static List<Method> getMethods(Class<?> clazz) {
-        return getMethods(clazz, Object.class, IS_STATIC_METHOD.negate());
+        return new ArrayList<Method>(ClassMetadata.of(clazz).getMethods());
     }
 
 
@@ -162,19 +165,7 @@ public class Reflections {
      * @return
      */
     public static Field getField(Class<?> clazz, String fieldName) {
-        try {
-            return clazz.getField(fieldName);
-        } catch (NoSuchFieldException e) {
-            for (; clazz != null; clazz = clazz.getSuperclass()) {
-                try {
-                    return clazz.getDeclaredField(fieldName);
-                } catch (NoSuchFieldException ex) {
-                    //ignore
-                }
-            }
-            return null;
-        }
-
+        return ClassMetadata.of(clazz).getField(fieldName);
     }
 
     /**
@@ -184,7 +175,7 @@ public class Reflections {
      * @return
      */
     public static List<Field> getFields(Class<?> clazz) {
-        return getFields(clazz, Object.class, null);
+        return new ArrayList<Field>(ClassMetadata.of(clazz).getFields());
     }
 
 
@@ -336,8 +327,8 @@ public class Reflections {
      * @return
      */
     public static Method getter(Class<?> clazz, String propertyName) {
-        return getters(clazz, m -> propertyName(m).equals(propertyName))
-                .stream().findAny().orElse(null);
+        ClassMetadata.Accessor getter = ClassMetadata.of(clazz).getter(propertyName);
+        return getter != null ? getter.getMethod() : null;
     }
 
     /**
@@ -364,8 +355,8 @@ public class Reflections {
      * @return
      */
     public static Method setter(Class<?> clazz, String propertyName) {
-        return setters(clazz, m -> propertyName(m).equals(propertyName))
-                .stream().findAny().orElse(null);
+        ClassMetadata.Accessor setter = ClassMetadata.of(clazz).setter(propertyName);
+        return setter != null ? setter.getMethod() : null;
     }
 
     /**
@@ -377,11 +368,8 @@ public class Reflections {
      * @return
      */
     public static Method setter(Class<?> clazz, String propertyName, Class<?> propertyType) {
-        Method setter = getter(clazz, propertyName);
-        if (setter != null && setter.getParameterTypes()[0] == propertyType) {
-            return setter;
-        }
-        return null;
+        ClassMetadata.Accessor setter = ClassMetadata.of(clazz).setter(propertyName, propertyType);
+        return setter != null ? setter.getMethod() : null;
     }
 
     /**
@@ -393,11 +381,8 @@ public class Reflections {
      * @return
      */
     public static Method setter(Class<?> clazz, String propertyName, Object propertyValue) {
-        Method setter = getter(clazz, propertyName);
-        if (setter != null && setter.getParameterTypes()[0].isInstance(propertyValue)) {
-            return setter;
-        }
-        return null;
+        ClassMetadata.Accessor setter = ClassMetadata.of(clazz).setterFor(propertyName, propertyValue);
+        return setter != null ? setter.getMethod() : null;
     }
 
 
@@ -418,7 +403,7 @@ public class Reflections {
      * @return getter方法列表
      */
     public static List<Method> getters(Class<?> clazz, Predicate<Method> filter) {
-        return getMethods(clazz, null, IS_GETTER.and(filter));
+        return ClassMetadata.of(clazz).getGetters().stream().filter(nullable(filter)).collect(Collectors.toList());
     }
 
     /**
@@ -438,7 +423,7 @@ public class Reflections {
      * @return getter方法列表
      */
     public static List<Method> setters(Class<?> clazz, Predicate<Method> filter) {
-        return getMethods(clazz, null, IS_SETTER.and(nullable(filter)));
+        return ClassMetadata.of(clazz).getSetters().stream().filter(nullable(filter)).collect(Collectors.toList());
     }
 
     /**
@@ -450,12 +435,10 @@ public class Reflections {
      * @return bean
      */
     public static <T> T setProperties(T bean, Map<String, ?> map) {
-        List<Method> methods = setters(bean.getClass());
-        for (Method method : methods) {
-            String key = propertyName(method);
-            Object value = map.get(key);
-            if (value != null && instanceOf(method.getParameterTypes()[0], value)) {
-                invoke(method, bean, value);
+        for (ClassMetadata.Accessor setter : ClassMetadata.of(bean.getClass()).setterAccessors()) {
+            Object value = map.get(setter.getPropertyName());
+            if (value != null && instanceOf(setter.getType(), value)) {
+                setter.set(bean, value);
             }
         }
         return bean;
@@ -470,11 +453,10 @@ public class Reflections {
      */
     public static Map<String, Object> getProperties(Object bean) {
         Map<String, Object> map = new HashMap<String, Object>();
-        List<Method> methods = getters(bean.getClass());
-        for (Method method : methods) {
-            Object value = invoke(method, bean);
+        for (ClassMetadata.Accessor getter : ClassMetadata.of(bean.getClass()).getterAccessors()) {
+            Object value = getter.get(bean);
             if (value != null) {
-                map.put(propertyName(method), value);
+                map.put(getter.getPropertyName(), value);
             }
         }
         return map;
@@ -489,9 +471,9 @@ public class Reflections {
      * @return 属性值
      */
     public static Object getPropertyValue(Object obj, String propertyName) {
-        Method getter = getter(obj.getClass(), propertyName);
+        ClassMetadata.Accessor getter = ClassMetadata.of(obj.getClass()).getter(propertyName);
         throwIfNull(getter, new NoSuchMethodException("No such getter Method for property: " + propertyName));
-        return invoke(getter, obj);
+        return getter.get(obj);
     }
 
     /**
@@ -502,9 +484,9 @@ public class Reflections {
      * @param propertyValue
      */
     public static void setPropertyValue(Object obj, String propertyName, Object propertyValue) {
-        Method setter = setter(obj.getClass(), propertyName, propertyValue);
+        ClassMetadata.Accessor setter = ClassMetadata.of(obj.getClass()).setterFor(propertyName, propertyValue);
         throwIfNull(setter, new NoSuchMethodException("No such setter Method for property: " + propertyName));
-        invoke(setter, obj, propertyValue);
+        setter.set(obj, propertyValue);
     }
 
 
@@ -571,21 +553,20 @@ public class Reflections {
      * @param to
      */
     public static void copyProperties(Object to, Object from) {
-        Map<String, Method> setters = CollectionUtils.map(setters(to.getClass()), Reflections::propertyName);
-        Map<String, Method> getters = CollectionUtils.map(getters(from.getClass()), Reflections::propertyName);
-        setters.forEach(
-                (n, setter) -> {
-                    try {
-                        Method getter = getters.get(n);
-                        // 调用setter方法赋值
-                        if (getter != null && setter.getParameterTypes()[0].isAssignableFrom(getter.getReturnType())) {
-                            setter.invoke(to, getter.invoke(from));
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
+        ClassMetadata source = ClassMetadata.of(from.getClass());
+        Set<String> copied = new HashSet<String>();
+        for (ClassMetadata.Accessor setter : ClassMetadata.of(to.getClass()).setterAccessors()) {
+            ClassMetadata.Accessor getter = source.getter(setter.getPropertyName());
+            // 调用setter方法赋值, 重载的setter方法只调用第一个类型兼容的
+            if (getter != null && setter.getType().isAssignableFrom(getter.getType())
+                    && copied.add(setter.getPropertyName())) {
+                try {
+                    setter.set(to, getter.get(from));
+                } catch (Exception e) {
+                    e.printStackTrace();
                 }
-        );
+            }
+        }
     }
 
 
@@ -716,9 +697,9 @@ public class Reflections {
      * @return
      */
     public static Class wrapClass(Class<?> clazz) {
-        Primitive Primitive = Reflections.Primitive.get(clazz);
-        if (Primitive != null)
-            return Primitive.clazz;
+        if (clazz.isPrimitive() && clazz != Void.TYPE) {
+            return EnumUtils.withField(Primitive.class, "type", clazz).clazz;
+        }
         return clazz;
     }
 
@@ -792,7 +773,7 @@ public class Reflections {
      * @return
      */
     public static boolean isGetter(Method method) {
-        return Modifier.isStatic(method.getModifiers())
+        return !Modifier.isStatic(method.getModifiers())
                 && method.getReturnType() != Void.TYPE
                 && method.getParameterTypes().length == 0
                 && (method.getName().startsWith("get")
@@ -807,7 +788,7 @@ public class Reflections {
      * 判断setter方法
      */
     public static boolean isSetter(Method method) {
-        return Modifier.isStatic(method.getModifiers())
+        return !Modifier.isStatic(method.getModifiers())
                 && method.getReturnType() == Void.TYPE
                 && method.getParameterTypes().length == 1
                 && method.getName().startsWith("set")
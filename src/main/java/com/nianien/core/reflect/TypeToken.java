@@ -0,0 +1,141 @@
+package com.nianien.core.reflect;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+
+/**
+ * 完整的泛型类型, 用于在运行时保留泛型参数, 如:
+ * <pre>
+ *     TypeToken&lt;Map&lt;String, List&lt;User>>> token = new TypeToken&lt;Map&lt;String, List&lt;User>>>() { };
+ * </pre>
+ * 也可以通过{@link #of(Class, Class, int)}获取类绑定的泛型参数, 结果由{@link Generics}缓存<br/>
+ * TypeToken对象不可变, 可以作为常量重复使用
+ *
+ * @param <T>
+ * @author skyfalling
+ */
+public class TypeToken<T> {
+
+    /**
+     * 泛型类型
+     */
+    private final Type type;
+    /**
+     * 泛型类型对应的类
+     */
+    private final Class<? super T> rawType;
+
+    /**
+     * 构造方法, 由匿名子类捕获泛型参数
+     */
+    @SuppressWarnings("unchecked")
+    protected TypeToken() {
+        Type type = Generics.findType(getClass(), TypeToken.class, 0);
+        if (type == null) {
+            throw new IllegalStateException("TypeToken must be created with actual type argument: " + getClass().getName());
+        }
+        this.type = type;
+        this.rawType = (Class<? super T>) Generics.rawClass(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypeToken(Type type) {
+        this.type = type;
+        this.rawType = (Class<? super T>) Generics.rawClass(type);
+    }
+
+    /**
+     * 由类创建TypeToken对象
+     *
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public static <T> TypeToken<T> of(Class<T> clazz) {
+        return new TypeToken<T>(clazz);
+    }
+
+    /**
+     * 由泛型类型创建TypeToken对象
+     *
+     * @param type
+     * @return
+     */
+    public static TypeToken<?> of(Type type) {
+        if (type instanceof TypeVariable) {
+            throw new IllegalArgumentException("type variable is not allowed: " + type);
+        }
+        return new TypeToken<Object>(type);
+    }
+
+    /**
+     * 获取类对象clazz绑定的genericClass声明的泛型参数
+     *
+     * @param clazz        绑定泛型参数的类
+     * @param genericClass 声明泛型的类
+     * @param index        泛型在声明类中的索引位置
+     * @return 如果未绑定泛型参数, 则返回null
+     */
+    public static TypeToken<?> of(Class<?> clazz, Class<?> genericClass, int index) {
+        Type type = Generics.findType(clazz, genericClass, index);
+        return type != null ? new TypeToken<Object>(type) : null;
+    }
+
+    /**
+     * 创建参数化类型, 如parameterized(Map.class, String.class, Integer.class)表示Map&lt;String, Integer>
+     *
+     * @param rawClass
+     * @param typeArguments
+     * @return
+     */
+    public static TypeToken<?> parameterized(Class<?> rawClass, Type... typeArguments) {
+        return new TypeToken<Object>(Generics.parameterize(rawClass, typeArguments));
+    }
+
+    /**
+     * 泛型类型
+     *
+     * @return
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * 泛型类型对应的类
+     *
+     * @return
+     */
+    public Class<? super T> getRawType() {
+        return rawType;
+    }
+
+    /**
+     * 第index个泛型参数
+     *
+     * @param index
+     * @return 如果不是参数化类型, 则返回null
+     */
+    public TypeToken<?> getTypeArgument(int index) {
+        if (type instanceof ParameterizedType) {
+            return of(((ParameterizedType) type).getActualTypeArguments()[index]);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof TypeToken && type.equals(((TypeToken<?>) obj).type);
+    }
+
+    @Override
+    public int hashCode() {
+        return type.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return type.getTypeName();
+    }
+}
@@ -0,0 +1,222 @@
+package com.nianien.core.tree;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.ToLongFunction;
+
+/**
+ * long类型键值的败者树, 对多个按键值升序排列的数据源进行归并排序<br>
+ * 叶子节点的键值存储在long数组中, 比较过程不会发生装箱; 可选地, 每个键值可以携带一个负载对象
+ *
+ * @param <T> 负载对象的类型
+ * @author skyfalling
+ * @see LoserTree
+ */
+public class LongLoserTree<T> implements PrimitiveIterator.OfLong {
+    /**
+     * 非叶子节点, 记录数据源的索引位置
+     */
+    private int[] tree;
+    /**
+     * 叶子节点的键值
+     */
+    private long[] keys;
+    /**
+     * 叶子节点的负载对象, 与键值一一对应
+     */
+    private Object[] payloads;
+    /**
+     * 叶子节点对应的数据源是否已结束
+     */
+    private boolean[] ended;
+    /**
+     * 键值数据源列表
+     */
+    private PrimitiveIterator.OfLong[] keyBranches;
+    /**
+     * 负载对象数据源列表
+     */
+    private Iterator<T>[] branches;
+    /**
+     * 从负载对象中提取键值的函数
+     */
+    private ToLongFunction<? super T> keyOf;
+
+    /**
+     * 构造方法, 指定键值数据源, 数据源的输出必须升序排列
+     *
+     * @param branches
+     */
+    public LongLoserTree(List<? extends PrimitiveIterator.OfLong> branches) {
+        this.keyBranches = branches.toArray(new PrimitiveIterator.OfLong[0]);
+        this.init(keyBranches.length);
+    }
+
+    /**
+     * 构造方法, 指定负载对象数据源以及键值的提取函数, 数据源的输出必须按键值升序排列
+     *
+     * @param branches
+     * @param keyOf
+     */
+    @SuppressWarnings("unchecked")
+    public LongLoserTree(List<Iterator<T>> branches, ToLongFunction<? super T> keyOf) {
+        this.branches = (Iterator<T>[]) branches.toArray(new Iterator<?>[0]);
+        this.keyOf = keyOf;
+        this.payloads = new Object[this.branches.length];
+        this.init(this.branches.length);
+    }
+
+    /**
+     * 是否还有未归并的数据
+     *
+     * @return
+     */
+    @Override
+    public boolean hasNext() {
+        return tree.length > 0 && !ended[tree[0]];
+    }
+
+    /**
+     * 获取并移除当前冠军节点的键值
+     *
+     * @return
+     */
+    @Override
+    public long nextLong() {
+        long key = topKey();
+        advance();
+        return key;
+    }
+
+    /**
+     * 获取当前冠军节点的键值
+     *
+     * @return
+     */
+    public long topKey() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return keys[tree[0]];
+    }
+
+    /**
+     * 获取当前冠军节点的负载对象
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T topPayload() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return payloads != null ? (T) payloads[tree[0]] : null;
+    }
+
+    /**
+     * 获取当前冠军节点所在数据源的索引
+     *
+     * @return
+     */
+    public int topBranch() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return tree[0];
+    }
+
+    /**
+     * 移除当前冠军节点, 并从其数据源读取下一个数据
+     */
+    private void advance() {
+        put(tree[0]);
+        adjust(tree[0]);
+    }
+
+    /**
+     * 初始化构建败者树<br>
+     */
+    private void init(int size) {
+        this.tree = new int[size];
+        this.keys = new long[size];
+        this.ended = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            this.put(i);
+        }
+        int winner = 0;
+        for (int i = 1; i < size; i++) {
+            if (beat(i, winner)) {
+                winner = i;
+            }
+        }
+        Arrays.fill(tree, winner);
+        for (int i = size - 1; i >= 0; i--)
+            adjust(i);
+    }
+
+    /**
+     * 调整第index个叶子节点<br>
+     *
+     * @param index
+     */
+    private void adjust(int index) {
+        int t = (tree.length + index) / 2;
+        while (t > 0) {
+            if (beat(tree[t], index)) {
+                int temp = tree[t];
+                tree[t] = index;
+                index = temp;
+            }
+            t /= 2;
+        }
+        tree[0] = index;
+    }
+
+    /**
+     * 设置第index个叶子节点的下一个数据
+     *
+     * @param index
+     */
+    private void put(int index) {
+        if (keyBranches != null) {
+            PrimitiveIterator.OfLong branch = keyBranches[index];
+            if (branch.hasNext()) {
+                keys[index] = branch.nextLong();
+            } else {
+                ended[index] = true;
+            }
+        } else {
+            Iterator<T> branch = branches[index];
+            if (branch.hasNext()) {
+                T payload = branch.next();
+                keys[index] = keyOf.applyAsLong(payload);
+                payloads[index] = payload;
+            } else {
+                ended[index] = true;
+                payloads[index] = null;
+            }
+        }
+    }
+
+    /**
+     * 判断index1对应的节点是否能打败index2对应的节点
+     *
+     * @param index1
+     * @param index2
+     * @return
+     */
+    private boolean beat(int index1, int index2) {
+        if (ended[index1])
+            return false;
+        if (ended[index2])
+            return true;
+        long k1 = keys[index1];
+        long k2 = keys[index2];
+        // 键值相等时比较分支索引, 以保证排序的稳定性
+        return k1 != k2 ? k1 < k2 : index1 < index2;
+    }
+
+}
@@ -5,14 +5,21 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 败者树,对多个有序的数据源进行归并排序<br>
+ * 败者树本身即为归并结果的迭代器, 归并过程按需从数据源读取数据, 内存中只保留每个数据源的当前数据<br>
  *
  * @param <T>
  * @author skyfalling
  */
-public class LoserTree<T> {
+public class LoserTree<T> implements Iterator<T> {
     /**
      * 非叶子节点, 记录数据源的索引位置, 根据节点的值可以定位到所指向的数据源
      */
@@ -44,27 +51,102 @@ public class LoserTree<T> {
      * @param branches
      * @param comparator
      */
-    @SuppressWarnings("unchecked")
     public LoserTree(List<Iterator<T>> branches, Comparator<T> comparator) {
+        this(branches, comparator, 1);
+    }
+
+    /**
+     * 构造方法, 指定数据源分支的迭代器、元素比较对象以及批量读取的数量<br>
+     * 当batchSize大于1时, 每个叶子节点一次从数据源读取batchSize个元素缓存起来, 以减少对数据源的访问次数<br>
+     * 注意:批量读取要求数据源返回的元素在后续读取之后仍然有效
+     *
+     * @param branches
+     * @param comparator
+     * @param batchSize  每次从数据源读取的元素数量
+     */
+    @SuppressWarnings("unchecked")
+    public LoserTree(List<Iterator<T>> branches, Comparator<T> comparator, int batchSize) {
         this.branches = branches.toArray(new Iterator[0]);
+        if (batchSize > 1) {
+            for (int i = 0; i < this.branches.length; i++) {
+                this.branches[i] = new BatchIterator<T>(this.branches[i], batchSize);
+            }
+        }
         this.comparator = comparator;
         this.init();
     }
 
     /**
      * 依次读取数据源的数据进行归并排序, 返回排序后的数据列表<br>
+     * 注意:该方法将全部数据加载到内存中, 数据量较大时应使用{@link #mergeTo(Consumer)}或{@link #stream()}
      *
      * @return
      */
     public List<T> merge() {
         List<T> list = new ArrayList<T>();
-        T top = null;
-        while ((top = get(tree[0])) != null) {
-            list.add(top);
+        mergeTo(list::add);
+        return list;
+    }
+
+    /**
+     * 依次读取数据源的数据进行归并排序, 并将排序后的数据逐个交给consumer处理<br>
+     *
+     * @param consumer
+     */
+    public void mergeTo(Consumer<? super T> consumer) {
+        T top;
+        while ((top = top()) != null) {
+            consumer.accept(top);
             put(tree[0]);
             adjust(tree[0]);
         }
-        return list;
+    }
+
+    /**
+     * 归并结果的有序流, 流中的数据按需从数据源读取
+     *
+     * @return
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * 归并结果的Spliterator, 不支持拆分
+     *
+     * @return
+     */
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * 是否还有未归并的数据
+     *
+     * @return
+     */
+    @Override
+    public boolean hasNext() {
+        return top() != null;
+    }
+
+    /**
+     * 获取并移除当前冠军节点, 与{@link #pop()}不同的是, 数据源结束时抛出异常
+     *
+     * @return
+     */
+    @Override
+    public T next() {
+        T result = pop();
+        if (result == null) {
+            throw new NoSuchElementException();
+        }
+        return result;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        mergeTo(action);
     }
 
     /**
@@ -73,7 +155,7 @@ public class LoserTree<T> {
      * @return
      */
     public T pop() {
-        T result = get(tree[0]);
+        T result = top();
         if (result != null) {
             put(tree[0]);
             adjust(tree[0]);
@@ -87,7 +169,7 @@ public class LoserTree<T> {
      * @return
      */
     public T top() {
-        return get(tree[0]);
+        return tree.length > 0 ? get(tree[0]) : null;
     }
 
     /**
@@ -177,4 +259,46 @@ public class LoserTree<T> {
         return n != 0 ? n < 0 : index1 < index2;
     }
 
+    /**
+     * 批量读取数据源的迭代器, 每次从数据源读取多个元素缓存起来
+     *
+     * @param <T>
+     */
+    private static class BatchIterator<T> implements Iterator<T> {
+        private final Iterator<T> branch;
+        private final Object[] buffer;
+        private int position;
+        private int size;
+
+        BatchIterator(Iterator<T> branch, int batchSize) {
+            this.branch = branch;
+            this.buffer = new Object[batchSize];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position == size) {
+                fill();
+            }
+            return position < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T element = (T) buffer[position];
+            buffer[position++] = null;
+            return element;
+        }
+
+        private void fill() {
+            position = size = 0;
+            while (size < buffer.length && branch.hasNext()) {
+                buffer[size++] = branch.next();
+            }
+        }
+    }
 }
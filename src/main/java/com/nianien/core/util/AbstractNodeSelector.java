@@ -0,0 +1,97 @@
+package com.nianien.core.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 节点选择的抽象实现, 负责节点的写时复制管理, 子类根据节点变更维护各自的查找结构
+ *
+ * @param <T>
+ * @author skyfalling
+ */
+public abstract class AbstractNodeSelector<T> implements NodeSelector<T> {
+
+    /**
+     * 哈希函数
+     */
+    protected final HashFunction hashFunction;
+
+    /**
+     * 实际节点及其权重
+     */
+    private volatile Map<T, Integer> nodes = new LinkedHashMap<T, Integer>();
+
+    /**
+     * 构造方法, 指定哈希函数
+     *
+     * @param hashFunction
+     */
+    protected AbstractNodeSelector(HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+    }
+
+    /**
+     * 根据请求数据获取命中的节点, 按照data.toString()计算哈希值
+     *
+     * @param data
+     * @return
+     */
+    @Override
+    public T getTarget(Object data) {
+        return getTargetByHash(hashFunction.hash(data.toString()));
+    }
+
+    /**
+     * 根据哈希值获取命中的节点, 如果没有任何节点, 返回null
+     *
+     * @param hash
+     * @return
+     */
+    public abstract T getTargetByHash(long hash);
+
+    @Override
+    public synchronized void addNode(T node, int weight) {
+        if (weight < 1)
+            weight = 1;
+        Map<T, Integer> nodes = new LinkedHashMap<T, Integer>(this.nodes);
+        nodes.put(node, weight);
+        update(Collections.unmodifiableMap(nodes), node);
+        this.nodes = nodes;
+    }
+
+    @Override
+    public synchronized void removeNode(T node) {
+        if (!nodes.containsKey(node)) {
+            return;
+        }
+        Map<T, Integer> nodes = new LinkedHashMap<T, Integer>(this.nodes);
+        nodes.remove(node);
+        update(Collections.unmodifiableMap(nodes), node);
+        this.nodes = nodes;
+    }
+
+    @Override
+    public Map<T, Integer> getNodes() {
+        return Collections.unmodifiableMap(nodes);
+    }
+
+    /**
+     * 批量添加权重为1的节点
+     *
+     * @param nodes
+     */
+    protected void addNodes(Iterable<T> nodes) {
+        for (T node : nodes) {
+            addNode(node);
+        }
+    }
+
+    /**
+     * 节点变更后更新查找结构, 该方法在持有锁的情况下调用, 子类应当以整体替换的方式发布新的查找结构
+     *
+     * @param nodes   变更后的节点及其权重
+     * @param changed 发生变更的节点
+     */
+    protected abstract void update(Map<T, Integer> nodes, T changed);
+}
@@ -0,0 +1,195 @@
+package com.nianien.core.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 支持并发写入的TopN收集器, 用来在多线程环境下筛选优先级最高的TopN个元素<br>
+ * 元素按线程分散写入多个{@link PriorityHeap}分片, 每个分片独立加锁, 调用{@link #snapshot()}时再合并各分片的结果<br>
+ * 可选地, 收集器可以按时间窗口统计: 窗口被划分为若干时间片, 过期时间片的数据在被复用时清空,
+ * 时间片数量为1时即为滚动窗口, 大于1时为滑动窗口, 窗口的滑动粒度为一个时间片
+ *
+ * @param <T>
+ * @author skyfalling
+ */
+public class ConcurrentTopK<T> {
+
+    /**
+     * 保留的元素数量
+     */
+    private final int capacity;
+    /**
+     * 元素比较对象
+     */
+    private final Comparator<T> comparator;
+    /**
+     * 元素类型, 为null时由元素比较对象推断
+     */
+    private final Class<T> elementType;
+    /**
+     * 每个时间片的毫秒数, 为0时不按时间窗口统计
+     */
+    private final long sliceMillis;
+    /**
+     * 每个时间片的分片数
+     */
+    private final int stripes;
+    /**
+     * 按[时间片][分片]排列的分片数组
+     */
+    private final Shard<T>[] shards;
+
+    /**
+     * 构造方法, 指定保留的元素数量和元素比较对象, 不按时间窗口统计
+     *
+     * @param capacity   保留的元素数量
+     * @param comparator 元素比较对象, 用于元素优先级的比较
+     */
+    public ConcurrentTopK(int capacity, Comparator<T> comparator) {
+        this(capacity, comparator, 0, 1);
+    }
+
+    /**
+     * 构造方法, 指定保留的元素数量、元素比较对象以及时间窗口
+     *
+     * @param capacity     保留的元素数量
+     * @param comparator   元素比较对象, 用于元素优先级的比较
+     * @param windowMillis 时间窗口的毫秒数, 为0时不按时间窗口统计
+     * @param slices       时间窗口划分的时间片数量, 为1时即为滚动窗口
+     */
+    public ConcurrentTopK(int capacity, Comparator<T> comparator, long windowMillis, int slices) {
+        this(capacity, comparator, null, windowMillis, slices);
+    }
+
+    /**
+     * 构造方法, 指定保留的元素数量和元素类型, 不按时间窗口统计
+     *
+     * @param capacity    保留的元素数量
+     * @param elementType 元素类型, 必须实现Comparable接口
+     */
+    public ConcurrentTopK(int capacity, Class<T> elementType) {
+        this(capacity, elementType, 0, 1);
+    }
+
+    /**
+     * 构造方法, 指定保留的元素数量、元素类型以及时间窗口
+     *
+     * @param capacity     保留的元素数量
+     * @param elementType  元素类型, 必须实现Comparable接口
+     * @param windowMillis 时间窗口的毫秒数, 为0时不按时间窗口统计
+     * @param slices       时间窗口划分的时间片数量, 为1时即为滚动窗口
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentTopK(int capacity, Class<T> elementType, long windowMillis, int slices) {
+        this(capacity, (o1, o2) -> ((Comparable<T>) o1).compareTo(o2), elementType, windowMillis, slices);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentTopK(int capacity, Comparator<T> comparator, Class<T> elementType, long windowMillis, int slices) {
+        if (windowMillis < 0 || slices <= 0 || windowMillis > 0 && windowMillis < slices) {
+            throw new IllegalArgumentException("illegal window: " + windowMillis + "ms/" + slices);
+        }
+        this.capacity = capacity;
+        this.comparator = comparator;
+        this.elementType = elementType;
+        this.sliceMillis = windowMillis / slices;
+        this.stripes = Runtime.getRuntime().availableProcessors();
+        int count = (windowMillis > 0 ? slices : 1) * stripes;
+        this.shards = (Shard<T>[]) new Shard<?>[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard<T>(newHeap());
+        }
+    }
+
+    /**
+     * 添加元素, 该元素只有当优先级位于所在分片的TopN之内时才会被保留
+     *
+     * @param element
+     */
+    public void add(T element) {
+        long epoch = epoch();
+        int slices = shards.length / stripes;
+        int stripe = (int) (Thread.currentThread().getId() % stripes);
+        Shard<T> shard = shards[(int) (epoch % slices) * stripes + stripe];
+        synchronized (shard) {
+            if (shard.epoch != epoch) {
+                // 时间片已过期, 清空后复用
+                shard.heap.clear();
+                shard.epoch = epoch;
+            }
+            shard.heap.add(element);
+        }
+    }
+
+    /**
+     * 合并各分片的结果, 返回当前时间窗口内优先级最高的TopN个元素, 元素按照优先级从高到低的顺序排列
+     *
+     * @return
+     */
+    public List<T> snapshot() {
+        long epoch = epoch();
+        int slices = shards.length / stripes;
+        PriorityHeap<T> merged = newHeap();
+        for (Shard<T> shard : shards) {
+            T[] elements;
+            synchronized (shard) {
+                // 只合并时间窗口内的时间片
+                if (shard.epoch > epoch || shard.epoch <= epoch - slices) {
+                    continue;
+                }
+                elements = shard.heap.toArray();
+            }
+            for (T element : elements) {
+                merged.add(element);
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(merged.popAll()));
+    }
+
+    /**
+     * 清空所有分片
+     */
+    public void clear() {
+        for (Shard<T> shard : shards) {
+            synchronized (shard) {
+                shard.heap.clear();
+            }
+        }
+    }
+
+    /**
+     * 获取当前时间, 单位毫秒
+     *
+     * @return
+     */
+    protected long now() {
+        return TimeCounter.current();
+    }
+
+    /**
+     * 当前时间所在时间片的序号
+     *
+     * @return
+     */
+    private long epoch() {
+        return sliceMillis > 0 ? now() / sliceMillis : 0;
+    }
+
+    private PriorityHeap<T> newHeap() {
+        return elementType != null ? new PriorityHeap<T>(capacity, elementType) : new PriorityHeap<T>(capacity, comparator);
+    }
+
+    /**
+     * 分片, 记录所属时间片的序号和该时间片内的TopN元素
+     */
+    private static class Shard<T> {
+        private final PriorityHeap<T> heap;
+        private long epoch;
+
+        Shard(PriorityHeap<T> heap) {
+            this.heap = heap;
+        }
+    }
+}
@@ -2,20 +2,34 @@ package com.nianien.core.util;
 
 import com.nianien.core.exception.ExceptionHandler;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.TreeMap;
 
 /**
  * 一致性哈希实现<br>
- * 对给定的节点进行一致性散列,同时可设虚拟节点以保持均衡分布
+ * 对给定的节点进行一致性散列,同时可设虚拟节点以保持均衡分布<br>
+ * 支持在运行期间增删节点, 节点变更时复制并替换整个映射, 读操作不会被阻塞
  *
  * @author skyfalling
  */
-public class ConsistentHash<T> {
+public class ConsistentHash<T> implements NodeSelector<T> {
 
     /**
      * 可排序的Map容器,存储虚拟节点到实际节点的映射
      */
-    private TreeMap<Long, T> keysMap = new TreeMap<Long, T>();
+    private volatile TreeMap<Long, T> keysMap = new TreeMap<Long, T>();
+
+    /**
+     * 实际节点及其权重
+     */
+    private volatile Map<T, Integer> nodes = new LinkedHashMap<T, Integer>();
+
+    /**
+     * 每个节点所对应的虚拟节点数, 节点的实际虚拟节点数为该值与节点权重的乘积
+     */
+    private final int size;
 
 
     /**
@@ -27,16 +41,10 @@ public class ConsistentHash<T> {
     public ConsistentHash(Iterable<T> nodes, int size) {
         if (size < 1)
             size = 1;
+        this.size = size;
         for (T key : nodes) {
-            // 将key映射到虚拟节点
-            String virtualKey = MessageDigestUtils.md5(key.toString());
-            for (int i = 0; i < size; i++) {
-                // 计算第i个虚拟节点的哈希值
-                long m = hashCode(virtualKey);
-                keysMap.put(m, key);
-                // 映射下一个虚拟节点
-                virtualKey = MessageDigestUtils.md5(virtualKey);
-            }
+            put(keysMap, key, size);
+            this.nodes.put(key, 1);
         }
     }
 
@@ -55,15 +63,78 @@ public class ConsistentHash<T> {
      * @param data
      * @return
      */
+    @Override
     public T getTarget(Object data) {
-        Long key = hashCode(data.toString());
-        if (!keysMap.containsKey(key)) {
-            key = keysMap.ceilingKey(key);
-            if (key == null) {
-                key = keysMap.firstKey();
-            }
+        TreeMap<Long, T> keysMap = this.keysMap;
+        if (keysMap.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, T> entry = keysMap.ceilingEntry(hashCode(data.toString()));
+        if (entry == null) {
+            entry = keysMap.firstEntry();
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * 添加节点, 节点对应的虚拟节点数为size*weight, 其他节点的虚拟节点不会重新计算
+     *
+     * @param node
+     * @param weight 节点权重, 如果值小于1,则默认为1
+     */
+    @Override
+    public synchronized void addNode(T node, int weight) {
+        if (weight < 1)
+            weight = 1;
+        TreeMap<Long, T> keysMap = new TreeMap<Long, T>(this.keysMap);
+        keysMap.values().removeIf(node::equals);
+        put(keysMap, node, size * weight);
+        Map<T, Integer> nodes = new LinkedHashMap<T, Integer>(this.nodes);
+        nodes.put(node, weight);
+        this.keysMap = keysMap;
+        this.nodes = nodes;
+    }
+
+    /**
+     * 移除节点
+     *
+     * @param node
+     */
+    @Override
+    public synchronized void removeNode(T node) {
+        if (!nodes.containsKey(node)) {
+            return;
+        }
+        TreeMap<Long, T> keysMap = new TreeMap<Long, T>(this.keysMap);
+        keysMap.values().removeIf(node::equals);
+        Map<T, Integer> nodes = new LinkedHashMap<T, Integer>(this.nodes);
+        nodes.remove(node);
+        this.keysMap = keysMap;
+        this.nodes = nodes;
+    }
+
+    @Override
+    public Map<T, Integer> getNodes() {
+        return Collections.unmodifiableMap(nodes);
+    }
+
+    /**
+     * 将节点映射到count个虚拟节点
+     *
+     * @param keysMap
+     * @param key
+     * @param count
+     */
+    private void put(TreeMap<Long, T> keysMap, T key, int count) {
+        // 将key映射到虚拟节点
+        String virtualKey = MessageDigestUtils.md5(key.toString());
+        for (int i = 0; i < count; i++) {
+            // 计算第i个虚拟节点的哈希值
+            long m = hashCode(virtualKey);
+            keysMap.put(m, key);
+            // 映射下一个虚拟节点
+            virtualKey = MessageDigestUtils.md5(virtualKey);
         }
-        return keysMap.get(key);
     }
 
     /**
@@ -1,17 +1,38 @@
 package com.nianien.core.util;
 
+import com.nianien.core.exception.ExceptionHandler;
+
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * 枚举工具类
+ * 枚举工具类<br/>
+ * 按名称和字段值查找枚举对象时使用每个(枚举类, 字段)只创建一次的索引, 查找的时间复杂度为O(1)
  *
  * @author skyfalling
  */
 public class EnumUtils {
 
+    /**
+     * 枚举类的索引, 每个枚举类创建一次
+     */
+    private final static ClassValue<EnumIndex> indexes = new ClassValue<EnumIndex>() {
+        @Override
+        protected EnumIndex computeValue(Class<?> type) {
+            return new EnumIndex(type);
+        }
+    };
+
+    /**
+     * 查找失败的次数
+     */
+    private final static LongAdder misses = new LongAdder();
 
     /**
      * 返回名称为name的枚举值<br/>
@@ -37,14 +58,13 @@ public class EnumUtils {
      * @param <T>        枚举类型
      * @return
      */
+    @SuppressWarnings("unchecked")
     public static <T extends Enum<T>> T nameOf(Class<T> enumClass, String name) {
-        T[] types = enumClass.getEnumConstants();
-        for (T type : types) {
-            if (type.name().equals(name)) {
-                return type;
-            }
+        T t = (T) indexes.get(enumClass).names.get(name);
+        if (t == null) {
+            misses.increment();
         }
-        return null;
+        return t;
     }
 
 
@@ -100,28 +120,23 @@ public class EnumUtils {
      * @param <T>        枚举类型
      * @return
      */
+    @SuppressWarnings("unchecked")
     public static <T extends Enum<T>> T withField(Class<T> enumClass, String fieldName, Object fieldValue) {
-        T[] types = enumClass.getEnumConstants();
-        Field field;
-        try {
-            field = enumClass.getDeclaredField(fieldName);
-            field.setAccessible(true);
-        } catch (NoSuchFieldException e) {
-            System.err.println("field not found in enum[" + enumClass.getName() + "]: " + fieldName);
-            return null;
-        }
-        for (T t : types) {
-            try {
-                if (field.get(t).equals(fieldValue))
-                    return t;
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        T t = (T) indexes.get(enumClass).field(fieldName).get(fieldValue);
+        if (t == null) {
+            misses.increment();
         }
-        System.err.println("enum not found: " + enumClass.getName() + "[" + fieldName + "=" + fieldValue + "]");
-        return null;
+        return t;
     }
 
+    /**
+     * 查找失败的次数, 包括字段不存在以及字段值没有对应的枚举对象
+     *
+     * @return
+     */
+    public static long getMisses() {
+        return misses.sum();
+    }
 
     /**
      * 取枚举对象除excludes之外的实例
@@ -162,4 +177,119 @@ public class EnumUtils {
         }
         return list;
     }
+
+    /**
+     * 枚举类的索引, 包括名称索引和字段值索引
+     */
+    private static class EnumIndex {
+
+        /**
+         * 名称到枚举对象的映射
+         */
+        private final Map<String, Enum<?>> names = new HashMap<String, Enum<?>>();
+        /**
+         * 字段名称到字段值索引的映射, 首次查找字段时创建
+         */
+        private final Map<String, FieldIndex> fields = new ConcurrentHashMap<String, FieldIndex>();
+        /**
+         * 枚举类
+         */
+        private final Class<?> enumClass;
+
+        EnumIndex(Class<?> enumClass) {
+            this.enumClass = enumClass;
+            for (Object constant : enumClass.getEnumConstants()) {
+                names.put(((Enum<?>) constant).name(), (Enum<?>) constant);
+            }
+        }
+
+        FieldIndex field(String fieldName) {
+            FieldIndex index = fields.get(fieldName);
+            return index != null ? index : fields.computeIfAbsent(fieldName, (name) -> new FieldIndex(enumClass, name));
+        }
+    }
+
+    /**
+     * 字段值到枚举对象的索引<br/>
+     * 字段值均为取值范围不超过{@link #DENSE_RANGE}的整数时, 使用数组索引, 否则使用哈希表
+     */
+    private static class FieldIndex {
+
+        /**
+         * 使用数组索引的最大取值范围
+         */
+        private final static int DENSE_RANGE = 1024;
+
+        /**
+         * 字段值到枚举对象的映射, 字段不存在时为空
+         */
+        private final Map<Object, Enum<?>> map = new HashMap<Object, Enum<?>>();
+        /**
+         * 以(字段值-offset)为下标的枚举对象, 不使用数组索引时为null
+         */
+        private final Enum<?>[] dense;
+        /**
+         * 数组索引的最小字段值
+         */
+        private final int offset;
+
+        FieldIndex(Class<?> enumClass, String fieldName) {
+            Field field;
+            try {
+                field = enumClass.getDeclaredField(fieldName);
+                field.setAccessible(true);
+            } catch (NoSuchFieldException e) {
+                dense = null;
+                offset = 0;
+                return;
+            }
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            boolean integers = true;
+            for (Object constant : enumClass.getEnumConstants()) {
+                Object value;
+                try {
+                    value = field.get(constant);
+                } catch (IllegalAccessException e) {
+                    throw ExceptionHandler.throwException(e);
+                }
+                if (value == null) {
+                    continue;
+                }
+                map.putIfAbsent(value, (Enum<?>) constant);
+                if (value instanceof Integer) {
+                    min = Math.min(min, (Integer) value);
+                    max = Math.max(max, (Integer) value);
+                } else {
+                    integers = false;
+                }
+            }
+            if (integers && !map.isEmpty() && (long) max - min < DENSE_RANGE) {
+                dense = new Enum<?>[max - min + 1];
+                offset = min;
+                for (Map.Entry<Object, Enum<?>> entry : map.entrySet()) {
+                    dense[(Integer) entry.getKey() - min] = entry.getValue();
+                }
+            } else {
+                dense = null;
+                offset = 0;
+            }
+        }
+
+        /**
+         * 查找字段值对应的枚举对象, 与字段值的equals语义一致, 如Character不能匹配int字段
+         *
+         * @param value
+         * @return
+         */
+        Enum<?> get(Object value) {
+            if (dense != null) {
+                if (!(value instanceof Integer)) {
+                    return null;
+                }
+                int index = (Integer) value - offset;
+                return index >= 0 && index < dense.length ? dense[index] : null;
+            }
+            return map.get(value);
+        }
+    }
 }
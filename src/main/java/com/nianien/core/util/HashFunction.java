@@ -0,0 +1,51 @@
+package com.nianien.core.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 64位哈希函数接口<br>
+ * 字符序列按照UTF-16LE编码的字节计算哈希值, 但计算过程直接读取字符, 不会创建字节数组
+ *
+ * @author skyfalling
+ * @see Hashing
+ */
+public interface HashFunction {
+
+    /**
+     * 计算字节数组指定区间的哈希值
+     *
+     * @param bytes
+     * @param offset
+     * @param length
+     * @return
+     */
+    long hash(byte[] bytes, int offset, int length);
+
+    /**
+     * 计算字符序列的哈希值, 结果与对其UTF-16LE编码的字节计算哈希值相同
+     *
+     * @param chars
+     * @return
+     */
+    long hash(CharSequence chars);
+
+    /**
+     * 计算字节数组的哈希值
+     *
+     * @param bytes
+     * @return
+     */
+    default long hash(byte[] bytes) {
+        return hash(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 计算字符串按UTF-8编码后的哈希值
+     *
+     * @param text
+     * @return
+     */
+    default long hashUtf8(String text) {
+        return hash(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
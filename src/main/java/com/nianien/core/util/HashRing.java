@@ -0,0 +1,245 @@
+package com.nianien.core.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 基于有序数组的一致性哈希实现, 是{@link ConsistentHash}的高性能版本<br>
+ * 虚拟节点的哈希值存储在有序的long数组中, 通过二分查找定位节点, 哈希函数可替换(默认为MurmurHash3),
+ * 查找过程不会产生临时对象<br>
+ * 支持在运行期间增删节点, 节点变更时只计算变更节点的虚拟节点并与现有的环有序合并, 然后整体替换, 读操作不会被阻塞
+ *
+ * @author skyfalling
+ */
+public class HashRing<T> implements NodeSelector<T> {
+
+    /**
+     * 环的当前状态, 节点变更时整体替换
+     */
+    private volatile Ring ring;
+    /**
+     * 实际节点及其权重
+     */
+    private volatile Map<T, Integer> nodes = new LinkedHashMap<T, Integer>();
+    /**
+     * 每个节点所对应的虚拟节点数, 节点的实际虚拟节点数为该值与节点权重的乘积
+     */
+    private final int size;
+    /**
+     * 哈希函数
+     */
+    private final HashFunction hashFunction;
+
+    /**
+     * 构造方法,指定需要散列的节点,以及每个节点对应的虚拟节点数, 使用MurmurHash3计算哈希值
+     *
+     * @param nodes
+     * @param size  每个节点所对应的虚拟节点数,如果值小于1,则默认为1
+     */
+    public HashRing(Iterable<T> nodes, int size) {
+        this(nodes, size, Hashing.MURMUR3);
+    }
+
+    /**
+     * 构造方法,指定需要散列的节点, 默认每个节点对应512个虚拟节点
+     *
+     * @param nodes
+     */
+    public HashRing(Iterable<T> nodes) {
+        this(nodes, 512);
+    }
+
+    /**
+     * 构造方法,指定需要散列的节点、每个节点对应的虚拟节点数以及哈希函数
+     *
+     * @param nodes
+     * @param size         每个节点所对应的虚拟节点数,如果值小于1,则默认为1
+     * @param hashFunction 哈希函数
+     */
+    public HashRing(Iterable<T> nodes, int size, HashFunction hashFunction) {
+        if (size < 1)
+            size = 1;
+        this.size = size;
+        this.hashFunction = hashFunction;
+        Ring ring = new Ring(new long[0], new Object[0]);
+        for (T node : nodes) {
+            this.nodes.put(node, 1);
+        }
+        for (T node : this.nodes.keySet()) {
+            ring = ring.merge(points(node, size), node);
+        }
+        this.ring = ring;
+    }
+
+    /**
+     * 添加节点, 节点对应的虚拟节点数为size*weight, 新节点的虚拟节点有序合并到环中, 其他节点的虚拟节点不会重新计算
+     *
+     * @param node
+     * @param weight 节点权重, 如果值小于1,则默认为1
+     */
+    @Override
+    public synchronized void addNode(T node, int weight) {
+        if (weight < 1)
+            weight = 1;
+        Ring ring = nodes.containsKey(node) ? this.ring.remove(node) : this.ring;
+        Map<T, Integer> nodes = new LinkedHashMap<T, Integer>(this.nodes);
+        nodes.put(node, weight);
+        this.ring = ring.merge(points(node, size * weight), node);
+        this.nodes = nodes;
+    }
+
+    /**
+     * 移除节点
+     *
+     * @param node
+     */
+    @Override
+    public synchronized void removeNode(T node) {
+        if (!nodes.containsKey(node)) {
+            return;
+        }
+        Map<T, Integer> nodes = new LinkedHashMap<T, Integer>(this.nodes);
+        nodes.remove(node);
+        this.ring = ring.remove(node);
+        this.nodes = nodes;
+    }
+
+    @Override
+    public Map<T, Integer> getNodes() {
+        return Collections.unmodifiableMap(nodes);
+    }
+
+    /**
+     * 计算节点的count个虚拟节点的哈希值, 升序排列
+     *
+     * @param node
+     * @param count
+     * @return
+     */
+    private long[] points(T node, int count) {
+        String name = node.toString();
+        long[] points = new long[count];
+        for (int i = 0; i < count; i++) {
+            // 第i个虚拟节点的哈希值
+            points[i] = hashFunction.hash(name + "#" + i);
+        }
+        Arrays.sort(points);
+        return points;
+    }
+
+    /**
+     * 根据请求数据获取命中的节点, 按照data.toString()计算哈希值
+     *
+     * @param data
+     * @return
+     */
+    public T getTarget(Object data) {
+        return getTargetByHash(hashFunction.hash(data.toString()));
+    }
+
+    /**
+     * 根据字符序列获取命中的节点
+     *
+     * @param data
+     * @return
+     */
+    public T getTarget(CharSequence data) {
+        return getTargetByHash(hashFunction.hash(data));
+    }
+
+    /**
+     * 根据字节数组获取命中的节点
+     *
+     * @param data
+     * @return
+     */
+    public T getTarget(byte[] data) {
+        return getTargetByHash(hashFunction.hash(data));
+    }
+
+    /**
+     * 根据哈希值获取命中的节点, 即顺时针方向第一个不小于该哈希值的虚拟节点所对应的节点
+     *
+     * @param hash
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T getTargetByHash(long hash) {
+        Ring ring = this.ring;
+        long[] points = ring.points;
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+            if (index == points.length) {
+                index = 0;
+            }
+        }
+        return (T) ring.targets[index];
+    }
+
+    /**
+     * 环的不可变状态, 虚拟节点的哈希值升序排列, 并与实际节点一一对应
+     */
+    private static class Ring {
+        private final long[] points;
+        private final Object[] targets;
+
+        Ring(long[] points, Object[] targets) {
+            this.points = points;
+            this.targets = targets;
+        }
+
+        /**
+         * 将节点的有序虚拟节点合并到环中, 返回新的环, 哈希值相同时保留已有的虚拟节点
+         *
+         * @param added 节点的虚拟节点哈希值, 升序排列
+         * @param node
+         * @return
+         */
+        Ring merge(long[] added, Object node) {
+            long[] points = new long[this.points.length + added.length];
+            Object[] targets = new Object[points.length];
+            int i = 0, j = 0, n = 0;
+            while (i < this.points.length || j < added.length) {
+                if (j == added.length || i < this.points.length && this.points[i] <= added[j]) {
+                    if (j < added.length && this.points[i] == added[j]) {
+                        j++;
+                    }
+                    points[n] = this.points[i];
+                    targets[n++] = this.targets[i++];
+                } else {
+                    if (n == 0 || points[n - 1] != added[j]) {
+                        points[n] = added[j];
+                        targets[n++] = node;
+                    }
+                    j++;
+                }
+            }
+            return new Ring(Arrays.copyOf(points, n), Arrays.copyOf(targets, n));
+        }
+
+        /**
+         * 移除节点的所有虚拟节点, 返回新的环
+         *
+         * @param node
+         * @return
+         */
+        Ring remove(Object node) {
+            long[] points = new long[this.points.length];
+            Object[] targets = new Object[points.length];
+            int n = 0;
+            for (int i = 0; i < this.points.length; i++) {
+                if (!node.equals(this.targets[i])) {
+                    points[n] = this.points[i];
+                    targets[n++] = this.targets[i];
+                }
+            }
+            return new Ring(Arrays.copyOf(points, n), Arrays.copyOf(targets, n));
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.nianien.core.util;
+
+/**
+ * 常用的非加密哈希函数实现, 相比MD5等摘要算法速度更快且不产生临时对象
+ *
+ * @author skyfalling
+ */
+public enum Hashing implements HashFunction {
+
+    /**
+     * MurmurHash3 x64 128位算法的前64位, 种子为0
+     */
+    MURMUR3 {
+        @Override
+        public long hash(byte[] bytes, int offset, int length) {
+            return murmur3(bytes, BYTES, offset, length);
+        }
+
+        @Override
+        public long hash(CharSequence chars) {
+            return murmur3(chars, CHARS, 0, chars.length() << 1);
+        }
+    },
+    /**
+     * xxHash64算法, 种子为0
+     */
+    XXHASH64 {
+        @Override
+        public long hash(byte[] bytes, int offset, int length) {
+            return xxHash64(bytes, BYTES, offset, length);
+        }
+
+        @Override
+        public long hash(CharSequence chars) {
+            return xxHash64(chars, CHARS, 0, chars.length() << 1);
+        }
+    };
+
+    /**
+     * 以小端字节序读取数据源的访问接口
+     *
+     * @param <S>
+     */
+    private interface Access<S> {
+        long getLong(S source, int index);
+
+        long getInt(S source, int index);
+
+        int getByte(S source, int index);
+    }
+
+    /**
+     * 字节数组的访问对象
+     */
+    private static final Access<byte[]> BYTES = new Access<byte[]>() {
+        @Override
+        public long getLong(byte[] source, int index) {
+            return (source[index] & 0xffL)
+                    | (source[index + 1] & 0xffL) << 8
+                    | (source[index + 2] & 0xffL) << 16
+                    | (source[index + 3] & 0xffL) << 24
+                    | (source[index + 4] & 0xffL) << 32
+                    | (source[index + 5] & 0xffL) << 40
+                    | (source[index + 6] & 0xffL) << 48
+                    | (source[index + 7] & 0xffL) << 56;
+        }
+
+        @Override
+        public long getInt(byte[] source, int index) {
+            return (source[index] & 0xffL)
+                    | (source[index + 1] & 0xffL) << 8
+                    | (source[index + 2] & 0xffL) << 16
+                    | (source[index + 3] & 0xffL) << 24;
+        }
+
+        @Override
+        public int getByte(byte[] source, int index) {
+            return source[index] & 0xff;
+        }
+    };
+
+    /**
+     * 字符序列的访问对象, 字符按UTF-16LE编码视为两个字节, 索引为字节索引
+     */
+    private static final Access<CharSequence> CHARS = new Access<CharSequence>() {
+        @Override
+        public long getLong(CharSequence source, int index) {
+            int i = index >> 1;
+            return source.charAt(i)
+                    | (long) source.charAt(i + 1) << 16
+                    | (long) source.charAt(i + 2) << 32
+                    | (long) source.charAt(i + 3) << 48;
+        }
+
+        @Override
+        public long getInt(CharSequence source, int index) {
+            int i = index >> 1;
+            return source.charAt(i) | (long) source.charAt(i + 1) << 16;
+        }
+
+        @Override
+        public int getByte(CharSequence source, int index) {
+            char c = source.charAt(index >> 1);
+            return (index & 1) == 0 ? c & 0xff : c >>> 8;
+        }
+    };
+
+    /**
+     * 对64位整数进行混淆, 使其各位均匀分布(即MurmurHash3的fmix64函数)
+     *
+     * @param value
+     * @return
+     */
+    public static long mix(long value) {
+        return fmix64(value);
+    }
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private static <S> long murmur3(S source, Access<S> access, int offset, int length) {
+        long h1 = 0;
+        long h2 = 0;
+        int end = offset + (length & ~15);
+        for (int i = offset; i < end; i += 16) {
+            long k1 = access.getLong(source, i);
+            long k2 = access.getLong(source, i + 8);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        long k1 = 0;
+        long k2 = 0;
+        int tail = length & 15;
+        for (int i = tail - 1; i >= 8; i--) {
+            k2 ^= (long) access.getByte(source, end + i) << ((i - 8) << 3);
+        }
+        for (int i = Math.min(tail, 8) - 1; i >= 0; i--) {
+            k1 ^= (long) access.getByte(source, end + i) << (i << 3);
+        }
+        if (tail > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (tail > 0) {
+            h1 ^= mixK1(k1);
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        return h1 + h2;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    private static <S> long xxHash64(S source, Access<S> access, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        long h;
+        if (length >= 32) {
+            long v1 = P1 + P2;
+            long v2 = P2;
+            long v3 = 0;
+            long v4 = -P1;
+            for (int limit = end - 32; i <= limit; i += 32) {
+                v1 = round(v1, access.getLong(source, i));
+                v2 = round(v2, access.getLong(source, i + 8));
+                v3 = round(v3, access.getLong(source, i + 16));
+                v4 = round(v4, access.getLong(source, i + 24));
+            }
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = merge(h, v1);
+            h = merge(h, v2);
+            h = merge(h, v3);
+            h = merge(h, v4);
+        } else {
+            h = P5;
+        }
+        h += length;
+        for (; i + 8 <= end; i += 8) {
+            h ^= round(0, access.getLong(source, i));
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (i + 4 <= end) {
+            h ^= access.getInt(source, i) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            i += 4;
+        }
+        for (; i < end; i++) {
+            h ^= access.getByte(source, i) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long merge(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * P1 + P4;
+    }
+}
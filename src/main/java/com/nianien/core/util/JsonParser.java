@@ -12,6 +12,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.nianien.core.date.DateFormatter;
 import com.nianien.core.exception.ExceptionHandler;
+import com.nianien.core.reflect.TypeToken;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -124,6 +125,22 @@ public class JsonParser {
         return readValue(json, objectMapper.getTypeFactory().constructType(typeReference));
     }
 
+    /**
+     * json转T对象
+     * <pre>
+     *     TypeToken&lt;Map&lt;String,String[]>> token = new TypeToken&lt;Map&lt;String,String[]>>() { };
+     *     Map&lt;String,String[]> map=toBean(json,token)
+     * </pre>
+     *
+     * @param json
+     * @param typeToken
+     * @param <T>
+     * @return
+     */
+    public <T> T toBean(String json, TypeToken<T> typeToken) {
+        return readValue(json, objectMapper.getTypeFactory().constructType(typeToken.getType()));
+    }
+
     /**
      * json转Object对象, 根据json字符串的结构自动调整为对应的数据类型, 具体对应关系如下：<br>
      * 1)字符串->String类型<br>
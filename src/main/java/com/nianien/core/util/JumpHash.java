@@ -0,0 +1,96 @@
+package com.nianien.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于Jump Consistent Hash算法的节点选择实现<br>
+ * 无需虚拟节点, 内存占用极小且分布均匀, 在末尾增加节点时只有1/n的数据发生迁移<br>
+ * 权重通过节点占用的桶数实现; 移除节点时以末尾的桶填补空位, 因此被移除节点和末尾节点的数据会发生迁移
+ *
+ * @author skyfalling
+ */
+public class JumpHash<T> extends AbstractNodeSelector<T> {
+
+    /**
+     * 桶列表, 仅在持有锁时修改
+     */
+    private final List<T> buckets = new ArrayList<T>();
+
+    /**
+     * 当前发布的桶数组
+     */
+    private volatile Object[] table = new Object[0];
+
+    /**
+     * 构造方法, 指定节点, 使用MurmurHash3计算哈希值
+     *
+     * @param nodes
+     */
+    public JumpHash(Iterable<T> nodes) {
+        this(nodes, Hashing.MURMUR3);
+    }
+
+    /**
+     * 构造方法, 指定节点和哈希函数
+     *
+     * @param nodes
+     * @param hashFunction
+     */
+    public JumpHash(Iterable<T> nodes, HashFunction hashFunction) {
+        super(hashFunction);
+        addNodes(nodes);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getTargetByHash(long hash) {
+        Object[] table = this.table;
+        if (table.length == 0) {
+            return null;
+        }
+        return (T) table[jump(hash, table.length)];
+    }
+
+    @Override
+    protected void update(Map<T, Integer> nodes, T changed) {
+        int expected = nodes.getOrDefault(changed, 0);
+        int count = 0;
+        for (T bucket : buckets) {
+            if (bucket.equals(changed)) {
+                count++;
+            }
+        }
+        for (; count < expected; count++) {
+            buckets.add(changed);
+        }
+        for (int i = buckets.size() - 1; count > expected; i--) {
+            if (buckets.get(i).equals(changed)) {
+                // 以末尾的桶填补空位
+                buckets.set(i, buckets.get(buckets.size() - 1));
+                buckets.remove(buckets.size() - 1);
+                count--;
+            }
+        }
+        this.table = buckets.toArray();
+    }
+
+    /**
+     * Jump Consistent Hash算法, 将哈希值映射到[0, buckets)之间的桶
+     *
+     * @param key
+     * @param buckets
+     * @return
+     */
+    public static int jump(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -0,0 +1,137 @@
+package com.nianien.core.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 请求数据在各节点上的分布报告, 用于衡量{@link NodeSelector}的负载均衡程度<br>
+ * 节点的偏斜度定义为实际命中数与按权重计算的期望命中数之比, 1表示完全均衡
+ *
+ * @param <T>
+ * @author skyfalling
+ */
+public class LoadReport<T> {
+
+    /**
+     * 各节点的命中数
+     */
+    private final Map<T, Long> counts;
+    /**
+     * 各节点的权重
+     */
+    private final Map<T, Integer> weights;
+    /**
+     * 请求数据总数
+     */
+    private final long total;
+
+    private LoadReport(Map<T, Long> counts, Map<T, Integer> weights, long total) {
+        this.counts = Collections.unmodifiableMap(counts);
+        this.weights = Collections.unmodifiableMap(weights);
+        this.total = total;
+    }
+
+    /**
+     * 统计给定请求数据在各节点上的分布情况
+     *
+     * @param selector
+     * @param keys
+     * @param <T>
+     * @return
+     */
+    public static <T> LoadReport<T> of(NodeSelector<T> selector, Iterable<?> keys) {
+        Map<T, Integer> weights = new LinkedHashMap<T, Integer>(selector.getNodes());
+        Map<T, Long> counts = new LinkedHashMap<T, Long>();
+        for (T node : weights.keySet()) {
+            counts.put(node, 0L);
+        }
+        long total = 0;
+        for (Object key : keys) {
+            T target = selector.getTarget(key);
+            if (target != null) {
+                counts.merge(target, 1L, Long::sum);
+            }
+            total++;
+        }
+        return new LoadReport<T>(counts, weights, total);
+    }
+
+    /**
+     * 各节点的命中数
+     *
+     * @return
+     */
+    public Map<T, Long> getCounts() {
+        return counts;
+    }
+
+    /**
+     * 请求数据总数
+     *
+     * @return
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * 节点的偏斜度, 即实际命中数与按权重计算的期望命中数之比
+     *
+     * @param node
+     * @return
+     */
+    public double getSkew(T node) {
+        long sum = 0;
+        for (int weight : weights.values()) {
+            sum += weight;
+        }
+        Integer weight = weights.get(node);
+        if (weight == null || total == 0) {
+            return 0;
+        }
+        double expected = (double) total * weight / sum;
+        return counts.getOrDefault(node, 0L) / expected;
+    }
+
+    /**
+     * 所有节点中最大的偏斜度
+     *
+     * @return
+     */
+    public double getMaxSkew() {
+        double max = 0;
+        for (T node : weights.keySet()) {
+            max = Math.max(max, getSkew(node));
+        }
+        return max;
+    }
+
+    /**
+     * 所有节点中最小的偏斜度
+     *
+     * @return
+     */
+    public double getMinSkew() {
+        double min = weights.isEmpty() ? 0 : Double.MAX_VALUE;
+        for (T node : weights.keySet()) {
+            min = Math.min(min, getSkew(node));
+        }
+        return min;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("total : ").append(total)
+                .append(", max skew : ").append(String.format("%.4f", getMaxSkew()))
+                .append(", min skew : ").append(String.format("%.4f", getMinSkew()));
+        for (Map.Entry<T, Long> entry : counts.entrySet()) {
+            sb.append("\nnode : ").append(entry.getKey())
+                    .append(" - Weight : ").append(weights.get(entry.getKey()))
+                    .append(" - Times : ").append(entry.getValue())
+                    .append(" - Skew : ").append(String.format("%.4f", getSkew(entry.getKey())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,223 @@
+package com.nianien.core.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * long类型键值的固定容量小顶堆, 顶元素优先级最低, 用来筛选优先级最高的TopN个键值<br>
+ * 键值存储在long数组中, 比较过程不会发生装箱; 可选地, 每个键值可以携带一个负载对象
+ *
+ * @param <T> 负载对象的类型
+ * @author skyfalling
+ * @see PriorityHeap
+ */
+public class LongPriorityHeap<T> {
+    /**
+     * 存储键值的数组
+     */
+    private long[] heap;
+    /**
+     * 存储负载对象的数组, 与键值一一对应
+     */
+    private Object[] payloads;
+    /**
+     * 堆容量
+     */
+    private int capacity;
+    /**
+     * 实际元素数量
+     */
+    private int size;
+    /**
+     * 是否键值越小优先级越高
+     */
+    private boolean reverse;
+
+    /**
+     * 构造方法, 指定堆的容量, 键值越大优先级越高
+     *
+     * @param capacity 堆容量
+     */
+    public LongPriorityHeap(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * 构造方法, 指定堆的容量和优先级顺序
+     *
+     * @param capacity 堆容量
+     * @param reverse  为true时键值越小优先级越高
+     */
+    public LongPriorityHeap(int capacity, boolean reverse) {
+        this.capacity = capacity;
+        this.reverse = reverse;
+        this.heap = new long[capacity];
+        this.payloads = new Object[capacity];
+    }
+
+    /**
+     * 添加键值, 该操作只有当堆未满或者待添加键值优先级高于堆顶键值时才会执行
+     *
+     * @param key
+     * @return 如果键值被添加到堆中, 返回true
+     */
+    public boolean add(long key) {
+        return add(key, null);
+    }
+
+    /**
+     * 添加键值及其负载对象, 该操作只有当堆未满或者待添加键值优先级高于堆顶键值时才会执行
+     *
+     * @param key
+     * @param payload
+     * @return 如果键值被添加到堆中, 返回true
+     */
+    public boolean add(long key, T payload) {
+        if (size < capacity) {
+            upHeap(size++, key, payload);
+            return true;
+        } else if (size > 0 && lower(heap[0], key)) {
+            downHeap(key, payload);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取堆顶键值, 该键值一定是堆内优先级最低的键值
+     *
+     * @return
+     */
+    public long top() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return heap[0];
+    }
+
+    /**
+     * 获取堆顶键值的负载对象
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T topPayload() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return (T) payloads[0];
+    }
+
+    /**
+     * 获取并移除堆顶键值
+     *
+     * @return
+     */
+    public long pop() {
+        long top = top();
+        size--;
+        long last = heap[size];
+        Object payload = payloads[size];
+        payloads[size] = null;
+        if (size > 0) {
+            downHeap(last, payload);
+        }
+        return top;
+    }
+
+    /**
+     * 不断移除堆顶键值到数组中, 直到堆为空, 数组中的键值将按照优先级从高到低的顺序排列<br>
+     * 如果payloads不为null, 键值对应的负载对象将按相同顺序写入payloads数组
+     *
+     * @param payloads 存放负载对象的数组, 长度不小于size()
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public long[] popAll(T[] payloads) {
+        long[] result = new long[size];
+        while (size > 0) {
+            if (payloads != null) {
+                payloads[size - 1] = (T) this.payloads[0];
+            }
+            result[size - 1] = pop();
+        }
+        return result;
+    }
+
+    /**
+     * 不断移除堆顶键值到数组中, 直到堆为空, 数组中的键值将按照优先级从高到低的顺序排列<br>
+     *
+     * @return
+     */
+    public long[] popAll() {
+        return popAll(null);
+    }
+
+    /**
+     * 堆内实际元素数量
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清空堆内元素
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            payloads[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * 在位置child放入键值, 并向上调整堆结构
+     */
+    private void upHeap(int child, long key, Object payload) {
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (!lower(key, heap[parent])) {
+                break;
+            }
+            heap[child] = heap[parent];
+            payloads[child] = payloads[parent];
+            child = parent;
+        }
+        heap[child] = key;
+        payloads[child] = payload;
+    }
+
+    /**
+     * 以键值替换堆顶, 并向下调整堆结构
+     */
+    private void downHeap(long key, Object payload) {
+        int parent = 0;
+        int left = 1;
+        while (left < size) {
+            if (left + 1 < size && lower(heap[left + 1], heap[left])) {
+                left++;
+            }
+            if (!lower(heap[left], key)) {
+                break;
+            }
+            heap[parent] = heap[left];
+            payloads[parent] = payloads[left];
+            parent = left;
+            left = (parent << 1) + 1;
+        }
+        heap[parent] = key;
+        payloads[parent] = payload;
+    }
+
+    /**
+     * 判断键值k1的优先级是否低于k2<br>
+     *
+     * @param k1
+     * @param k2
+     * @return
+     */
+    private boolean lower(long k1, long k2) {
+        return reverse ? k1 > k2 : k1 < k2;
+    }
+}
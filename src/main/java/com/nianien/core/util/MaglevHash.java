@@ -0,0 +1,148 @@
+package com.nianien.core.util;
+
+import java.util.Map;
+
+/**
+ * 基于Maglev算法的节点选择实现<br>
+ * 各节点按照各自的排列顺序轮流填充固定大小的查找表, 查找只需一次取模运算, 分布接近完全均匀;
+ * 增删节点时重建查找表, 大部分数据的映射保持不变<br>
+ * 查找表的大小应为远大于节点总权重的质数, 非质数将向上取整为质数, 权重通过每轮填充的表项数实现
+ *
+ * @author skyfalling
+ */
+public class MaglevHash<T> extends AbstractNodeSelector<T> {
+
+    /**
+     * 默认的查找表大小
+     */
+    public final static int DEFAULT_TABLE_SIZE = 65537;
+
+    /**
+     * 查找表大小
+     */
+    private final int tableSize;
+
+    /**
+     * 当前发布的查找表
+     */
+    private volatile Object[] table = new Object[0];
+
+    /**
+     * 构造方法, 指定节点, 使用默认的查找表大小和MurmurHash3
+     *
+     * @param nodes
+     */
+    public MaglevHash(Iterable<T> nodes) {
+        this(nodes, DEFAULT_TABLE_SIZE, Hashing.MURMUR3);
+    }
+
+    /**
+     * 构造方法, 指定节点、查找表大小以及哈希函数
+     *
+     * @param nodes
+     * @param tableSize    查找表大小, 应为远大于节点总权重的质数, 非质数时取大于它的最小质数
+     * @param hashFunction
+     */
+    public MaglevHash(Iterable<T> nodes, int tableSize, HashFunction hashFunction) {
+        super(hashFunction);
+        if (tableSize < 2) {
+            throw new IllegalArgumentException("illegal table size: " + tableSize);
+        }
+        this.tableSize = nextPrime(tableSize);
+        addNodes(nodes);
+    }
+
+    /**
+     * 查找表大小
+     *
+     * @return
+     */
+    public int getTableSize() {
+        return tableSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getTargetByHash(long hash) {
+        Object[] table = this.table;
+        if (table.length == 0) {
+            return null;
+        }
+        return (T) table[(int) Math.floorMod(hash, (long) table.length)];
+    }
+
+    @Override
+    protected void update(Map<T, Integer> nodes, T changed) {
+        int n = nodes.size();
+        if (n == 0) {
+            this.table = new Object[0];
+            return;
+        }
+        Object[] array = new Object[n];
+        int[] weights = new int[n];
+        long[] offsets = new long[n];
+        long[] skips = new long[n];
+        long[] next = new long[n];
+        int i = 0;
+        for (Map.Entry<T, Integer> entry : nodes.entrySet()) {
+            long hash = hashFunction.hash(entry.getKey().toString());
+            array[i] = entry.getKey();
+            weights[i] = entry.getValue();
+            // 节点的排列由起始位置和步长决定
+            offsets[i] = Math.floorMod(hash, (long) tableSize);
+            skips[i] = Math.floorMod(Hashing.mix(hash), (long) tableSize - 1) + 1;
+            i++;
+        }
+        Object[] table = new Object[tableSize];
+        int filled = 0;
+        while (filled < tableSize) {
+            for (i = 0; i < n && filled < tableSize; i++) {
+                for (int w = 0; w < weights[i] && filled < tableSize; w++) {
+                    int c;
+                    do {
+                        c = (int) ((offsets[i] + next[i] * skips[i]) % tableSize);
+                        next[i]++;
+                    } while (table[c] != null);
+                    table[c] = array[i];
+                    filled++;
+                }
+            }
+        }
+        this.table = table;
+    }
+
+    /**
+     * 不小于n的最小质数<br/>
+     * 步长取值于[1, tableSize), 只有tableSize为质数时每个节点的排列才能遍历整个查找表, 否则填表无法结束
+     *
+     * @param n
+     * @return
+     */
+    private static int nextPrime(int n) {
+        while (!isPrime(n)) {
+            if (n == Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("illegal table size: " + n);
+            }
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 判断n是否为质数
+     *
+     * @param n
+     * @return
+     */
+    private static boolean isPrime(int n) {
+        if (n % 2 == 0) {
+            return n == 2;
+        }
+        for (int i = 3; (long) i * i <= n; i += 2) {
+            if (n % i == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
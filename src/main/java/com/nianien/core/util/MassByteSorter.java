@@ -0,0 +1,866 @@
+package com.nianien.core.util;
+
+import com.nianien.core.comparator.ByteBufferComparator;
+import com.nianien.core.io.Closer;
+import com.nianien.core.io.Files;
+import com.nianien.core.tree.LoserTree;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于字节记录的海量数据排序工具类, 是{@link MassSorter}的字节版本<br>
+ * 数据按照{@link RecordFormat}切分为记录, 整个过程不会创建String对象<br>
+ * 分段排序时只对记录在缓冲区中的起止位置排序, 每条记录额外占用{@link RecordIndex#BYTES_PER_RECORD}字节的索引,
+ * 记录数据与索引的总大小不超过一次加载的最大字节数<br>
+ * 临时文件通过FileChannel读写, 归并时可选择内存映射的方式读取
+ *
+ * @author skyfalling
+ */
+public class MassByteSorter {
+
+    /**
+     * 记录格式, 负责从字节缓冲区中切分记录, 以及将记录编码写入字节缓冲区
+     *
+     * @author skyfalling
+     */
+    public interface RecordFormat {
+
+        /**
+         * 从buffer的当前位置切分下一条记录, 返回记录内容的视图, 同时将buffer的position移到下一条记录的起始位置<br>
+         * 如果剩余数据不足一条完整记录, 则返回null且不改变buffer的position
+         *
+         * @param buffer 数据缓冲区
+         * @param eof    是否已无更多数据
+         * @return 记录内容的视图, 与buffer共享数据, 视图的position和limit即记录在buffer中的起止位置
+         */
+        ByteBuffer read(ByteBuffer buffer, boolean eof);
+
+        /**
+         * 记录编码后的字节数
+         *
+         * @param record
+         * @return
+         */
+        int sizeOf(ByteBuffer record);
+
+        /**
+         * 将记录编码写入buffer, 该方法返回时record的position保持不变
+         *
+         * @param record 记录内容
+         * @param buffer 目标缓冲区, 剩余空间不小于sizeOf(record)
+         */
+        void write(ByteBuffer record, ByteBuffer buffer);
+
+        /**
+         * 以换行符分隔的记录格式
+         *
+         * @return
+         */
+        static RecordFormat lines() {
+            return delimited((byte) '\n');
+        }
+
+        /**
+         * 以指定字符集下的换行符分隔的记录格式<br>
+         * 注意:对于UTF-16等带字节序标记的字符集, 应当使用UTF-16BE或UTF-16LE
+         *
+         * @param charset
+         * @return
+         */
+        static RecordFormat lines(Charset charset) {
+            ByteBuffer newLine = charset.encode(CharBuffer.wrap("\n"));
+            byte[] delimiter = new byte[newLine.remaining()];
+            newLine.get(delimiter);
+            return delimited(delimiter);
+        }
+
+        /**
+         * 以指定字节序列分隔的记录格式
+         *
+         * @param delimiter
+         * @return
+         */
+        static RecordFormat delimited(byte... delimiter) {
+            return new DelimitedFormat(delimiter);
+        }
+
+        /**
+         * 固定长度的记录格式
+         *
+         * @param width 记录的字节数
+         * @return
+         */
+        static RecordFormat fixedWidth(int width) {
+            return new FixedWidthFormat(width);
+        }
+
+        /**
+         * 以4字节大端整数作为长度前缀的记录格式
+         *
+         * @return
+         */
+        static RecordFormat lengthPrefixed() {
+            return new LengthPrefixedFormat();
+        }
+    }
+
+    /**
+     * 读写临时文件的缓冲区大小
+     */
+    private final static int ioBufferSize = 65536;
+
+    /**
+     * 用于记录比较的对象
+     */
+    private Comparator<ByteBuffer> comparator;
+
+    /**
+     * 记录格式
+     */
+    private RecordFormat format;
+
+    /**
+     * 一次可以加载的最大字节数
+     */
+    private int maxBufferSize;
+
+    /**
+     * 归并时是否以内存映射的方式读取临时文件
+     */
+    private boolean mapped;
+
+    /**
+     * 每趟归并同时打开的最大文件数, 每个文件占用一个文件描述符和一个读缓冲区
+     */
+    private int maxOpenFiles = 64;
+
+    /**
+     * 最近一次排序生成的有序分段数
+     */
+    private int runCount;
+
+    /**
+     * 最近一次排序对数据的归并趟数
+     */
+    private int passCount;
+
+    /**
+     * 构造方法, 指定一次加载的最大字节数、记录格式以及记录的比较规则
+     *
+     * @param maxBufferSize 一次可以加载的最大字节数
+     * @param format        记录格式
+     * @param comparator    记录的比较规则
+     */
+    public MassByteSorter(int maxBufferSize, RecordFormat format, Comparator<ByteBuffer> comparator) {
+        this.maxBufferSize = maxBufferSize;
+        this.format = format;
+        this.comparator = comparator;
+    }
+
+    /**
+     * 构造方法, 指定一次加载的最大字节数和记录格式, 并按无符号字节的字典顺序比较记录
+     *
+     * @param maxBufferSize 一次可以加载的最大字节数
+     * @param format        记录格式
+     */
+    public MassByteSorter(int maxBufferSize, RecordFormat format) {
+        this(maxBufferSize, format, ByteBufferComparator.DictionaryAsc);
+    }
+
+    /**
+     * 设置归并时是否以内存映射的方式读取临时文件
+     *
+     * @param mapped
+     * @return
+     */
+    public MassByteSorter mapped(boolean mapped) {
+        this.mapped = mapped;
+        return this;
+    }
+
+    /**
+     * 设置每趟归并同时打开的最大文件数, 有序分段数超过该值时分多趟归并
+     *
+     * @param maxOpenFiles 不小于2
+     * @return
+     */
+    public MassByteSorter maxOpenFiles(int maxOpenFiles) {
+        if (maxOpenFiles < 2) {
+            throw new IllegalArgumentException("maxOpenFiles must be at least 2: " + maxOpenFiles);
+        }
+        this.maxOpenFiles = maxOpenFiles;
+        return this;
+    }
+
+    /**
+     * 最近一次排序生成的有序分段数
+     *
+     * @return
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * 最近一次排序对数据的归并趟数
+     *
+     * @return
+     */
+    public int getPassCount() {
+        return passCount;
+    }
+
+    /**
+     * 将文件srcFile内容排序写入到destFile中<br>
+     * destFile已存在时将被覆盖, 输入数据为空时destFile为空文件
+     *
+     * @param srcFile
+     * @param destFile
+     * @throws Exception
+     */
+    public void sort(File srcFile, File destFile) throws Exception {
+        sort(new FileInputStream(srcFile).getChannel(), destFile);
+    }
+
+    /**
+     * 读取输入流的数据排序后写入到文件destFile中
+     *
+     * @param inputStream
+     * @param destFile
+     * @throws Exception
+     */
+    public void sort(InputStream inputStream, File destFile) throws Exception {
+        sort(Channels.newChannel(inputStream), destFile);
+    }
+
+    /**
+     * 读取channel对象的数据排序后写入到文件destFile中
+     *
+     * @param channel
+     * @param destFile
+     * @throws Exception
+     */
+    public void sort(ReadableByteChannel channel, File destFile) throws Exception {
+        List<File> files = split(channel);
+        this.runCount = files.size();
+        this.passCount = 0;
+        try {
+            if (files.isEmpty()) {
+                create(destFile).close();
+            } else if (files.size() == 1) {
+                publish(files.get(0), destFile);
+            } else {
+                merge(files, destFile);
+            }
+        } finally {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * 将多个有序文件通过败者树归并到文件destFile中<br>
+     * 文件数超过{@link #maxOpenFiles(int)}时, 每趟将相邻的maxOpenFiles个文件归并为一个临时文件, 直到可以一次归并到destFile, 归并趟数记录在passCount中<br>
+     * 注意:这里要求各文件的内容是有序的, 输入文件不会被删除
+     *
+     * @param files
+     * @param destFile
+     * @throws Exception
+     */
+    public void merge(List<File> files, File destFile) throws Exception {
+        this.passCount = 0;
+        List<File> temporaries = new ArrayList<File>();
+        try {
+            while (files.size() > maxOpenFiles) {
+                List<File> merged = new ArrayList<File>((files.size() + maxOpenFiles - 1) / maxOpenFiles);
+                for (int i = 0; i < files.size(); i += maxOpenFiles) {
+                    List<File> group = files.subList(i, Math.min(i + maxOpenFiles, files.size()));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                        continue;
+                    }
+                    File tmpFile = File.createTempFile("~.tmp", "");
+                    temporaries.add(tmpFile);
+                    mergeOnce(group, tmpFile);
+                    merged.add(tmpFile);
+                }
+                files = merged;
+                passCount++;
+            }
+            mergeOnce(files, destFile);
+            passCount++;
+        } finally {
+            for (File file : temporaries) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * 将多个有序文件通过败者树一次性归并到文件destFile中
+     *
+     * @param files
+     * @param destFile
+     * @throws Exception
+     */
+    private void mergeOnce(List<File> files, File destFile) throws Exception {
+        List<RecordReader> readers = new ArrayList<RecordReader>(files.size());
+        RecordWriter writer = null;
+        try {
+            for (File file : files) {
+                readers.add(open(file));
+            }
+            writer = new RecordWriter(create(destFile), format);
+            LoserTree<ByteBuffer> tree = new LoserTree<ByteBuffer>(new ArrayList<Iterator<ByteBuffer>>(readers), comparator);
+            ByteBuffer record;
+            // 记录视图与所在分支的缓冲区共享数据, 必须在弹出(读取该分支下一条记录)之前写出
+            while ((record = tree.top()) != null) {
+                writer.write(record);
+                tree.pop();
+            }
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (RecordReader reader : readers) {
+                Closer.close(reader.channel);
+            }
+            if (writer != null) {
+                Closer.close(writer.channel);
+            }
+        }
+    }
+
+    /**
+     * 分段读取channel对象的数据并排序, 返回有序文件列表<br>
+     * 每个分段的记录数据与索引的总大小不超过maxBufferSize, 超出的记录留到下一个分段
+     *
+     * @param channel
+     * @return
+     * @throws Exception
+     */
+    private List<File> split(ReadableByteChannel channel) throws Exception {
+        List<File> files = new ArrayList<File>();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(maxBufferSize);
+            RecordIndex index = new RecordIndex();
+            boolean eof = false;
+            do {
+                eof = eof || fill(channel, buffer);
+                buffer.flip();
+                index.clear();
+                int position = buffer.position();
+                ByteBuffer record;
+                while ((record = format.read(buffer, eof)) != null) {
+                    if (index.size() > 0 && buffer.position() + RecordIndex.BYTES_PER_RECORD * (index.size() + 1) > maxBufferSize) {
+                        buffer.position(position);
+                        break;
+                    }
+                    index.add(record.position(), record.limit());
+                    position = buffer.position();
+                }
+                if (index.size() > 0) {
+                    index.sort(buffer, comparator);
+                    File tmpFile = File.createTempFile("~.tmp", "");
+                    files.add(tmpFile);
+                    write(index, buffer, tmpFile);
+                }
+                if (eof && (!buffer.hasRemaining() || index.size() == 0)) {
+                    break;
+                }
+                if (index.size() == 0) {
+                    // 单条记录超出缓冲区大小, 扩容缓冲区
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+                } else {
+                    buffer.compact();
+                }
+            } while (true);
+        } catch (Exception e) {
+            for (File file : files) {
+                file.delete();
+            }
+            throw e;
+        } finally {
+            Closer.close(channel);
+        }
+        return files;
+    }
+
+    /**
+     * 从channel对象中读取数据填满缓冲区
+     *
+     * @param channel
+     * @param buffer
+     * @return 数据是否已读取完毕
+     * @throws IOException
+     */
+    private static boolean fill(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将排序后的记录写入文件
+     *
+     * @param index  排序后的记录索引
+     * @param buffer 记录所在的缓冲区
+     * @param file
+     * @throws Exception
+     */
+    private void write(RecordIndex index, ByteBuffer buffer, File file) throws Exception {
+        RecordWriter writer = new RecordWriter(create(file), format);
+        try {
+            ByteBuffer record = buffer.duplicate();
+            for (int i = 0; i < index.size(); i++) {
+                writer.write(index.record(record, i));
+            }
+            writer.flush();
+        } finally {
+            Closer.close(writer.channel);
+        }
+    }
+
+    /**
+     * 创建文件用于写入, 如果文件已存在则清空原有内容
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    private static FileChannel create(File file) throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 将唯一的有序文件发布为目标文件, 无法重命名(如跨文件系统)时复制文件内容
+     *
+     * @param file
+     * @param destFile
+     */
+    private static void publish(File file, File destFile) {
+        if (!Files.move(file, destFile.getAbsoluteFile())) {
+            Files.copy(file, destFile);
+        }
+    }
+
+    /**
+     * 打开有序文件, 返回记录读取对象
+     *
+     * @param file
+     * @return
+     * @throws Exception
+     */
+    private RecordReader open(File file) throws Exception {
+        FileChannel channel = new RandomAccessFile(file, "r").getChannel();
+        if (mapped && channel.size() <= Integer.MAX_VALUE) {
+            return new RecordReader(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), format);
+        }
+        return new RecordReader(channel, format);
+    }
+
+    /**
+     * 缓冲区中记录的索引, 以记录的起止位置代替记录视图参与排序, 排序过程不创建对象
+     */
+    private static class RecordIndex {
+
+        /**
+         * 每条记录占用的字节数, 包括起止位置、排序序号以及归并排序的辅助数组
+         */
+        final static int BYTES_PER_RECORD = 16;
+        /**
+         * 长度小于该值的区间使用插入排序
+         */
+        private final static int INSERTION_THRESHOLD = 16;
+
+        private int[] starts = new int[1024];
+        private int[] ends = new int[1024];
+        private int[] order = new int[1024];
+        private int[] scratch = new int[1024];
+        private int size;
+
+        private Comparator<ByteBuffer> comparator;
+        private ByteBuffer left;
+        private ByteBuffer right;
+
+        void clear() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(int start, int end) {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                order = new int[capacity];
+                scratch = new int[capacity];
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        /**
+         * 按比较规则对buffer中的记录稳定排序
+         *
+         * @param buffer
+         * @param comparator
+         */
+        void sort(ByteBuffer buffer, Comparator<ByteBuffer> comparator) {
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            this.comparator = comparator;
+            this.left = buffer.duplicate();
+            this.right = buffer.duplicate();
+            try {
+                sort(0, size);
+            } finally {
+                this.comparator = null;
+                this.left = this.right = null;
+            }
+        }
+
+        /**
+         * 将view设置为排序后第i条记录的视图
+         *
+         * @param view 与记录所在缓冲区共享数据的视图
+         * @param i
+         * @return
+         */
+        ByteBuffer record(ByteBuffer view, int i) {
+            int k = order[i];
+            view.clear();
+            view.limit(ends[k]).position(starts[k]);
+            return view;
+        }
+
+        private void sort(int from, int to) {
+            if (to - from < INSERTION_THRESHOLD) {
+                for (int i = from + 1; i < to; i++) {
+                    int k = order[i];
+                    int j = i - 1;
+                    for (; j >= from && compare(order[j], k) > 0; j--) {
+                        order[j + 1] = order[j];
+                    }
+                    order[j + 1] = k;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            sort(from, mid);
+            sort(mid, to);
+            if (compare(order[mid - 1], order[mid]) <= 0) {
+                return;
+            }
+            System.arraycopy(order, from, scratch, from, to - from);
+            int i = from, j = mid, k = from;
+            while (i < mid && j < to) {
+                order[k++] = compare(scratch[j], scratch[i]) < 0 ? scratch[j++] : scratch[i++];
+            }
+            while (i < mid) {
+                order[k++] = scratch[i++];
+            }
+            while (j < to) {
+                order[k++] = scratch[j++];
+            }
+        }
+
+        private int compare(int a, int b) {
+            left.clear();
+            left.limit(ends[a]).position(starts[a]);
+            right.clear();
+            right.limit(ends[b]).position(starts[b]);
+            return comparator.compare(left, right);
+        }
+    }
+
+    /**
+     * 从channel对象中依次读取记录的迭代器<br>
+     * 注意:返回的记录与内部缓冲区共享数据, 调用hasNext或next方法之后, 之前返回的记录可能失效
+     */
+    private static class RecordReader implements Iterator<ByteBuffer> {
+
+        private final ReadableByteChannel channel;
+        private final RecordFormat format;
+        private ByteBuffer buffer;
+        private boolean eof;
+        private ByteBuffer next;
+
+        RecordReader(ReadableByteChannel channel, RecordFormat format) {
+            this.channel = channel;
+            this.format = format;
+            this.buffer = ByteBuffer.allocate(ioBufferSize);
+            this.buffer.flip();
+        }
+
+        RecordReader(ReadableByteChannel channel, ByteBuffer mapped, RecordFormat format) {
+            this.channel = channel;
+            this.format = format;
+            this.buffer = mapped;
+            this.eof = true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = fetch();
+            }
+            return next != null;
+        }
+
+        @Override
+        public ByteBuffer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ByteBuffer record = next;
+            next = null;
+            return record;
+        }
+
+        private ByteBuffer fetch() {
+            do {
+                ByteBuffer record = format.read(buffer, eof);
+                if (record != null || eof) {
+                    return record;
+                }
+                if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+                    // 单条记录超出缓冲区大小, 扩容缓冲区
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+                } else {
+                    buffer.compact();
+                }
+                try {
+                    eof = fill(channel, buffer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                buffer.flip();
+            } while (true);
+        }
+    }
+
+    /**
+     * 将记录编码后写入channel对象
+     */
+    private static class RecordWriter {
+
+        private final WritableByteChannel channel;
+        private final RecordFormat format;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(ioBufferSize);
+
+        RecordWriter(WritableByteChannel channel, RecordFormat format) {
+            this.channel = channel;
+            this.format = format;
+        }
+
+        void write(ByteBuffer record) throws IOException {
+            int size = format.sizeOf(record);
+            if (size > buffer.remaining()) {
+                flush();
+            }
+            if (size > buffer.capacity()) {
+                ByteBuffer large = ByteBuffer.allocate(size);
+                format.write(record, large);
+                large.flip();
+                writeFully(large);
+            } else {
+                format.write(record, buffer);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer data) throws IOException {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    /**
+     * 截取buffer中[start,end)之间的内容作为记录视图
+     *
+     * @param buffer
+     * @param start
+     * @param end
+     * @return
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int start, int end) {
+        ByteBuffer record = buffer.duplicate();
+        record.limit(end);
+        record.position(start);
+        return record;
+    }
+
+    /**
+     * 以字节序列分隔的记录格式
+     */
+    private static class DelimitedFormat implements RecordFormat {
+
+        private final byte[] delimiter;
+
+        DelimitedFormat(byte[] delimiter) {
+            if (delimiter.length == 0) {
+                throw new IllegalArgumentException("delimiter must not be empty");
+            }
+            this.delimiter = Arrays.copyOf(delimiter, delimiter.length);
+        }
+
+        @Override
+        public ByteBuffer read(ByteBuffer buffer, boolean eof) {
+            int start = buffer.position();
+            int limit = buffer.limit();
+            int end = indexOf(buffer, start, limit);
+            if (end < 0) {
+                if (!eof || start == limit) {
+                    return null;
+                }
+                // 最后一条记录可以不以分隔符结尾
+                buffer.position(limit);
+                return slice(buffer, start, limit);
+            }
+            buffer.position(end + delimiter.length);
+            return slice(buffer, start, end);
+        }
+
+        @Override
+        public int sizeOf(ByteBuffer record) {
+            return record.remaining() + delimiter.length;
+        }
+
+        @Override
+        public void write(ByteBuffer record, ByteBuffer buffer) {
+            int position = record.position();
+            buffer.put(record).put(delimiter);
+            record.position(position);
+        }
+
+        private int indexOf(ByteBuffer buffer, int start, int limit) {
+            byte first = delimiter[0];
+            for (int i = start, n = limit - delimiter.length; i <= n; i++) {
+                if (buffer.get(i) == first) {
+                    int j = 1;
+                    while (j < delimiter.length && buffer.get(i + j) == delimiter[j]) {
+                        j++;
+                    }
+                    if (j == delimiter.length) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 固定长度的记录格式
+     */
+    private static class FixedWidthFormat implements RecordFormat {
+
+        private final int width;
+
+        FixedWidthFormat(int width) {
+            if (width <= 0) {
+                throw new IllegalArgumentException("width must be positive: " + width);
+            }
+            this.width = width;
+        }
+
+        @Override
+        public ByteBuffer read(ByteBuffer buffer, boolean eof) {
+            int start = buffer.position();
+            int remaining = buffer.remaining();
+            if (remaining < width) {
+                if (eof && remaining > 0) {
+                    throw new IllegalStateException("incomplete record of " + remaining + " bytes, expected " + width);
+                }
+                return null;
+            }
+            buffer.position(start + width);
+            return slice(buffer, start, start + width);
+        }
+
+        @Override
+        public int sizeOf(ByteBuffer record) {
+            return width;
+        }
+
+        @Override
+        public void write(ByteBuffer record, ByteBuffer buffer) {
+            int position = record.position();
+            buffer.put(record);
+            record.position(position);
+        }
+    }
+
+    /**
+     * 以4字节大端整数作为长度前缀的记录格式
+     */
+    private static class LengthPrefixedFormat implements RecordFormat {
+
+        @Override
+        public ByteBuffer read(ByteBuffer buffer, boolean eof) {
+            int start = buffer.position();
+            int remaining = buffer.remaining();
+            if (remaining >= 4) {
+                int length = buffer.getInt(start);
+                if (length < 0) {
+                    throw new IllegalStateException("negative record length: " + length);
+                }
+                if (remaining - 4 >= length) {
+                    buffer.position(start + 4 + length);
+                    return slice(buffer, start + 4, start + 4 + length);
+                }
+            }
+            if (eof && remaining > 0) {
+                throw new IllegalStateException("incomplete record of " + remaining + " bytes");
+            }
+            return null;
+        }
+
+        @Override
+        public int sizeOf(ByteBuffer record) {
+            return record.remaining() + 4;
+        }
+
+        @Override
+        public void write(ByteBuffer record, ByteBuffer buffer) {
+            int position = record.position();
+            buffer.putInt(record.remaining()).put(record);
+            record.position(position);
+        }
+    }
+}
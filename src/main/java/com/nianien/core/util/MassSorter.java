@@ -1,18 +1,35 @@
 package com.nianien.core.util;
 
+import com.nianien.core.io.BlockInputStream;
+import com.nianien.core.io.BlockOutputStream;
 import com.nianien.core.io.Closer;
+import com.nianien.core.io.Files;
+import com.nianien.core.tree.LoserTree;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 支持海量数据排序的工具类,支持对超大文件或数据源的排序,支持对多个有序文件或数据源的合并
@@ -31,6 +48,46 @@ public class MassSorter {
      */
     private int maxBufferSize;
 
+    /**
+     * 并行排序的线程数, 大于0时启用并行排序和多路归并模式
+     */
+    private int parallelism;
+
+    /**
+     * 一次可以加载的最大内存字节数(估算值), 大于0时按字节数而非数据量限制分段大小
+     */
+    private long maxBufferBytes;
+
+    /**
+     * 是否通过置换选择生成有序分段, 分段长度约为缓冲区大小的两倍
+     */
+    private boolean replacement;
+
+    /**
+     * 是否分块压缩临时文件, 每块附带CRC32校验码
+     */
+    private boolean compress;
+
+    /**
+     * 临时文件目录列表, 临时文件依次轮流写入各目录
+     */
+    private File[] spillDirectories;
+
+    /**
+     * 下一个临时文件所在目录的序号
+     */
+    private final AtomicInteger spillIndex = new AtomicInteger();
+
+    /**
+     * 最近一次排序生成的有序分段数
+     */
+    private int runCount;
+
+    /**
+     * 最近一次排序对数据的归并趟数
+     */
+    private int passCount;
+
     /**
      * 构造方法, 指定一次加载的最大数据量, 同时指定字符串的比较规则
      *
@@ -51,11 +108,91 @@ public class MassSorter {
         this(maxBufferSize, new Comparator<String>() {
             @Override
             public int compare(String str1, String str2) {
-                return str1.compareTo(str1);
+                return str1.compareTo(str2);
             }
         });
     }
 
+    /**
+     * 设置并行排序的线程数<br>
+     * 当parallelism大于0时, 各分段在线程池中并行排序, 然后通过败者树一次性完成多路归并;
+     * 否则, 各分段依次排序并两两归并
+     *
+     * @param parallelism 并行排序的线程数
+     * @return
+     */
+    public MassSorter parallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 设置一次可以加载的最大内存字节数<br>
+     * 字符串占用的内存按其长度估算, 当缓冲区的估算字节数达到该值时即写出分段, 构造方法指定的数据量仍作为分段的上限
+     *
+     * @param maxBufferBytes 一次可以加载的最大内存字节数
+     * @return
+     */
+    public MassSorter maxBufferBytes(long maxBufferBytes) {
+        this.maxBufferBytes = maxBufferBytes;
+        return this;
+    }
+
+    /**
+     * 设置是否通过置换选择生成有序分段<br>
+     * 置换选择基于{@link PriorityHeap}逐条输出最小元素并读入新元素, 对于随机数据, 分段长度约为缓冲区大小的两倍
+     *
+     * @param replacement
+     * @return
+     */
+    public MassSorter replacementSelection(boolean replacement) {
+        this.replacement = replacement;
+        return this;
+    }
+
+    /**
+     * 设置是否分块压缩临时文件<br>
+     * 临时文件按块压缩, 每块附带CRC32校验码, 读取时校验失败将抛出异常; 最终输出的文件不会被压缩
+     *
+     * @param compress
+     * @return
+     */
+    public MassSorter compress(boolean compress) {
+        this.compress = compress;
+        return this;
+    }
+
+    /**
+     * 设置临时文件目录, 临时文件依次轮流写入各目录, 以便多块磁盘分担读写<br>
+     * 未设置时使用系统默认的临时目录
+     *
+     * @param spillDirectories
+     * @return
+     */
+    public MassSorter spillDirectories(File... spillDirectories) {
+        this.spillDirectories = spillDirectories;
+        return this;
+    }
+
+    /**
+     * 最近一次排序生成的有序分段数
+     *
+     * @return
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * 最近一次排序对数据的归并趟数<br>
+     * 多路归并模式下该值不超过1, 两两归并模式下约为log2(runCount)
+     *
+     * @return
+     */
+    public int getPassCount() {
+        return passCount;
+    }
+
     /**
      * 将文件srcFile内容排序写入到destFile中
      *
@@ -75,22 +212,37 @@ public class MassSorter {
      * @throws Exception
      */
     public void sort(Reader reader, File destFile) throws Exception {
-        List<File> files = split(reader);
+        List<File> files = replacement ? select(reader) : parallelism > 0 ? parallelSplit(reader) : split(reader);
+        this.runCount = files.size();
+        this.passCount = 0;
         try {
+            if (parallelism > 0 && files.size() > 1) {
+                merge(open(files, true), new FileWriter(destFile));
+                passCount = 1;
+                return;
+            }
+            // 记录每个文件经历的归并趟数
+            List<Integer> passes = new ArrayList<Integer>();
+            for (int i = 0; i < files.size(); i++) {
+                passes.add(0);
+            }
             while (files.size() > 1) {
                 File file1 = files.remove(0);
                 File file2 = files.remove(0);
+                int pass = Math.max(passes.remove(0), passes.remove(0)) + 1;
                 try {
-                    File file3 = File.createTempFile("~.tmp", "");
-                    sort(file1, file2, file3);
+                    File file3 = createRun();
+                    sort(openRun(file1), openRun(file2), openRunWriter(file3));
                     files.add(file3);
+                    passes.add(pass);
+                    passCount = Math.max(passCount, pass);
                 } finally {
                     file1.delete();
                     file2.delete();
                 }
             }
             if (files.size() > 0) {
-                files.get(0).renameTo(destFile);
+                publish(files.get(0), destFile);
             }
         } finally {
             for (File file : files) {
@@ -99,6 +251,257 @@ public class MassSorter {
         }
     }
 
+    /**
+     * 分段读取reader对象的数据, 并在线程池中并行排序, 返回有序文件列表<br>
+     * 同一时刻最多有parallelism+1个分段驻留内存
+     *
+     * @param reader
+     * @return
+     * @throws Exception
+     */
+    private List<File> parallelSplit(Reader reader) throws Exception {
+        List<File> files = new ArrayList<File>();
+        List<Future<File>> futures = new ArrayList<Future<File>>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Semaphore permits = new Semaphore(parallelism);
+        try {
+            BufferedReader bufferReader = new BufferedReader(reader);
+            do {
+                List<String> data = new ArrayList<String>();
+                // 同一时刻最多有parallelism+1个分段驻留内存, 由它们分摊内存预算
+                read(data, bufferReader, maxBufferSize, maxBufferBytes / (parallelism + 1));
+                if (data.isEmpty())
+                    break;
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        Collections.sort(data, comparator);
+                        File tmpFile = createRun();
+                        try {
+                            write(data, new BufferedWriter(openRunWriter(tmpFile)), true);
+                        } catch (Exception e) {
+                            tmpFile.delete();
+                            throw e;
+                        }
+                        return tmpFile;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            } while (true);
+            Exception error = null;
+            for (Future<File> future : futures) {
+                try {
+                    files.add(future.get());
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        } catch (Exception e) {
+            executor.shutdownNow();
+            for (Future<File> future : futures) {
+                if (future.isDone() && !future.isCancelled()) {
+                    try {
+                        future.get().delete();
+                    } catch (Exception ex) {
+                        //ignore
+                    }
+                }
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+            Closer.close(reader);
+        }
+        return files;
+    }
+
+    /**
+     * 将多个有序文件通过败者树一次性归并到文件destFile中<br>
+     * 注意:这里要求各文件的内容是有序的
+     *
+     * @param files
+     * @param destFile
+     * @throws Exception
+     */
+    public void merge(List<File> files, File destFile) throws Exception {
+        merge(open(files, false), new FileWriter(destFile));
+    }
+
+    /**
+     * 打开文件列表, 返回对应的reader对象列表
+     *
+     * @param files
+     * @param spilled 是否为排序过程中生成的临时文件
+     * @return
+     * @throws Exception
+     */
+    private List<Reader> open(List<File> files, boolean spilled) throws Exception {
+        List<Reader> readers = new ArrayList<Reader>(files.size());
+        try {
+            for (File file : files) {
+                readers.add(spilled ? openRun(file) : new FileReader(file));
+            }
+        } catch (Exception e) {
+            for (Reader reader : readers) {
+                Closer.close(reader);
+            }
+            throw e;
+        }
+        return readers;
+    }
+
+    /**
+     * 创建临时文件, 临时文件依次轮流创建在各个临时目录中
+     *
+     * @return
+     * @throws IOException
+     */
+    private File createRun() throws IOException {
+        File dir = null;
+        if (spillDirectories != null && spillDirectories.length > 0) {
+            dir = spillDirectories[Math.floorMod(spillIndex.getAndIncrement(), spillDirectories.length)];
+        }
+        return File.createTempFile("~.tmp", "", dir);
+    }
+
+    /**
+     * 打开临时文件的reader对象
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    private Reader openRun(File file) throws IOException {
+        return compress ? new InputStreamReader(new BlockInputStream(new FileInputStream(file))) : new FileReader(file);
+    }
+
+    /**
+     * 打开临时文件的writer对象
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    private Writer openRunWriter(File file) throws IOException {
+        return compress ? new OutputStreamWriter(new BlockOutputStream(new FileOutputStream(file))) : new FileWriter(file);
+    }
+
+    /**
+     * 将最终的临时文件输出为目标文件<br>
+     * 压缩的临时文件需要解压输出, 未压缩的临时文件优先重命名, 重命名失败(如跨磁盘)时复制
+     *
+     * @param file
+     * @param destFile
+     * @throws IOException
+     */
+    private void publish(File file, File destFile) throws IOException {
+        if (compress) {
+            Files.write(new FileOutputStream(destFile), new BlockInputStream(new FileInputStream(file)));
+        } else if (!Files.move(file, destFile.getAbsoluteFile())) {
+            Files.copy(file, destFile);
+        }
+    }
+
+    /**
+     * 从多个reader对象中读取数据, 通过败者树归并后写入writer对象<br>
+     * 注意:这里要求从各reader对象读取的内容是有序的
+     *
+     * @param readers
+     * @param writer
+     * @throws Exception
+     */
+    public void merge(List<Reader> readers, Writer writer) throws Exception {
+        try {
+            List<Iterator<String>> branches = new ArrayList<Iterator<String>>(readers.size());
+            for (Reader reader : readers) {
+                branches.add(new BufferedReader(reader).lines().iterator());
+            }
+            LoserTree<String> tree = new LoserTree<String>(branches, comparator);
+            BufferedWriter bufferWriter = new BufferedWriter(writer);
+            String line;
+            while ((line = tree.pop()) != null) {
+                bufferWriter.write(line);
+                bufferWriter.newLine();
+            }
+            bufferWriter.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (Reader reader : readers) {
+                Closer.close(reader);
+            }
+            Closer.close(writer);
+        }
+    }
+
+    /**
+     * 通过置换选择读取reader对象的数据, 返回有序文件列表<br>
+     * 堆内元素按照(分段序号, 数据)排序, 每次输出堆顶元素后读入新数据,
+     * 新数据不小于上一个输出的数据时归入当前分段, 否则归入下一分段
+     *
+     * @param reader
+     * @return
+     * @throws Exception
+     */
+    private List<File> select(Reader reader) throws Exception {
+        List<File> files = new ArrayList<File>();
+        BufferedWriter writer = null;
+        try {
+            BufferedReader bufferReader = new BufferedReader(reader);
+            PriorityHeap<Run> heap = new PriorityHeap<Run>(maxBufferSize, new Comparator<Run>() {
+                @Override
+                public int compare(Run run1, Run run2) {
+                    // 小顶堆的堆顶即为下一个输出的元素
+                    int n = Integer.compare(run1.index, run2.index);
+                    return n != 0 ? n : comparator.compare(run1.data, run2.data);
+                }
+            });
+            long bytes = 0;
+            int index = -1;
+            String last = null;
+            do {
+                // 在容量和内存预算允许的范围内读入新数据
+                String line;
+                while (heap.size() < maxBufferSize && (maxBufferBytes <= 0 || bytes < maxBufferBytes)
+                        && (line = bufferReader.readLine()) != null) {
+                    boolean current = last != null && comparator.compare(line, last) >= 0;
+                    heap.add(new Run(current ? index : index + 1, line));
+                    bytes += sizeOf(line);
+                }
+                Run top = heap.pop();
+                if (top == null)
+                    break;
+                bytes -= sizeOf(top.data);
+                if (top.index != index) {
+                    Closer.close(writer);
+                    File tmpFile = createRun();
+                    files.add(tmpFile);
+                    writer = new BufferedWriter(openRunWriter(tmpFile));
+                    index = top.index;
+                }
+                writer.write(top.data);
+                writer.newLine();
+                last = top.data;
+            } while (true);
+        } catch (Exception e) {
+            Closer.close(writer);
+            for (File file : files) {
+                file.delete();
+            }
+            throw e;
+        } finally {
+            Closer.close(writer);
+            Closer.close(reader);
+        }
+        return files;
+    }
+
     /**
      * 分段读取reader对象的数据并排序, 返回有序文件列表
      *
@@ -111,14 +514,14 @@ public class MassSorter {
         try {
             BufferedReader bufferReader = new BufferedReader(reader);
             do {
-                List<String> data = new ArrayList<String>(maxBufferSize);
-                read(data, bufferReader, maxBufferSize);
+                List<String> data = new ArrayList<String>();
+                read(data, bufferReader, maxBufferSize, maxBufferBytes);
                 if (data.isEmpty())
                     break;
                 Collections.sort(data, comparator);
-                File tmpFile = File.createTempFile("~.tmp", "");
+                File tmpFile = createRun();
                 files.add(tmpFile);
-                write(data, new BufferedWriter(new FileWriter(tmpFile)), true);
+                write(data, new BufferedWriter(openRunWriter(tmpFile)), true);
             } while (true);
         } catch (Exception e) {
             for (File file : files) {
@@ -164,8 +567,8 @@ public class MassSorter {
             List<String> first = new ArrayList<String>();
             List<String> second = new ArrayList<String>();
             do {
-                read(first, bufferReader1, maxBufferSize);
-                read(second, bufferReader2, maxBufferSize);
+                read(first, bufferReader1, maxBufferSize, maxBufferBytes / 2);
+                read(second, bufferReader2, maxBufferSize, maxBufferBytes / 2);
                 if (first.isEmpty() && second.isEmpty())
                     break;
                 if (first.isEmpty()) {
@@ -195,23 +598,42 @@ public class MassSorter {
     }
 
     /**
-     * 从reader对象中读取数据填充到链表中,同时确保元素数目最大不超过maxSize
+     * 从reader对象中读取数据填充到链表中,同时确保元素数目最大不超过maxSize, 估算字节数最大不超过maxBytes
      *
-     * @param list    数据链表
-     * @param reader  读对象
-     * @param maxSize 链表元素数目最大值
+     * @param list     数据链表
+     * @param reader   读对象
+     * @param maxSize  链表元素数目最大值
+     * @param maxBytes 链表元素估算字节数最大值, 不大于0时不做限制
      * @throws Exception
      */
-    private void read(List<String> list, BufferedReader reader, int maxSize)
+    private void read(List<String> list, BufferedReader reader, int maxSize, long maxBytes)
             throws Exception {
-        for (int i = list.size(); i < maxSize; i++) {
+        long bytes = 0;
+        if (maxBytes > 0) {
+            for (String line : list) {
+                bytes += sizeOf(line);
+            }
+        }
+        // 链表为空时至少读取一行, 确保超出预算的单行数据也能被处理
+        for (int i = list.size(); i < maxSize && (maxBytes <= 0 || bytes < maxBytes || list.isEmpty()); i++) {
             String line = reader.readLine();
             if (line == null)
                 break;
             list.add(line);
+            bytes += sizeOf(line);
         }
     }
 
+    /**
+     * 估算字符串占用的内存字节数, 包括对象头、字符数组以及链表中的引用
+     *
+     * @param line
+     * @return
+     */
+    private static long sizeOf(String line) {
+        return 64 + 2L * line.length();
+    }
+
     /**
      * 将链表中的数据移除并写入writer对象
      *
@@ -233,4 +655,17 @@ public class MassSorter {
                 Closer.close(writer);
         }
     }
+
+    /**
+     * 置换选择中的堆元素, 记录数据及其所属的分段序号
+     */
+    private static class Run {
+        private final int index;
+        private final String data;
+
+        Run(int index, String data) {
+            this.index = index;
+            this.data = data;
+        }
+    }
 }
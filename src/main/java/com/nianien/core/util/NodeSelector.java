@@ -0,0 +1,67 @@
+package com.nianien.core.util;
+
+import java.util.Map;
+
+/**
+ * 节点选择接口, 根据请求数据选择命中的节点<br>
+ * 实现类支持在运行期间增删节点, 节点变更采用写时复制的方式, 读操作不会被阻塞
+ *
+ * @param <T>
+ * @author skyfalling
+ * @see ConsistentHash
+ * @see HashRing
+ * @see JumpHash
+ * @see RendezvousHash
+ * @see MaglevHash
+ */
+public interface NodeSelector<T> {
+
+    /**
+     * 根据请求数据获取命中的节点, 如果没有任何节点, 返回null
+     *
+     * @param data
+     * @return
+     */
+    T getTarget(Object data);
+
+    /**
+     * 添加节点, 并指定节点的权重, 如果节点已存在, 则更新其权重
+     *
+     * @param node
+     * @param weight 节点权重, 如果值小于1,则默认为1
+     */
+    void addNode(T node, int weight);
+
+    /**
+     * 添加权重为1的节点
+     *
+     * @param node
+     */
+    default void addNode(T node) {
+        addNode(node, 1);
+    }
+
+    /**
+     * 移除节点
+     *
+     * @param node
+     */
+    void removeNode(T node);
+
+    /**
+     * 获取当前的节点及其权重
+     *
+     * @return
+     */
+    Map<T, Integer> getNodes();
+
+    /**
+     * 统计给定请求数据在各节点上的分布情况
+     *
+     * @param keys
+     * @return
+     */
+    default LoadReport<T> report(Iterable<?> keys) {
+        return LoadReport.of(this, keys);
+    }
+}
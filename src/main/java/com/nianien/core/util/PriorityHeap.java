@@ -1,8 +1,8 @@
 package com.nianien.core.util;
 
+import com.nianien.core.reflect.Generics;
+
 import java.lang.reflect.Array;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.Comparator;
 
 /**
@@ -134,6 +134,17 @@ public class PriorityHeap<T> {
         return result;
     }
 
+    /**
+     * 返回堆内元素的副本, 元素顺序不确定, 堆本身不受影响
+     *
+     * @return
+     */
+    public T[] toArray() {
+        T[] result = arrayOfElements(size);
+        System.arraycopy(heap, 0, result, 0, size);
+        return result;
+    }
+
     /**
      * 堆内实际元素数量
      *
@@ -215,18 +226,7 @@ public class PriorityHeap<T> {
      * 获取比较元素的类型
      */
     private static Class<?> typeOfElement(Comparator<?> comparator) {
-        Type[] types = comparator.getClass().getGenericInterfaces();
-        for (Type type : types) {
-            if (type instanceof ParameterizedType) {
-                ParameterizedType ptype = (ParameterizedType) type;
-                // Comparator的泛型类型
-                if (Comparator.class.equals(ptype.getRawType())) {
-                    Type cmpType = ptype.getActualTypeArguments()[0];
-                    return (Class<?>) (cmpType instanceof ParameterizedType ? ((ParameterizedType) cmpType)
-                            .getRawType() : cmpType);
-                }
-            }
-        }
-        return Object.class;
+        Class<?> type = Generics.find(comparator.getClass(), Comparator.class, 0);
+        return type != null ? type : Object.class;
     }
 }
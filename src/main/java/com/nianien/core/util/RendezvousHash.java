@@ -0,0 +1,87 @@
+package com.nianien.core.util;
+
+import java.util.Map;
+
+/**
+ * 基于最高随机权重(Rendezvous/HRW)算法的节点选择实现<br>
+ * 对每个节点计算请求数据的随机得分, 选择得分最高的节点; 增删节点时只有该节点上的数据发生迁移<br>
+ * 查找的时间复杂度为O(n), 适用于节点数较少的场景, 权重按照加权HRW算法(-weight/ln(u))计算
+ *
+ * @author skyfalling
+ */
+public class RendezvousHash<T> extends AbstractNodeSelector<T> {
+
+    /**
+     * 当前发布的节点状态
+     */
+    private volatile Table table = new Table(new Object[0], new long[0], new double[0]);
+
+    /**
+     * 构造方法, 指定节点, 使用MurmurHash3计算哈希值
+     *
+     * @param nodes
+     */
+    public RendezvousHash(Iterable<T> nodes) {
+        this(nodes, Hashing.MURMUR3);
+    }
+
+    /**
+     * 构造方法, 指定节点和哈希函数
+     *
+     * @param nodes
+     * @param hashFunction
+     */
+    public RendezvousHash(Iterable<T> nodes, HashFunction hashFunction) {
+        super(hashFunction);
+        addNodes(nodes);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getTargetByHash(long hash) {
+        Table table = this.table;
+        int winner = -1;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < table.nodes.length; i++) {
+            long x = Hashing.mix(hash ^ table.seeds[i]);
+            // 将哈希值映射到(0,1)之间的均匀分布
+            double u = ((x >>> 11) + 0.5) / (1L << 53);
+            double score = -table.weights[i] / Math.log(u);
+            if (score > max) {
+                max = score;
+                winner = i;
+            }
+        }
+        return winner < 0 ? null : (T) table.nodes[winner];
+    }
+
+    @Override
+    protected void update(Map<T, Integer> nodes, T changed) {
+        Object[] array = new Object[nodes.size()];
+        long[] seeds = new long[array.length];
+        double[] weights = new double[array.length];
+        int i = 0;
+        for (Map.Entry<T, Integer> entry : nodes.entrySet()) {
+            array[i] = entry.getKey();
+            seeds[i] = hashFunction.hash(entry.getKey().toString());
+            weights[i] = entry.getValue();
+            i++;
+        }
+        this.table = new Table(array, seeds, weights);
+    }
+
+    /**
+     * 节点的不可变状态
+     */
+    private static class Table {
+        private final Object[] nodes;
+        private final long[] seeds;
+        private final double[] weights;
+
+        Table(Object[] nodes, long[] seeds, double[] weights) {
+            this.nodes = nodes;
+            this.seeds = seeds;
+            this.weights = weights;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.nianien.idea.database.datasource;
 
+import com.nianien.core.exception.ExceptionHandler;
+
 import java.util.Map;
 
 import javax.sql.DataSource;
@@ -59,4 +61,25 @@ public class DataSourceManager {
         return sourceMapping.get(name);
     }
 
+    /**
+     * 以名称为primary的数据源为主库, 其余指定名称的数据源为只读副本, 创建读写分离的路由数据源
+     *
+     * @param primary  主库名称
+     * @param replicas 只读副本名称
+     * @return RoutingDataSource
+     */
+    public RoutingDataSource getRoutingDataSource(String primary, String... replicas) {
+        RoutingDataSource routing = new RoutingDataSource(required(primary));
+        for (String replica : replicas) {
+            routing.addReplica(replica, required(replica));
+        }
+        return routing;
+    }
+
+    private DataSource required(String name) {
+        DataSource dataSource = sourceMapping.get(name);
+        ExceptionHandler.throwIfNull(dataSource, "no such data source: " + name);
+        return dataSource;
+    }
+
 }
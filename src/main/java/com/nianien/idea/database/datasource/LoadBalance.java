@@ -0,0 +1,84 @@
+package com.nianien.idea.database.datasource;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 只读副本的负载均衡策略
+ *
+ * @author skyfalling
+ */
+public enum LoadBalance {
+
+    /**
+     * 轮询
+     */
+    ROUND_ROBIN {
+        @Override
+        Replica select(List<Replica> candidates, int sequence) {
+            return candidates.get((sequence & Integer.MAX_VALUE) % candidates.size());
+        }
+    },
+    /**
+     * 选择当前活跃连接数最少的副本, 活跃连接数相同时轮询
+     */
+    LEAST_ACTIVE {
+        @Override
+        Replica select(List<Replica> candidates, int sequence) {
+            int size = candidates.size();
+            int offset = (sequence & Integer.MAX_VALUE) % size;
+            Replica selected = null;
+            for (int i = 0; i < size; i++) {
+                Replica replica = candidates.get((offset + i) % size);
+                if (selected == null || replica.getActive() < selected.getActive()) {
+                    selected = replica;
+                }
+            }
+            return selected;
+        }
+    },
+    /**
+     * 按照延迟的倒数加权随机选择, 延迟越低被选中的概率越大; 尚无延迟数据的副本按平均权重计算
+     */
+    LATENCY_WEIGHTED {
+        @Override
+        Replica select(List<Replica> candidates, int sequence) {
+            int size = candidates.size();
+            double[] weights = new double[size];
+            double total = 0;
+            int known = 0;
+            for (int i = 0; i < size; i++) {
+                double latency = candidates.get(i).getLatency();
+                if (latency > 0) {
+                    weights[i] = 1 / latency;
+                    total += weights[i];
+                    known++;
+                }
+            }
+            double average = known > 0 ? total / known : 1;
+            for (int i = 0; i < size; i++) {
+                if (weights[i] == 0) {
+                    weights[i] = average;
+                    total += average;
+                }
+            }
+            double random = ThreadLocalRandom.current().nextDouble() * total;
+            for (int i = 0; i < size; i++) {
+                random -= weights[i];
+                if (random < 0) {
+                    return candidates.get(i);
+                }
+            }
+            return candidates.get(size - 1);
+        }
+    };
+
+    /**
+     * 从可用的副本中选择一个
+     *
+     * @param candidates 可用的副本, 不为空
+     * @param sequence   递增的请求序号
+     * @return
+     */
+    abstract Replica select(List<Replica> candidates, int sequence);
+}
@@ -0,0 +1,140 @@
+package com.nianien.idea.database.datasource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * 只读副本及其运行状态, 包括活跃连接数、延迟以及健康状态<br>
+ * 连续失败次数达到上限的副本被摘除一段时间, 到期后重新参与选择, 再次成功时恢复
+ *
+ * @author skyfalling
+ */
+public class Replica {
+
+    /**
+     * 延迟的平滑系数
+     */
+    private final static double ALPHA = 0.3;
+
+    /**
+     * 副本名称
+     */
+    private final String name;
+    /**
+     * 副本数据源
+     */
+    private final DataSource dataSource;
+    /**
+     * 活跃连接数
+     */
+    private final AtomicInteger active = new AtomicInteger();
+    /**
+     * 指数加权平均延迟, 单位为毫秒, 为0时表示尚无数据
+     */
+    private volatile double latency;
+    /**
+     * 连续失败次数
+     */
+    private volatile int failures;
+    /**
+     * 摘除的截止时间
+     */
+    private volatile long ejectedUntil;
+
+    Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * 副本名称
+     *
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 副本数据源
+     *
+     * @return
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * 当前活跃连接数
+     *
+     * @return
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * 平均延迟, 单位为毫秒
+     *
+     * @return
+     */
+    public double getLatency() {
+        return latency;
+    }
+
+    /**
+     * 连续失败次数
+     *
+     * @return
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * 副本是否可用, 即未被摘除或摘除已到期
+     *
+     * @return
+     */
+    public boolean isAvailable() {
+        return System.currentTimeMillis() >= ejectedUntil;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{active=" + active + ", latency=" + latency + ", failures=" + failures + ", available=" + isAvailable() + "}";
+    }
+
+    void acquire() {
+        active.incrementAndGet();
+    }
+
+    void release() {
+        active.decrementAndGet();
+    }
+
+    /**
+     * 记录一次成功的访问及其延迟
+     *
+     * @param millis
+     */
+    synchronized void success(double millis) {
+        double value = Math.max(millis, 0.01);
+        latency = latency == 0 ? value : latency + ALPHA * (value - latency);
+        failures = 0;
+        ejectedUntil = 0;
+    }
+
+    /**
+     * 记录一次失败的访问, 连续失败次数达到maxFailures时摘除ejectMillis毫秒
+     *
+     * @param maxFailures
+     * @param ejectMillis
+     */
+    synchronized void failure(int maxFailures, long ejectMillis) {
+        if (++failures >= maxFailures) {
+            ejectedUntil = System.currentTimeMillis() + ejectMillis;
+        }
+    }
+}
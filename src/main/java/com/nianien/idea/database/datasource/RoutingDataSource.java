@@ -0,0 +1,300 @@
+package com.nianien.idea.database.datasource;
+
+import com.nianien.core.exception.ExceptionHandler;
+import com.nianien.core.io.Closer;
+import com.nianien.core.log.LoggerFactory;
+import com.nianien.core.proxy.ProxyHandler;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * 读写分离的路由数据源<br>
+ * {@link #getConnection()}总是返回主库连接, {@link #getReadConnection()}按照负载均衡策略从只读副本中选择连接<br>
+ * 获取副本连接失败或健康检查失败时记录失败次数, 连续失败达到上限的副本被摘除一段时间; 没有可用副本时读请求回退到主库
+ *
+ * @author skyfalling
+ */
+public class RoutingDataSource implements DataSource, AutoCloseable {
+
+    private static Logger logger = LoggerFactory.getLogger(RoutingDataSource.class);
+
+    /**
+     * 主库
+     */
+    private final DataSource primary;
+    /**
+     * 只读副本
+     */
+    private final List<Replica> replicas = new CopyOnWriteArrayList<Replica>();
+    /**
+     * 请求序号, 用于轮询
+     */
+    private final AtomicInteger sequence = new AtomicInteger();
+    /**
+     * 负载均衡策略
+     */
+    private volatile LoadBalance loadBalance = LoadBalance.ROUND_ROBIN;
+    /**
+     * 摘除副本前允许的连续失败次数
+     */
+    private volatile int maxFailures = 3;
+    /**
+     * 副本被摘除的时长, 单位为毫秒
+     */
+    private volatile long ejectMillis = 30000;
+    /**
+     * 健康检查的执行器
+     */
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * 构造方法,指定主库
+     *
+     * @param primary
+     */
+    public RoutingDataSource(DataSource primary) {
+        this.primary = primary;
+    }
+
+    /**
+     * 添加只读副本
+     *
+     * @param name
+     * @param dataSource
+     * @return
+     */
+    public RoutingDataSource addReplica(String name, DataSource dataSource) {
+        replicas.add(new Replica(name, dataSource));
+        return this;
+    }
+
+    /**
+     * 设置负载均衡策略
+     *
+     * @param loadBalance
+     * @return
+     */
+    public RoutingDataSource setLoadBalance(LoadBalance loadBalance) {
+        this.loadBalance = loadBalance;
+        return this;
+    }
+
+    /**
+     * 设置副本的摘除条件
+     *
+     * @param maxFailures 摘除副本前允许的连续失败次数
+     * @param ejectMillis 副本被摘除的时长, 单位为毫秒
+     * @return
+     */
+    public RoutingDataSource setEjection(int maxFailures, long ejectMillis) {
+        ExceptionHandler.throwIf(maxFailures < 1, "the value of maxFailures cannot be low than 1: " + maxFailures);
+        this.maxFailures = maxFailures;
+        this.ejectMillis = ejectMillis;
+        return this;
+    }
+
+    /**
+     * 启动定时健康检查, 每隔periodMillis毫秒检查一次全部副本, 同时更新副本的延迟
+     *
+     * @param periodMillis   检查间隔, 单位为毫秒
+     * @param timeoutSeconds 检查连接有效性的超时时间, 参见{@link Connection#isValid(int)}
+     * @return
+     */
+    public synchronized RoutingDataSource startHealthCheck(long periodMillis, int timeoutSeconds) {
+        ExceptionHandler.throwIf(healthChecker != null, "health check has already been started");
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(() -> checkHealth(timeoutSeconds), 0, periodMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * 检查全部副本的健康状态
+     *
+     * @param timeoutSeconds 检查连接有效性的超时时间
+     */
+    public void checkHealth(int timeoutSeconds) {
+        for (Replica replica : replicas) {
+            long start = System.nanoTime();
+            Connection connection = null;
+            try {
+                connection = replica.getDataSource().getConnection();
+                if (connection.isValid(timeoutSeconds)) {
+                    replica.success((System.nanoTime() - start) / 1e6);
+                    continue;
+                }
+            } catch (Exception e) {
+                logger.fine("health check failed on replica[" + replica.getName() + "]: " + e);
+            } finally {
+                Closer.close(connection);
+            }
+            replica.failure(maxFailures, ejectMillis);
+            if (!replica.isAvailable()) {
+                logger.warning("replica[" + replica.getName() + "] is ejected: " + replica);
+            }
+        }
+    }
+
+    /**
+     * 全部只读副本
+     *
+     * @return
+     */
+    public List<Replica> getReplicas() {
+        return Collections.unmodifiableList(replicas);
+    }
+
+    /**
+     * 主库
+     *
+     * @return
+     */
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * 获取主库连接
+     *
+     * @return
+     * @throws SQLException
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * 获取只读连接, 按照负载均衡策略选择可用的副本, 获取失败时依次尝试其他副本, 全部失败时返回主库连接
+     *
+     * @return
+     * @throws SQLException
+     */
+    public Connection getReadConnection() throws SQLException {
+        List<Replica> candidates = new ArrayList<Replica>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.isAvailable()) {
+                candidates.add(replica);
+            }
+        }
+        while (!candidates.isEmpty()) {
+            Replica replica = loadBalance.select(candidates, sequence.getAndIncrement());
+            long start = System.nanoTime();
+            try {
+                Connection connection = replica.getDataSource().getConnection();
+                replica.success((System.nanoTime() - start) / 1e6);
+                return track(replica, connection);
+            } catch (SQLException e) {
+                logger.warning("failed to get connection from replica[" + replica.getName() + "]: " + e);
+                replica.failure(maxFailures, ejectMillis);
+                candidates.remove(replica);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * 停止健康检查
+     */
+    @Override
+    public synchronized void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+            healthChecker = null;
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    /**
+     * 代理副本连接, 统计副本的活跃连接数
+     *
+     * @param replica
+     * @param connection
+     * @return
+     */
+    private static Connection track(Replica replica, Connection connection) {
+        replica.acquire();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new ProxyHandler(connection) {
+            private boolean closed;
+
+            @Override
+            public Object proxy(Object target, Method method, Object... args) {
+                if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                    synchronized (this) {
+                        if (!closed) {
+                            closed = true;
+                            replica.release();
+                        }
+                    }
+                }
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw ExceptionHandler.throwException(e.getTargetException());
+                } catch (Exception e) {
+                    throw ExceptionHandler.throwException(e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,184 @@
+package com.nianien.idea.database.query;
+
+import com.nianien.core.exception.ExceptionHandler;
+import com.nianien.core.log.LoggerFactory;
+import com.nianien.idea.database.sql.SqlStatement;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * {@link Query}的异步执行接口, 查询在独立的执行器中运行, 调用线程不会被阻塞, 也不占用数据库连接<br>
+ * 同时执行的查询数不超过maxConcurrency, 通常应与连接池的大小一致, 超出的查询排队等待<br>
+ * 提交查询时使用调用线程当前的SqlStatement对象, 或者显式指定SqlStatement对象; 查询的超时时间参见{@link SqlStatement#setQueryTimeout(int)}<br>
+ * 注意: 异步查询不在调用线程的{@link QuerySession}中执行
+ *
+ * @author skyfalling
+ */
+public class AsyncQuery implements AutoCloseable {
+
+    private static Logger logger = LoggerFactory.getLogger(AsyncQuery.class);
+
+    /**
+     * 执行查询的Query对象
+     */
+    private final Query query;
+    /**
+     * 执行器
+     */
+    private final ExecutorService executor;
+    /**
+     * 限制同时执行的查询数, 仅用于不限制线程数的执行器, 否则为null
+     */
+    private final Semaphore permits;
+
+    /**
+     * 构造方法, 使用固定大小的线程池执行查询
+     *
+     * @param query
+     * @param maxConcurrency 同时执行的查询数上限
+     */
+    public AsyncQuery(Query query, int maxConcurrency) {
+        this(query, newThreadPool(maxConcurrency), null);
+    }
+
+    private AsyncQuery(Query query, ExecutorService executor, Semaphore permits) {
+        this.query = query;
+        this.executor = executor;
+        this.permits = permits;
+    }
+
+    /**
+     * 使用虚拟线程执行查询, 每个查询一个虚拟线程, 同时执行的查询数不超过maxConcurrency<br>
+     * 虚拟线程需要Java 21及以上版本, 运行环境不支持时使用固定大小的线程池
+     *
+     * @param query
+     * @param maxConcurrency 同时执行的查询数上限
+     * @return
+     */
+    public static AsyncQuery virtual(Query query, int maxConcurrency) {
+        ExceptionHandler.throwIf(maxConcurrency < 1, "the value of maxConcurrency cannot be low than 1: " + maxConcurrency);
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return new AsyncQuery(query, executor, new Semaphore(maxConcurrency));
+        } catch (Exception e) {
+            logger.warning("virtual threads are not supported, use thread pool instead: " + e);
+            return new AsyncQuery(query, maxConcurrency);
+        }
+    }
+
+    /**
+     * 以当前SqlStatement对象异步执行查询, 返回由Map&lt;String, Object>对象表示的结果集
+     *
+     * @return
+     */
+    public CompletableFuture<List<Map<String, Object>>> getRowsAsync() {
+        return submit(query.getSqlStatement(), Query::getRows);
+    }
+
+    /**
+     * 以当前SqlStatement对象异步执行查询, 返回由Class&lt;T>对象表示的结果集
+     *
+     * @param clazz
+     * @return
+     */
+    public <T> CompletableFuture<List<T>> getRowsAsync(Class<T> clazz) {
+        return submit(query.getSqlStatement(), q -> q.getRows(clazz));
+    }
+
+    /**
+     * 以当前SqlStatement对象异步执行查询, 返回结果集的第一行数据
+     *
+     * @param clazz
+     * @return
+     */
+    public <T> CompletableFuture<T> getFirstRowAsync(Class<T> clazz) {
+        return submit(query.getSqlStatement(), q -> q.getFirstRow(clazz));
+    }
+
+    /**
+     * 以当前SqlStatement对象异步执行计数查询
+     *
+     * @return
+     */
+    public CompletableFuture<Integer> getRowsCountAsync() {
+        return submit(query.getSqlStatement(), Query::getRowsCount);
+    }
+
+    /**
+     * 以当前SqlStatement对象异步执行查询, 以列存储的形式返回结果集
+     *
+     * @return
+     */
+    public CompletableFuture<ColumnTable> getColumnTableAsync() {
+        return submit(query.getSqlStatement(), Query::getColumnTable);
+    }
+
+    /**
+     * 以当前SqlStatement对象异步执行更新语句
+     *
+     * @return
+     */
+    public CompletableFuture<Integer> executeUpdateAsync() {
+        return submit(query.getSqlStatement(), Query::executeUpdate);
+    }
+
+    /**
+     * 以指定的SqlStatement对象异步执行action, action在执行线程中调用Query对象的方法
+     *
+     * @param sqlStatement
+     * @param action
+     * @return
+     */
+    public <T> CompletableFuture<T> submit(SqlStatement sqlStatement, Function<Query, T> action) {
+        ExceptionHandler.throwIfNull(sqlStatement, new NullPointerException("SqlStatement required!"));
+        return CompletableFuture.supplyAsync(() -> {
+            if (permits != null) {
+                permits.acquireUninterruptibly();
+            }
+            try {
+                query.setSqlStatement(sqlStatement);
+                return action.apply(query);
+            } finally {
+                query.setSqlStatement(null);
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * 关闭执行器, 已提交的查询继续执行
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * 创建固定大小的线程池, 线程为守护线程
+     *
+     * @param size
+     * @return
+     */
+    private static ExecutorService newThreadPool(int size) {
+        ExceptionHandler.throwIf(size < 1, "the value of maxConcurrency cannot be low than 1: " + size);
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+            Thread thread = new Thread(runnable, "async-query-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,698 @@
+package com.nianien.idea.database.query;
+
+import com.nianien.core.collection.map.CaseInsensitiveMap;
+import com.nianien.core.exception.ExceptionHandler;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按列存储的查询结果, 适用于行数多、以数值为主的统计查询<br>
+ * 整数和浮点数列存储为基本类型数组, 字符串列采用字典编码, 每列的null值记录在位图中, 单元格不需要装箱<br>
+ * 列的索引值起始为1, 与{@link ResultSet}一致; 行的索引值起始为0
+ *
+ * @author skyfalling
+ */
+public class ColumnTable {
+
+    /**
+     * 列的存储类型
+     */
+    public enum ColumnType {
+        /**
+         * 存储为int[]
+         */
+        INT,
+        /**
+         * 存储为long[]
+         */
+        LONG,
+        /**
+         * 存储为double[]
+         */
+        DOUBLE,
+        /**
+         * 字典编码的字符串, 存储为int[]编码和字典
+         */
+        STRING,
+        /**
+         * 存储为Object[]
+         */
+        OBJECT;
+
+        /**
+         * 根据JDBC类型选择存储类型, 参见{@link Types}
+         *
+         * @param sqlType   JDBC类型
+         * @param precision 精度
+         * @param scale     小数位数
+         * @return
+         */
+        static ColumnType of(int sqlType, int precision, int scale) {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    return INT;
+                case Types.BIGINT:
+                    return LONG;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return DOUBLE;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    // 整数可以用long精确表示, 带小数的保留BigDecimal
+                    return scale == 0 && precision > 0 && precision <= 18 ? LONG : OBJECT;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                    return STRING;
+                default:
+                    return OBJECT;
+            }
+        }
+    }
+
+    /**
+     * 初始容量
+     */
+    private final static int INITIAL_CAPACITY = 1024;
+
+    /**
+     * 列标签
+     */
+    private final String[] labels;
+    /**
+     * 列数据
+     */
+    private final Column[] columns;
+    /**
+     * 列标签到列索引的映射, 不区分大小写
+     */
+    private final Map<String, Integer> indexes = new CaseInsensitiveMap<String, Integer>();
+    /**
+     * 行数
+     */
+    private int rowCount;
+
+    private ColumnTable(String[] labels, Column[] columns) {
+        this.labels = labels;
+        this.columns = columns;
+        for (int i = labels.length - 1; i >= 0; i--) {
+            // 同名的列以第一列为准
+            indexes.put(labels[i], i + 1);
+        }
+    }
+
+    /**
+     * 读取结果集的全部记录, 按列存储
+     *
+     * @param resultSet
+     * @return
+     */
+    public static ColumnTable of(ResultSet resultSet) {
+        try {
+            ResultSetMetaData meta = resultSet.getMetaData();
+            int count = meta.getColumnCount();
+            String[] labels = new String[count];
+            Column[] columns = new Column[count];
+            for (int i = 0; i < count; i++) {
+                labels[i] = meta.getColumnLabel(i + 1);
+                columns[i] = newColumn(ColumnType.of(meta.getColumnType(i + 1), meta.getPrecision(i + 1), meta.getScale(i + 1)));
+            }
+            ColumnTable table = new ColumnTable(labels, columns);
+            int row = 0;
+            while (resultSet.next()) {
+                for (int i = 0; i < count; i++) {
+                    columns[i].read(resultSet, i + 1, row);
+                }
+                row++;
+            }
+            for (Column column : columns) {
+                column.trim(row);
+            }
+            table.rowCount = row;
+            return table;
+        } catch (Exception e) {
+            throw ExceptionHandler.throwException(e);
+        }
+    }
+
+    /**
+     * 行数
+     *
+     * @return
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 列数
+     *
+     * @return
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * 获取第index列的标签
+     *
+     * @param index 起始值为1
+     * @return
+     */
+    public String getLabel(int index) {
+        return labels[index - 1];
+    }
+
+    /**
+     * 获取标签为label的列的索引, 不区分大小写; 不存在时返回-1
+     *
+     * @param label
+     * @return
+     */
+    public int indexOf(String label) {
+        Integer index = indexes.get(label);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * 获取第index列
+     *
+     * @param index 起始值为1
+     * @return
+     */
+    public Column getColumn(int index) {
+        return columns[index - 1];
+    }
+
+    /**
+     * 获取标签为label的列, 不区分大小写
+     *
+     * @param label
+     * @return
+     */
+    public Column getColumn(String label) {
+        int index = indexOf(label);
+        ExceptionHandler.throwIf(index < 0, "no such column: " + label);
+        return columns[index - 1];
+    }
+
+    /**
+     * 将第row行转换为Map对象
+     *
+     * @param row 起始值为0
+     * @return
+     */
+    public Map<String, Object> getRow(int row) {
+        checkRow(row);
+        Map<String, Object> map = new CaseInsensitiveMap<String, Object>(labels.length * 4 / 3 + 1);
+        for (int i = 0; i < labels.length; i++) {
+            map.put(labels[i], columns[i].get(row));
+        }
+        return map;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("row: " + row + ", rowCount: " + rowCount);
+        }
+    }
+
+    private static Column newColumn(ColumnType type) {
+        switch (type) {
+            case INT:
+                return new IntColumn();
+            case LONG:
+                return new LongColumn();
+            case DOUBLE:
+                return new DoubleColumn();
+            case STRING:
+                return new StringColumn();
+            default:
+                return new ObjectColumn();
+        }
+    }
+
+    /**
+     * 按列存储的数据, null值记录在位图中<br>
+     * 数值访问方法对null值返回0, 聚合方法忽略null值
+     */
+    public static abstract class Column {
+        /**
+         * null值位图
+         */
+        protected final BitSet nulls = new BitSet();
+        /**
+         * 行数
+         */
+        protected int size;
+
+        /**
+         * 存储类型
+         *
+         * @return
+         */
+        public abstract ColumnType getType();
+
+        /**
+         * 获取第row行的值, null值返回null
+         *
+         * @param row
+         * @return
+         */
+        public abstract Object get(int row);
+
+        /**
+         * 获取第row行的数值
+         *
+         * @param row
+         * @return
+         */
+        public double getDouble(int row) {
+            Object value = get(row);
+            return value != null ? ((Number) value).doubleValue() : 0;
+        }
+
+        /**
+         * 获取第row行的整数值
+         *
+         * @param row
+         * @return
+         */
+        public int getInt(int row) {
+            return (int) getLong(row);
+        }
+
+        /**
+         * 获取第row行的长整数值
+         *
+         * @param row
+         * @return
+         */
+        public long getLong(int row) {
+            Object value = get(row);
+            return value != null ? ((Number) value).longValue() : 0;
+        }
+
+        /**
+         * 获取第row行的字符串值
+         *
+         * @param row
+         * @return
+         */
+        public String getString(int row) {
+            Object value = get(row);
+            return value != null ? value.toString() : null;
+        }
+
+        /**
+         * 第row行是否为null
+         *
+         * @param row
+         * @return
+         */
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        /**
+         * 行数
+         *
+         * @return
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 非null值的个数
+         *
+         * @return
+         */
+        public int count() {
+            return size - nulls.cardinality();
+        }
+
+        /**
+         * 非null值的和
+         *
+         * @return
+         */
+        public double sum() {
+            double sum = 0;
+            for (int i = nulls.nextClearBit(0); i < size; i = nulls.nextClearBit(i + 1)) {
+                sum += getDouble(i);
+            }
+            return sum;
+        }
+
+        /**
+         * 非null值的平均值, 没有非null值时返回NaN
+         *
+         * @return
+         */
+        public double avg() {
+            int count = count();
+            return count > 0 ? sum() / count : Double.NaN;
+        }
+
+        /**
+         * 非null值的最小值, 没有非null值时返回NaN
+         *
+         * @return
+         */
+        public double min() {
+            double min = Double.NaN;
+            for (int i = nulls.nextClearBit(0); i < size; i = nulls.nextClearBit(i + 1)) {
+                double value = getDouble(i);
+                if (!(value >= min)) {
+                    min = value;
+                }
+            }
+            return min;
+        }
+
+        /**
+         * 非null值的最大值, 没有非null值时返回NaN
+         *
+         * @return
+         */
+        public double max() {
+            double max = Double.NaN;
+            for (int i = nulls.nextClearBit(0); i < size; i = nulls.nextClearBit(i + 1)) {
+                double value = getDouble(i);
+                if (!(value <= max)) {
+                    max = value;
+                }
+            }
+            return max;
+        }
+
+        /**
+         * 读取结果集当前记录第index列的值, 存储为第row行
+         *
+         * @param resultSet
+         * @param index
+         * @param row
+         * @throws SQLException
+         */
+        abstract void read(ResultSet resultSet, int index, int row) throws SQLException;
+
+        /**
+         * 读取结束后将存储容量缩减为实际行数
+         *
+         * @param size
+         */
+        abstract void trim(int size);
+
+        /**
+         * 扩展后的容量
+         *
+         * @param capacity
+         * @return
+         */
+        static int grow(int capacity) {
+            return Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1));
+        }
+    }
+
+    /**
+     * 存储为int[]的列
+     */
+    private static class IntColumn extends Column {
+        private int[] values = new int[0];
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.INT;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        public int getInt(int row) {
+            return values[row];
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(row));
+            }
+            values[row] = resultSet.getInt(index);
+            if (resultSet.wasNull()) {
+                nulls.set(row);
+            }
+            size = row + 1;
+        }
+
+        @Override
+        void trim(int size) {
+            this.size = size;
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * 存储为long[]的列
+     */
+    private static class LongColumn extends Column {
+        private long[] values = new long[0];
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.LONG;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(row));
+            }
+            values[row] = resultSet.getLong(index);
+            if (resultSet.wasNull()) {
+                nulls.set(row);
+            }
+            size = row + 1;
+        }
+
+        @Override
+        void trim(int size) {
+            this.size = size;
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * 存储为double[]的列
+     */
+    private static class DoubleColumn extends Column {
+        private double[] values = new double[0];
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.DOUBLE;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return (long) values[row];
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(row));
+            }
+            values[row] = resultSet.getDouble(index);
+            if (resultSet.wasNull()) {
+                nulls.set(row);
+            }
+            size = row + 1;
+        }
+
+        @Override
+        void trim(int size) {
+            this.size = size;
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * 字典编码的字符串列, 每行存储字符串在字典中的编码, 相同的字符串只保存一份
+     */
+    public static class StringColumn extends Column {
+        private int[] codes = new int[0];
+        private final ArrayList<String> dictionary = new ArrayList<String>();
+        private Map<String, Integer> encoder = new HashMap<String, Integer>();
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.STRING;
+        }
+
+        @Override
+        public Object get(int row) {
+            return getString(row);
+        }
+
+        @Override
+        public String getString(int row) {
+            return isNull(row) ? null : dictionary.get(codes[row]);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return isNull(row) ? 0 : Double.parseDouble(getString(row));
+        }
+
+        @Override
+        public long getLong(int row) {
+            return isNull(row) ? 0 : Long.parseLong(getString(row));
+        }
+
+        /**
+         * 第row行的字符串在字典中的编码, null值返回-1
+         *
+         * @param row
+         * @return
+         */
+        public int getCode(int row) {
+            return isNull(row) ? -1 : codes[row];
+        }
+
+        /**
+         * 字典中编码为code的字符串
+         *
+         * @param code
+         * @return
+         */
+        public String decode(int code) {
+            return dictionary.get(code);
+        }
+
+        /**
+         * 不同字符串的个数, 即字典的大小
+         *
+         * @return
+         */
+        public int cardinality() {
+            return dictionary.size();
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            if (row == codes.length) {
+                codes = Arrays.copyOf(codes, grow(row));
+            }
+            String value = resultSet.getString(index);
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                Integer code = encoder.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.add(value);
+                    encoder.put(value, code);
+                }
+                codes[row] = code;
+            }
+            size = row + 1;
+        }
+
+        @Override
+        void trim(int size) {
+            this.size = size;
+            codes = Arrays.copyOf(codes, size);
+            // 读取结束后不再需要编码表
+            encoder = null;
+            dictionary.trimToSize();
+        }
+    }
+
+    /**
+     * 存储为Object[]的列
+     */
+    private static class ObjectColumn extends Column {
+        private Object[] values = new Object[0];
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.OBJECT;
+        }
+
+        @Override
+        public Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(row));
+            }
+            values[row] = resultSet.getObject(index);
+            if (values[row] == null) {
+                nulls.set(row);
+            }
+            size = row + 1;
+        }
+
+        @Override
+        void trim(int size) {
+            this.size = size;
+            values = Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.nianien.idea.database.query;
 
 import com.nianien.idea.database.sql.SqlStatement;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 /**
@@ -98,7 +101,7 @@ public interface Query {
 
     /**
      * 获取查询结果中从第start条开始共size条的数据<br>
-     * 其中start起始值为1
+     * 其中start起始值为1, 分页在数据库端完成
      *
      * @param start
      * @param size
@@ -108,7 +111,7 @@ public interface Query {
 
     /**
      * 获取查询结果中从第start条开始共size条的数据<br>
-     * 其中start起始值为1
+     * 其中start起始值为1, 分页在数据库端完成
      *
      * @param clazz
      * @param start
@@ -117,13 +120,47 @@ public interface Query {
      */
     <T> List<T> getRows(Class<T> clazz, int start, int size);
 
+    /**
+     * 基于键值分页获取查询结果, 即按照keyColumn升序排列, 获取键值大于lastKey的size条数据<br>
+     * 查询代价与页码无关, lastKey为null时获取第一页<br>
+     * 数据库方言无法改写查询语句时, 抛出UnsupportedOperationException
+     *
+     * @param keyColumn 键值列, 应当唯一且有索引
+     * @param lastKey   上一页最后一条数据的键值
+     * @param size
+     * @return
+     */
+    List<Map<String, Object>> getRowsAfter(String keyColumn, Object lastKey, int size);
+
+    /**
+     * 基于键值分页获取查询结果, 即按照keyColumn升序排列, 获取键值大于lastKey的size条数据<br>
+     * 查询代价与页码无关, lastKey为null时获取第一页<br>
+     * 数据库方言无法改写查询语句时, 抛出UnsupportedOperationException
+     *
+     * @param clazz
+     * @param keyColumn 键值列, 应当唯一且有索引
+     * @param lastKey   上一页最后一条数据的键值
+     * @param size
+     * @return
+     */
+    <T> List<T> getRowsAfter(Class<T> clazz, String keyColumn, Object lastKey, int size);
+
     /**
      * 返回查询结果记录的数目<br>
+     * 查询语句被改写为COUNT(*)查询, 计数在数据库端完成
      *
      * @return
      */
     int getRowsCount();
 
+    /**
+     * 以列存储的形式返回查询结果<br>
+     * 数值列存储为基本类型数组, 字符串列采用字典编码, 适用于行数多、以数值为主的统计查询
+     *
+     * @return
+     */
+    ColumnTable getColumnTable();
+
     /**
      * 以索引值为index的列为键值,将查询结果映射成Map&lt;Object,T>对象<br>
      *
@@ -142,6 +179,31 @@ public interface Query {
      */
     <T> Map<Object, T> getRowsMap(Class<T> clazz, String name);
 
+    /**
+     * 以流的形式逐行读取由Map&lt;String, Object>对象表示的查询结果<br>
+     * 结果集通过只进只读游标按批读取, 内存占用与结果集大小无关; 流关闭时释放结果集、语句和连接, 因此必须关闭返回的流
+     *
+     * @return
+     */
+    Stream<Map<String, Object>> stream();
+
+    /**
+     * 以流的形式逐行读取由Class&lt;T>对象表示的查询结果<br>
+     * 结果集通过只进只读游标按批读取, 内存占用与结果集大小无关; 流关闭时释放结果集、语句和连接, 因此必须关闭返回的流
+     *
+     * @param clazz
+     * @return
+     */
+    <T> Stream<T> stream(Class<T> clazz);
+
+    /**
+     * 逐行处理由Class&lt;T>对象表示的查询结果, 处理完毕后释放结果集、语句和连接
+     *
+     * @param clazz
+     * @param action
+     */
+    <T> void forEach(Class<T> clazz, Consumer<? super T> action);
+
     /**
      * 根据实例对象插入记录,只写入非空字段<br>
      *
@@ -167,6 +229,35 @@ public interface Query {
      */
     <T> void delete(T bean, String... conditionFields);
 
+    /**
+     * 批量插入记录, 所有实体对象共用一条insert语句, 写入全部字段(包括null字段)<br>
+     * 记录按批提交, 每批的记录数参见{@link SqlQuery#setBatchSize(int)}
+     *
+     * @param beans 同一类型的实体对象
+     * @return 影响的记录数
+     */
+    <T> int insertAll(Collection<T> beans);
+
+    /**
+     * 根据实例对象的条件字段批量更新记录, 更新条件字段之外的全部字段(包括null字段)<br>
+     * 如果未指定条件字段, 则按键值更新
+     *
+     * @param beans           同一类型的实体对象
+     * @param conditionFields 条件字段,不分大小写
+     * @return 影响的记录数
+     */
+    <T> int updateAll(Collection<T> beans, String... conditionFields);
+
+    /**
+     * 根据实例对象的条件字段批量删除记录<br>
+     * 如果未指定条件字段, 则按键值删除
+     *
+     * @param beans           同一类型的实体对象
+     * @param conditionFields 条件字段,不分大小写
+     * @return 影响的记录数
+     */
+    <T> int deleteAll(Collection<T> beans, String... conditionFields);
+
     /**
      * 批量执行SQL语句
      *
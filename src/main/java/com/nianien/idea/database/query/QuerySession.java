@@ -0,0 +1,99 @@
+package com.nianien.idea.database.query;
+
+import com.nianien.core.io.Closer;
+
+import java.sql.Connection;
+
+/**
+ * 查询会话, 在会话期间同一线程内通过{@link SqlQuery}执行的查询共用同一个数据库连接<br>
+ * 如果SqlQuery启用了语句缓存, 会话还持有该连接上的{@link StatementCache}, 相同SQL语句只需prepare一次<br>
+ * 会话应当在打开它的线程中使用并关闭, 推荐使用try-with-resources:
+ * <pre>
+ * try (QuerySession session = query.openSession()) {
+ *     query.setSqlStatement(...).getRows(User.class);
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author skyfalling
+ */
+public class QuerySession implements AutoCloseable {
+
+    /**
+     * 所属的SqlQuery对象
+     */
+    private final SqlQuery query;
+    /**
+     * 会话持有的连接
+     */
+    private final Connection connection;
+    /**
+     * 语句缓存, 未启用时为null
+     */
+    private final StatementCache statementCache;
+    private boolean closed;
+
+    QuerySession(SqlQuery query, Connection connection, int statementCacheSize) {
+        this.query = query;
+        this.connection = connection;
+        this.statementCache = statementCacheSize > 0 ? new StatementCache(connection, statementCacheSize) : null;
+    }
+
+    /**
+     * 会话持有的连接
+     *
+     * @return
+     */
+    public Connection connection() {
+        return connection;
+    }
+
+    /**
+     * 会话的语句缓存, 未启用时返回null
+     *
+     * @return
+     */
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * 语句缓存的命中次数
+     *
+     * @return
+     */
+    public long getCacheHits() {
+        return statementCache != null ? statementCache.getHits() : 0;
+    }
+
+    /**
+     * 语句缓存的未命中次数
+     *
+     * @return
+     */
+    public long getCacheMisses() {
+        return statementCache != null ? statementCache.getMisses() : 0;
+    }
+
+    /**
+     * 会话是否已关闭
+     *
+     * @return
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭会话, 关闭缓存的语句并释放连接
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            query.closeSession(this);
+            Closer.close(statementCache);
+            query.releaseConnection(connection);
+        }
+    }
+}
@@ -3,8 +3,6 @@ package com.nianien.idea.database.query;
 import com.nianien.core.collection.map.CaseInsensitiveMap;
 import com.nianien.core.exception.ExceptionHandler;
 import com.nianien.core.reflect.Reflections;
-import com.nianien.idea.database.table.DataTable;
-import com.nianien.idea.database.table.DataTableFactory;
 
 import java.io.InputStream;
 import java.io.Reader;
@@ -124,7 +122,7 @@ public class ResultSetAdapter {
     public static <T> T getFirstRow(ResultSet resultSet, Class<T> clazz) {
         try {
             if (resultSet.next()) {
-                return getBean(clazz, resultSet);
+                return RowMapper.of(clazz, resultSet).map(resultSet);
             }
             return null;
         } catch (Exception e) {
@@ -141,14 +139,9 @@ public class ResultSetAdapter {
     public static List<Map<String, Object>> getRows(ResultSet resultSet) {
         try {
             List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
-            ResultSetMetaData meta = resultSet.getMetaData();
-            int count = meta.getColumnCount();
+            String[] labels = RowMapper.getColumnLabels(resultSet);
             while (resultSet.next()) {
-                Map<String, Object> map = new CaseInsensitiveMap<String, Object>();
-                for (int i = 1; i <= count; i++) {
-                    map.put(meta.getColumnLabel(i), resultSet.getObject(i));
-                }
-                list.add(map);
+                list.add(getRow(resultSet, labels));
             }
             return list;
         } catch (Exception e) {
@@ -167,8 +160,9 @@ public class ResultSetAdapter {
     public static <T> List<T> getRows(ResultSet resultSet, Class<T> clazz) {
         try {
             List<T> list = new ArrayList<T>();
+            RowMapper<T> mapper = RowMapper.of(clazz, resultSet);
             while (resultSet.next()) {
-                list.add(getBean(clazz, resultSet));
+                list.add(mapper.map(resultSet));
             }
             return list;
         } catch (Exception e) {
@@ -191,9 +185,10 @@ public class ResultSetAdapter {
         beforeRow(resultSet, start);
         try {
             List<T> list = new ArrayList<T>();
+            RowMapper<T> mapper = RowMapper.of(clazz, resultSet);
             int num = 0;
-            while (resultSet.next() && num++ < size) {
-                list.add(getBean(clazz, resultSet));
+            while (num++ < size && resultSet.next()) {
+                list.add(mapper.map(resultSet));
             }
             return list;
         } catch (Exception e) {
@@ -213,15 +208,10 @@ public class ResultSetAdapter {
         beforeRow(resultSet, start);
         try {
             List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
-            ResultSetMetaData meta = resultSet.getMetaData();
-            int columnCount = meta.getColumnCount();
+            String[] labels = RowMapper.getColumnLabels(resultSet);
             int num = 0;
-            while (resultSet.next() && num++ < size) {
-                Map<String, Object> map = new CaseInsensitiveMap<String, Object>();
-                for (int i = 1; i <= columnCount; i++) {
-                    map.put(meta.getColumnLabel(i), resultSet.getObject(i));
-                }
-                list.add(map);
+            while (num++ < size && resultSet.next()) {
+                list.add(getRow(resultSet, labels));
             }
             return list;
         } catch (Exception e) {
@@ -230,6 +220,16 @@ public class ResultSetAdapter {
 
     }
 
+    /**
+     * 以列存储的形式返回结果集
+     *
+     * @param resultSet
+     * @return
+     */
+    public static ColumnTable getColumnTable(ResultSet resultSet) {
+        return ColumnTable.of(resultSet);
+    }
+
     /**
      * 将ResultSet中的记录以指定列为键值映射成Map&lt;Object, T>对象<br>
      * 其中key为第index列的值,value为记录对应的实例对象
@@ -243,8 +243,9 @@ public class ResultSetAdapter {
     public static <T> Map<Object, T> getRowsMap(ResultSet resultSet, int index, Class<T> clazz) {
         try {
             Map<Object, T> map = new HashMap<Object, T>();
+            RowMapper<T> mapper = RowMapper.of(clazz, resultSet);
             while (resultSet.next()) {
-                map.put(resultSet.getObject(index), getBean(clazz, resultSet));
+                map.put(resultSet.getObject(index), mapper.map(resultSet));
             }
             return map;
         } catch (Exception e) {
@@ -290,6 +291,25 @@ public class ResultSetAdapter {
         }
     }
 
+    /**
+     * 将结果集的当前记录转换为Map对象
+     *
+     * @param resultSet
+     * @param labels    结果集的列标签
+     * @return
+     */
+    static Map<String, Object> getRow(ResultSet resultSet, String[] labels) {
+        try {
+            Map<String, Object> map = new CaseInsensitiveMap<String, Object>(labels.length * 4 / 3 + 1);
+            for (int i = 0; i < labels.length; i++) {
+                map.put(labels[i], resultSet.getObject(i + 1));
+            }
+            return map;
+        } catch (Exception e) {
+            throw ExceptionHandler.throwException(e);
+        }
+    }
+
     /**
      * 将结果集游标移到指定行的前一行
      *
@@ -300,12 +320,8 @@ public class ResultSetAdapter {
         ExceptionHandler.throwIf(rowNo < 1, "the value of rowNo cannot be low than 1: " + rowNo);
         try {
             if (resultSet.getType() == ResultSet.TYPE_FORWARD_ONLY) {
-                if (rowNo > 1) {
-                    int index = 0;
-                    while (resultSet.next()) {
-                        index++;
-                        if (index < rowNo - 1) continue;
-                    }
+                // 只进结果集只能逐行跳过
+                for (int index = 1; index < rowNo && resultSet.next(); index++) {
                 }
             } else {
                 if (rowNo > 1) {
@@ -338,45 +354,14 @@ public class ResultSetAdapter {
 
 
     /**
-     * 获取查询结果的列名称
-     *
-     * @param resultSet
-     * @return
-     */
-    private static List<String> getColumnsName(ResultSet resultSet) {
-        try {
-            List<String> columns = new ArrayList<String>();
-            ResultSetMetaData meta = resultSet.getMetaData();
-            int count = meta.getColumnCount();
-            for (int i = 1; i <= count; i++) {
-                columns.add(meta.getColumnLabel(i));
-            }
-            return columns;
-        } catch (Exception e) {
-            throw ExceptionHandler.throwException(e);
-        }
-    }
-
-
-    /**
-     * 将查询字段赋值到实体对象中
+     * 将查询字段赋值到实体对象中<br>
+     * 每次调用都需要读取结果集的列标签, 逐行映射时应当使用{@link RowMapper}
      *
      * @param beanClass
      * @param resultSet
      */
     protected static <T> T getBean(Class<T> beanClass, ResultSet resultSet) {
-        T bean = Reflections.newInstance(beanClass);
-        DataTable table = DataTableFactory.get(bean.getClass());
-        final List<String> columns = getColumnsName(resultSet);
-        for (String column : columns) {
-            if (table.hasField(column)) {
-                Object value = getFieldValue(table.getFieldType(column), column, resultSet);
-                if (value != null) {
-                    table.setField(bean, column, value);
-                }
-            }
-        }
-        return bean;
+        return RowMapper.of(beanClass, resultSet).map(resultSet);
     }
 
     /**
@@ -0,0 +1,335 @@
+package com.nianien.idea.database.query;
+
+import com.nianien.core.collection.set.CaseInsensitiveSet;
+import com.nianien.core.exception.ExceptionHandler;
+import com.nianien.core.reflect.ClassMetadata;
+import com.nianien.core.reflect.Reflections;
+import com.nianien.idea.database.table.DataTable;
+import com.nianien.idea.database.table.DataTableFactory;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 结果集记录到实体对象的映射计划<br>
+ * 针对实体类型和结果集的列签名(即列标签序列), 预先解析每一列的索引、读取方式以及对应的setter方法,
+ * 映射每条记录时不再查询结果集元数据, 也不再按列名查找字段<br>
+ * 映射计划按照(实体类型, 列签名)缓存, 相同查询返回的结果集共享同一个映射计划,
+ * 缓存通过{@link ClassValue}与实体类型关联, 不会阻止类加载器的回收<br>
+ * 基本类型的字段通过类型匹配的读取方法读取, setter方法通过{@link ClassMetadata.Accessor}绑定的函数调用
+ *
+ * @param <T>
+ * @author skyfalling
+ */
+public class RowMapper<T> {
+
+    /**
+     * 每个实体类型缓存的映射计划数上限, 超过时新的列签名不再缓存
+     */
+    private final static int MAX_CACHE_SIZE = 256;
+    /**
+     * 实体类型到(列签名, 映射计划)的缓存
+     */
+    private final static ClassValue<ConcurrentMap<Labels, RowMapper<?>>> cache = new ClassValue<ConcurrentMap<Labels, RowMapper<?>>>() {
+        @Override
+        protected ConcurrentMap<Labels, RowMapper<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Labels, RowMapper<?>>();
+        }
+    };
+
+    /**
+     * 实体类型
+     */
+    private final Class<T> type;
+    /**
+     * 实体类型的无参构造方法句柄, 类型为()Object, 无法获取时为null
+     */
+    private final MethodHandle constructor;
+    /**
+     * 各列的赋值方式
+     */
+    private final ColumnBinder[] binders;
+
+    /**
+     * 构造方法, 根据实体类型和列标签解析映射计划
+     *
+     * @param type
+     * @param labels
+     */
+    private RowMapper(Class<T> type, String[] labels) {
+        this.type = type;
+        this.constructor = constructorOf(type);
+        DataTable<?> table = DataTableFactory.get(type);
+        List<ColumnBinder> binders = new ArrayList<ColumnBinder>();
+        Set<String> mapped = new CaseInsensitiveSet<String>();
+        for (int i = 0; i < labels.length; i++) {
+            String label = labels[i];
+            // 同名的列只映射第一列, 只读属性不赋值
+            Method setter = table.hasField(label) ? table.getSetter(label) : null;
+            if (setter == null || !mapped.add(label)) {
+                continue;
+            }
+            binders.add(binderOf(table.getFieldType(label), i + 1, setter));
+        }
+        this.binders = binders.toArray(new ColumnBinder[binders.size()]);
+    }
+
+    /**
+     * 获取实体类型在指定结果集上的映射计划
+     *
+     * @param type
+     * @param resultSet
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> of(Class<T> type, ResultSet resultSet) {
+        String[] labels = getColumnLabels(resultSet);
+        ConcurrentMap<Labels, RowMapper<?>> mappers = cache.get(type);
+        Labels key = new Labels(labels);
+        RowMapper<?> mapper = mappers.get(key);
+        if (mapper == null) {
+            if (mappers.size() >= MAX_CACHE_SIZE) {
+                return new RowMapper<T>(type, labels);
+            }
+            mapper = mappers.computeIfAbsent(key, (k) -> new RowMapper<T>(type, labels));
+        }
+        return (RowMapper<T>) mapper;
+    }
+
+    /**
+     * 将结果集的当前记录映射为实体对象
+     *
+     * @param resultSet
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T map(ResultSet resultSet) {
+        try {
+            T bean = constructor != null ? (T) (Object) constructor.invokeExact() : Reflections.newInstance(type);
+            for (ColumnBinder binder : binders) {
+                binder.bind(resultSet, bean);
+            }
+            return bean;
+        } catch (Throwable e) {
+            throw ExceptionHandler.throwException(e);
+        }
+    }
+
+    /**
+     * 获取结果集的列标签
+     *
+     * @param resultSet
+     * @return
+     */
+    static String[] getColumnLabels(ResultSet resultSet) {
+        try {
+            ResultSetMetaData meta = resultSet.getMetaData();
+            String[] labels = new String[meta.getColumnCount()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = meta.getColumnLabel(i + 1);
+            }
+            return labels;
+        } catch (Exception e) {
+            throw ExceptionHandler.throwException(e);
+        }
+    }
+
+    /**
+     * 获取实体类型的无参构造方法句柄, 无法获取时返回null
+     *
+     * @param type
+     * @return
+     */
+    private static MethodHandle constructorOf(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 根据字段类型创建列的赋值方式<br>
+     * 基本类型的字段使用对应的读取方法, 列值为NULL时按照JDBC的规则取0或false; 其他类型的列值为null时不赋值
+     *
+     * @param type   字段类型
+     * @param index  列索引
+     * @param setter setter方法
+     * @return
+     */
+    private static ColumnBinder binderOf(Class<?> type, int index, Method setter) {
+        ColumnReader reader = readerOf(type);
+        BiConsumer<Object, Object> consumer = setterOf(setter);
+        return (resultSet, bean) -> {
+            Object value = read(reader, resultSet, index);
+            if (value != null) {
+                consumer.accept(bean, value);
+            }
+        };
+    }
+
+    /**
+     * 读取列值, 读取失败时抛出异常
+     *
+     * @param reader
+     * @param resultSet
+     * @param index
+     * @return
+     */
+    private static Object read(ColumnReader reader, ResultSet resultSet, int index) {
+        try {
+            return reader.read(resultSet, index);
+        } catch (SQLException e) {
+            throw ExceptionHandler.throwException(e);
+        }
+    }
+
+    /**
+     * 获取setter方法绑定的函数, 与{@link ClassMetadata}共享同一个访问器
+     *
+     * @param setter
+     * @return
+     */
+    private static BiConsumer<Object, Object> setterOf(Method setter) {
+        return ClassMetadata.accessor(setter).consumer();
+    }
+
+    /**
+     * 根据字段类型选择列的读取方式, 与{@link ResultSetAdapter#getFieldValue(Class, String, ResultSet)}的规则一致<br>
+     * 基本类型的包装类型使用对应的读取方法, 列值为NULL时返回null, 不再通过字符串构造
+     *
+     * @param type
+     * @return
+     */
+    private static ColumnReader readerOf(Class<?> type) {
+        if (type.isAssignableFrom(Array.class)) {
+            return ResultSet::getArray;
+        } else if (type.isAssignableFrom(BigDecimal.class)) {
+            return ResultSet::getBigDecimal;
+        } else if (type.isAssignableFrom(InputStream.class)) {
+            return ResultSet::getBinaryStream;
+        } else if (type.isAssignableFrom(Blob.class)) {
+            return ResultSet::getBlob;
+        } else if (type.isAssignableFrom(boolean.class)) {
+            return ResultSet::getBoolean;
+        } else if (type.isAssignableFrom(byte.class)) {
+            return ResultSet::getByte;
+        } else if (type.isAssignableFrom(byte[].class)) {
+            return ResultSet::getBytes;
+        } else if (type.isAssignableFrom(Reader.class)) {
+            return ResultSet::getCharacterStream;
+        } else if (type.isAssignableFrom(Clob.class)) {
+            return ResultSet::getClob;
+        } else if (type.isAssignableFrom(java.util.Date.class)) {
+            return ResultSet::getDate;
+        } else if (type.isAssignableFrom(double.class)) {
+            return ResultSet::getDouble;
+        } else if (type.isAssignableFrom(float.class)) {
+            return ResultSet::getFloat;
+        } else if (type.isAssignableFrom(int.class)) {
+            return ResultSet::getInt;
+        } else if (type.isAssignableFrom(long.class)) {
+            return ResultSet::getLong;
+        } else if (type.isAssignableFrom(Ref.class)) {
+            return ResultSet::getRef;
+        } else if (type.isAssignableFrom(short.class)) {
+            return ResultSet::getShort;
+        } else if (type.isAssignableFrom(SQLXML.class)) {
+            return ResultSet::getSQLXML;
+        } else if (type.isAssignableFrom(String.class)) {
+            return ResultSet::getString;
+        } else if (type.isAssignableFrom(Time.class)) {
+            return ResultSet::getTime;
+        } else if (type.isAssignableFrom(Timestamp.class)) {
+            return ResultSet::getTimestamp;
+        } else if (type.isAssignableFrom(URL.class)) {
+            return ResultSet::getURL;
+        } else if (type == Integer.class) {
+            return (resultSet, index) -> nullable(resultSet, resultSet.getInt(index));
+        } else if (type == Long.class) {
+            return (resultSet, index) -> nullable(resultSet, resultSet.getLong(index));
+        } else if (type == Double.class) {
+            return (resultSet, index) -> nullable(resultSet, resultSet.getDouble(index));
+        } else if (type == Float.class) {
+            return (resultSet, index) -> nullable(resultSet, resultSet.getFloat(index));
+        } else if (type == Short.class) {
+            return (resultSet, index) -> nullable(resultSet, resultSet.getShort(index));
+        } else if (type == Byte.class) {
+            return (resultSet, index) -> nullable(resultSet, resultSet.getByte(index));
+        } else if (type == Boolean.class) {
+            return (resultSet, index) -> nullable(resultSet, resultSet.getBoolean(index));
+        }
+        // 用字符串构造的对象实例
+        return (resultSet, index) -> {
+            String args = resultSet.getString(index);
+            return args == null ? null : Reflections.newInstance(type, args);
+        };
+    }
+
+    /**
+     * 基本类型读取方法返回的列值, 列值为NULL时返回null
+     *
+     * @param resultSet
+     * @param value
+     * @return
+     * @throws SQLException
+     */
+    private static Object nullable(ResultSet resultSet, Object value) throws SQLException {
+        return resultSet.wasNull() ? null : value;
+    }
+
+    /**
+     * 按列索引读取列值
+     */
+    private interface ColumnReader {
+        Object read(ResultSet resultSet, int index) throws SQLException;
+    }
+
+    /**
+     * 读取结果集当前记录的一列并赋值到实体对象
+     */
+    private interface ColumnBinder {
+        void bind(ResultSet resultSet, Object bean);
+    }
+
+    /**
+     * 映射计划的缓存键, 即结果集的列签名
+     */
+    private static class Labels {
+        private final String[] labels;
+        private final int hash;
+
+        Labels(String[] labels) {
+            this.labels = labels;
+            this.hash = Arrays.hashCode(labels);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Labels && Arrays.equals(labels, ((Labels) obj).labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
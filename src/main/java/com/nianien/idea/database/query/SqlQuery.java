@@ -2,6 +2,9 @@ package com.nianien.idea.database.query;
 
 import com.nianien.core.exception.ExceptionHandler;
 import com.nianien.core.io.Closer;
+import com.nianien.idea.database.datasource.RoutingDataSource;
+import com.nianien.idea.database.sql.BatchStatement;
+import com.nianien.idea.database.sql.SqlDialect;
 import com.nianien.idea.database.sql.SqlGenerator;
 import com.nianien.idea.database.sql.SqlStatement;
 import com.nianien.idea.database.table.DataField;
@@ -11,8 +14,17 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.sql.DataSource;
 
@@ -30,6 +42,38 @@ public class SqlQuery implements Query {
      * SqlStatement对象
      */
     protected ThreadLocal<SqlStatement> sqlStatement = new ThreadLocal<SqlStatement>();
+    /**
+     * 流式读取时每次从数据库获取的记录数
+     */
+    protected int fetchSize = 1000;
+    /**
+     * 数据库方言, 用于改写分页查询和计数查询, 未指定时根据数据库产品名称识别
+     */
+    protected volatile SqlDialect dialect;
+    /**
+     * 批量写入实体时每批提交的记录数
+     */
+    protected int batchSize = 1000;
+    /**
+     * 批量插入时是否将每批记录合并为一条多行insert语句
+     */
+    protected boolean multiValues;
+    /**
+     * 批量写入实体时是否在同一事务中执行
+     */
+    protected boolean batchTransactional;
+    /**
+     * 会话中每个连接缓存的PreparedStatement数, 为0时不缓存
+     */
+    protected int statementCacheSize;
+    /**
+     * 默认的查询超时时间, 单位为秒, 为0时不限制
+     */
+    protected int queryTimeout;
+    /**
+     * 当前线程打开的查询会话
+     */
+    protected ThreadLocal<QuerySession> session = new ThreadLocal<QuerySession>();
 
     /**
      * 构建方法,提供数据源
@@ -107,17 +151,47 @@ public class SqlQuery implements Query {
 
     @Override
     public List<Map<String, Object>> getRows(final int start, final int size) {
-        return executeQuery(resultSet -> ResultSetAdapter.getRows(resultSet, start, size));
+        SqlStatement paginated = paginate(start, size);
+        if (paginated == null) {
+            return executeQuery(resultSet -> ResultSetAdapter.getRows(resultSet, start, size));
+        }
+        return executeQuery(paginated, resultSet -> ResultSetAdapter.getRows(resultSet));
     }
 
     @Override
     public <T> List<T> getRows(final Class<T> clazz, final int start, final int size) {
-        return executeQuery(resultSet -> ResultSetAdapter.getRows(resultSet, start, size, clazz));
+        SqlStatement paginated = paginate(start, size);
+        if (paginated == null) {
+            return executeQuery(resultSet -> ResultSetAdapter.getRows(resultSet, start, size, clazz));
+        }
+        return executeQuery(paginated, resultSet -> ResultSetAdapter.getRows(resultSet, clazz));
+    }
+
+    @Override
+    public List<Map<String, Object>> getRowsAfter(String keyColumn, Object lastKey, int size) {
+        return executeQuery(seek(keyColumn, lastKey, size), resultSet -> ResultSetAdapter.getRows(resultSet));
+    }
+
+    @Override
+    public <T> List<T> getRowsAfter(final Class<T> clazz, String keyColumn, Object lastKey, int size) {
+        return executeQuery(seek(keyColumn, lastKey, size), resultSet -> ResultSetAdapter.getRows(resultSet, clazz));
     }
 
     @Override
     public int getRowsCount() {
-        return executeQuery(resultSet -> ResultSetAdapter.getRowsCount(resultSet));
+        SqlStatement count = dialect().count(getSqlStatement());
+        if (count == null) {
+            return executeQuery(resultSet -> ResultSetAdapter.getRowsCount(resultSet));
+        }
+        return executeQuery(count, resultSet -> {
+            List<Object> columns = ResultSetAdapter.getColumns(resultSet, 1);
+            return columns.isEmpty() ? 0 : ((Number) columns.get(0)).intValue();
+        });
+    }
+
+    @Override
+    public ColumnTable getColumnTable() {
+        return executeQuery(resultSet -> ResultSetAdapter.getColumnTable(resultSet));
     }
 
     @Override
@@ -130,6 +204,26 @@ public class SqlQuery implements Query {
         return executeQuery(resultSet -> ResultSetAdapter.getRowsMap(resultSet, name, clazz));
     }
 
+    @Override
+    public Stream<Map<String, Object>> stream() {
+        return stream(resultSet -> {
+            String[] labels = RowMapper.getColumnLabels(resultSet);
+            return rs -> ResultSetAdapter.getRow(rs, labels);
+        });
+    }
+
+    @Override
+    public <T> Stream<T> stream(final Class<T> clazz) {
+        return stream(resultSet -> RowMapper.of(clazz, resultSet)::map);
+    }
+
+    @Override
+    public <T> void forEach(Class<T> clazz, Consumer<? super T> action) {
+        try (Stream<T> stream = stream(clazz)) {
+            stream.forEach(action);
+        }
+    }
+
     @Override
     public <T> void insert(T bean) {
         this.setSqlStatement(SqlGenerator.insertSql(bean)).executeUpdate();
@@ -148,18 +242,60 @@ public class SqlQuery implements Query {
 
     @Override
     public <T> T executeQuery(ResultSetHandler<T> rsh) {
+        return executeQuery(getSqlStatement(), rsh);
+    }
+
+    /**
+     * 执行指定的查询语句,返回ResultSetHandler接口实例对象rsh对查询的处理结果
+     *
+     * @param sqlStatement
+     * @param rsh
+     * @return
+     */
+    protected <T> T executeQuery(SqlStatement sqlStatement, ResultSetHandler<T> rsh) {
         PreparedStatement stmt = null;
         ResultSet rs = null;
         Connection connection = null;
         try {
-            connection = connection();
-            stmt = prepare(connection);
+            connection = connection(sqlStatement);
+            stmt = prepare(connection, sqlStatement);
             return rsh.handle((rs = stmt.executeQuery()));
         } catch (Exception e) {
             throw ExceptionHandler.throwException(e);
         } finally {
+            Closer.close(rs);
+            releaseStatement(stmt);
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * 执行查询,以流的形式逐行返回结果<br>
+     * 查询使用只进只读的游标并设置fetchSize, 流关闭或遍历结束时释放结果集、语句和连接<br>
+     * 流的生命周期内语句一直被占用, 因此不使用会话的语句缓存
+     *
+     * @param rowHandler 根据结果集创建行处理对象, 行处理对象将结果集的当前记录转换为T类型的对象
+     * @return
+     */
+    protected <T> Stream<T> stream(ResultSetHandler<ResultSetHandler<T>> rowHandler) {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        Connection connection = null;
+        try {
+            SqlStatement sqlStatement = getSqlStatement();
+            connection = connection(sqlStatement);
+            stmt = connection.prepareStatement(sqlStatement.preparedSql());
+            setParameters(stmt, 1, Arrays.asList(sqlStatement.preparedParameters()));
+            setQueryTimeout(stmt, sqlStatement.getQueryTimeout());
+            stmt.setFetchSize(fetchSize);
+            rs = stmt.executeQuery();
+            RowIterator<T> iterator = new RowIterator<T>(connection, stmt, rs, rowHandler.handle(rs));
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(iterator::close);
+        } catch (Exception e) {
             Closer.close(rs, stmt);
             releaseConnection(connection);
+            throw ExceptionHandler.throwException(e);
         }
     }
 
@@ -174,12 +310,119 @@ public class SqlQuery implements Query {
         } catch (Exception e) {
             throw ExceptionHandler.throwException(e);
         } finally {
-            Closer.close(stmt);
+            releaseStatement(stmt);
             releaseConnection(connection);
         }
     }
 
 
+    @Override
+    public <T> int insertAll(Collection<T> beans) {
+        if (beans.isEmpty()) {
+            return 0;
+        }
+        return executeBatch(BatchStatement.insert(entityClass(beans)), beans);
+    }
+
+    @Override
+    public <T> int updateAll(Collection<T> beans, String... conditionFields) {
+        if (beans.isEmpty()) {
+            return 0;
+        }
+        return executeBatch(BatchStatement.update(entityClass(beans), conditionFields), beans);
+    }
+
+    @Override
+    public <T> int deleteAll(Collection<T> beans, String... conditionFields) {
+        if (beans.isEmpty()) {
+            return 0;
+        }
+        return executeBatch(BatchStatement.delete(entityClass(beans), conditionFields), beans);
+    }
+
+    /**
+     * 使用同一个PreparedStatement批量执行实体对象的SQL语句, 每batchSize条记录提交一次<br>
+     * 如果启用了多行insert, 每批记录合并为一条insert语句执行; 如果启用了事务, 所有批次在同一事务中执行, 失败时回滚
+     *
+     * @param batch
+     * @param beans
+     * @return 影响的记录数
+     */
+    protected <T> int executeBatch(BatchStatement<T> batch, Collection<T> beans) {
+        Connection connection = null;
+        PreparedStatement stmt = null;
+        boolean autoCommit = true;
+        try {
+            connection = connection();
+            if (batchTransactional) {
+                autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+            }
+            int count = 0;
+            if (multiValues && batch.isInsert()) {
+                int bound = 0;
+                int rows = 0;
+                int index = 1;
+                for (T bean : beans) {
+                    if (rows == 0) {
+                        int remain = beans.size() - bound;
+                        if (stmt == null || remain < batchSize) {
+                            // 完整批次共用一条语句, 只有最后一批需要重新创建
+                            releaseStatement(stmt);
+                            stmt = prepareStatement(connection, batch.sql(Math.min(batchSize, remain)));
+                            setQueryTimeout(stmt, 0);
+                        }
+                    }
+                    index = setParameters(stmt, index, batch.parameters(bean));
+                    bound++;
+                    if (++rows == batchSize || bound == beans.size()) {
+                        count += stmt.executeUpdate();
+                        rows = 0;
+                        index = 1;
+                    }
+                }
+            } else {
+                stmt = prepareStatement(connection, batch.sql());
+                setQueryTimeout(stmt, 0);
+                int rows = 0;
+                for (T bean : beans) {
+                    setParameters(stmt, 1, batch.parameters(bean));
+                    stmt.addBatch();
+                    if (++rows == batchSize) {
+                        count += affected(stmt.executeBatch());
+                        rows = 0;
+                    }
+                }
+                if (rows > 0) {
+                    count += affected(stmt.executeBatch());
+                }
+            }
+            if (batchTransactional) {
+                connection.commit();
+            }
+            return count;
+        } catch (Exception e) {
+            if (batchTransactional && connection != null) {
+                try {
+                    connection.rollback();
+                } catch (SQLException ex) {
+                    //ignore
+                }
+            }
+            throw ExceptionHandler.throwException(e);
+        } finally {
+            releaseStatement(stmt);
+            if (batchTransactional && connection != null) {
+                try {
+                    connection.setAutoCommit(autoCommit);
+                } catch (SQLException e) {
+                    //ignore
+                }
+            }
+            releaseConnection(connection);
+        }
+    }
+
     @Override
     public int[] executeBatch(String... sqlList) {
         Connection connection = null;
@@ -187,6 +430,7 @@ public class SqlQuery implements Query {
         try {
             connection = connection();
             stmt = connection.createStatement();
+            setQueryTimeout(stmt, 0);
             for (String sql : sqlList) {
                 stmt.addBatch(sql);
             }
@@ -206,7 +450,8 @@ public class SqlQuery implements Query {
         PreparedStatement stmt = null;
         try {
             connection = connection();
-            stmt = connection.prepareStatement(sql);
+            stmt = prepareStatement(connection, sql);
+            setQueryTimeout(stmt, 0);
             for (Object[] parameters : parametersList) {
                 int i = 1;
                 for (Object p : parameters) {
@@ -218,18 +463,23 @@ public class SqlQuery implements Query {
         } catch (Exception e) {
             throw ExceptionHandler.throwException(e);
         } finally {
-            Closer.close(stmt);
+            releaseStatement(stmt);
             releaseConnection(connection);
         }
 
     }
 
     /**
-     * 获取数据库连接,可以调用{@link #releaseConnection(java.sql.Connection)}方法释放连接
+     * 获取数据库连接,可以调用{@link #releaseConnection(java.sql.Connection)}方法释放连接<br>
+     * 如果当前线程打开了查询会话, 则返回会话持有的连接
      *
      * @return
      */
     public Connection connection() {
+        QuerySession current = session.get();
+        if (current != null) {
+            return current.connection();
+        }
         try {
             return dataSource.getConnection();
         } catch (SQLException e) {
@@ -238,14 +488,259 @@ public class SqlQuery implements Query {
     }
 
     /**
-     * 释放数据库连接
+     * 获取执行指定语句的数据库连接<br>
+     * 如果语句为只读查询且数据源为{@link RoutingDataSource}, 则从只读副本获取连接; 会话中的语句总是使用会话持有的连接
+     *
+     * @param sqlStatement
+     * @return
+     */
+    protected Connection connection(SqlStatement sqlStatement) {
+        if (sqlStatement.isReadOnly() && session.get() == null && dataSource instanceof RoutingDataSource) {
+            try {
+                return ((RoutingDataSource) dataSource).getReadConnection();
+            } catch (SQLException e) {
+                throw ExceptionHandler.throwException(e);
+            }
+        }
+        return connection();
+    }
+
+    /**
+     * 为当前线程打开查询会话, 会话关闭前当前线程执行的查询共用同一个连接<br>
+     * 如果设置了statementCacheSize, 会话期间相同的SQL语句复用同一个PreparedStatement对象
+     *
+     * @return
+     */
+    public QuerySession openSession() {
+        ExceptionHandler.throwIf(session.get() != null, "query session has already been opened in current thread");
+        QuerySession current = new QuerySession(this, connection(), statementCacheSize);
+        session.set(current);
+        return current;
+    }
+
+    /**
+     * 获取当前线程打开的查询会话, 没有时返回null
+     *
+     * @return
+     */
+    public QuerySession currentSession() {
+        return session.get();
+    }
+
+    /**
+     * 解除会话与当前线程的绑定
+     *
+     * @param querySession
+     */
+    void closeSession(QuerySession querySession) {
+        if (session.get() == querySession) {
+            session.remove();
+        }
+    }
+
+    /**
+     * 设置会话中每个连接缓存的PreparedStatement数, 为0时不缓存<br>
+     * 语句缓存只在{@link #openSession()}打开的会话中生效, 不在会话中时连接在每次查询后释放, 语句随之关闭
+     *
+     * @param statementCacheSize
+     * @return
+     */
+    public SqlQuery setStatementCacheSize(int statementCacheSize) {
+        ExceptionHandler.throwIf(statementCacheSize < 0, "the value of statementCacheSize cannot be low than 0: " + statementCacheSize);
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+
+    /**
+     * 设置默认的查询超时时间, 参见{@link Statement#setQueryTimeout(int)}<br>
+     * 单条语句可以通过{@link SqlStatement#setQueryTimeout(int)}单独指定
+     *
+     * @param seconds 超时秒数, 为0时不限制
+     * @return
+     */
+    public SqlQuery setQueryTimeout(int seconds) {
+        ExceptionHandler.throwIf(seconds < 0, "the value of queryTimeout cannot be low than 0: " + seconds);
+        this.queryTimeout = seconds;
+        return this;
+    }
+
+    /**
+     * 默认的查询超时时间, 单位为秒
+     *
+     * @return
+     */
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * 设置流式读取时每次从数据库获取的记录数, 参见{@link Statement#setFetchSize(int)}<br>
+     * 对于MySQL, 需要在连接参数中指定useCursorFetch=true, 或者设置为Integer.MIN_VALUE以逐行读取
+     *
+     * @param fetchSize
+     * @return
+     */
+    public SqlQuery setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * 流式读取时每次从数据库获取的记录数
+     *
+     * @return
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * 设置批量写入实体时每批提交的记录数
+     *
+     * @param batchSize
+     * @return
+     */
+    public SqlQuery setBatchSize(int batchSize) {
+        ExceptionHandler.throwIf(batchSize < 1, "the value of batchSize cannot be low than 1: " + batchSize);
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * 设置批量插入时是否将每批记录合并为一条多行insert语句, 即insert into ... values(...),(...)<br>
+     * 适用于MySQL等支持多行VALUES的数据库, 可以大幅减少网络往返; 需要注意每批的参数个数不能超过数据库的限制
+     *
+     * @param multiValues
+     * @return
+     */
+    public SqlQuery setMultiValues(boolean multiValues) {
+        this.multiValues = multiValues;
+        return this;
+    }
+
+    /**
+     * 设置批量写入实体时是否在同一事务中执行, 任一批次失败时回滚全部批次
+     *
+     * @param batchTransactional
+     * @return
+     */
+    public SqlQuery setBatchTransactional(boolean batchTransactional) {
+        this.batchTransactional = batchTransactional;
+        return this;
+    }
+
+    /**
+     * 设置数据库方言, 用于改写分页查询和计数查询
+     *
+     * @param dialect
+     * @return
+     */
+    public SqlQuery setDialect(SqlDialect dialect) {
+        this.dialect = dialect;
+        return this;
+    }
+
+    /**
+     * 获取数据库方言, 未指定时根据数据库产品名称识别
+     *
+     * @return
+     */
+    public SqlDialect dialect() {
+        if (dialect == null) {
+            Connection connection = null;
+            try {
+                connection = connection();
+                dialect = SqlDialect.of(connection.getMetaData().getDatabaseProductName());
+            } catch (SQLException e) {
+                throw ExceptionHandler.throwException(e);
+            } finally {
+                releaseConnection(connection);
+            }
+        }
+        return dialect;
+    }
+
+    /**
+     * 将当前查询语句改写为分页查询
+     *
+     * @param start 起始值为1
+     * @param size
+     * @return 无法改写时返回null, 由客户端跳过记录
+     */
+    private SqlStatement paginate(int start, int size) {
+        ExceptionHandler.throwIf(start < 1, "the value of start cannot be low than 1: " + start);
+        return dialect().paginate(getSqlStatement(), start - 1, size);
+    }
+
+    /**
+     * 将当前查询语句改写为基于键值的分页查询
+     *
+     * @param keyColumn
+     * @param lastKey
+     * @param size
+     * @return
+     */
+    private SqlStatement seek(String keyColumn, Object lastKey, int size) {
+        SqlStatement seek = dialect().seek(getSqlStatement(), keyColumn, lastKey, size);
+        if (seek == null) {
+            throw new UnsupportedOperationException("keyset pagination is not supported by " + dialect() + ": " + getSqlStatement().preparedSql());
+        }
+        return seek;
+    }
+
+    /**
+     * 释放数据库连接, 会话持有的连接在会话关闭时释放
      *
      * @param connection
      */
     public void releaseConnection(Connection connection) {
+        QuerySession current = session.get();
+        if (current != null && current.connection() == connection) {
+            return;
+        }
         Closer.close(connection);
     }
 
+    /**
+     * 创建PreparedStatement对象, 如果连接属于当前会话且启用了语句缓存, 则从缓存中获取
+     *
+     * @param connection
+     * @param sql
+     * @return
+     * @throws SQLException
+     */
+    protected PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException {
+        StatementCache cache = statementCache(connection);
+        return cache != null ? cache.prepareStatement(sql) : connection.prepareStatement(sql);
+    }
+
+    /**
+     * 释放PreparedStatement对象, 由语句缓存管理的对象归还缓存, 不关闭
+     *
+     * @param stmt
+     */
+    protected void releaseStatement(Statement stmt) {
+        if (stmt == null) {
+            return;
+        }
+        QuerySession current = session.get();
+        if (current != null && current.getStatementCache() != null && current.getStatementCache().release(stmt)) {
+            return;
+        }
+        Closer.close(stmt);
+    }
+
+    /**
+     * 获取连接对应的语句缓存, 连接不属于当前会话或未启用缓存时返回null
+     *
+     * @param connection
+     * @return
+     */
+    private StatementCache statementCache(Connection connection) {
+        QuerySession current = session.get();
+        return current != null && current.connection() == connection ? current.getStatementCache() : null;
+    }
+
     /**
      * 创建PreparedStatement对象
      *
@@ -254,17 +749,140 @@ public class SqlQuery implements Query {
      * @throws SQLException
      */
     protected PreparedStatement prepare(Connection connection) throws SQLException {
-        SqlStatement sqlStatement = getSqlStatement();
-        PreparedStatement stmt = connection.prepareStatement(sqlStatement.preparedSql());
-        int i = 1;
-        for (DataField field : sqlStatement.preparedParameters()) {
+        return prepare(connection, getSqlStatement());
+    }
+
+    /**
+     * 根据指定的SqlStatement对象创建PreparedStatement对象
+     *
+     * @param connection
+     * @param sqlStatement
+     * @return
+     * @throws SQLException
+     */
+    protected PreparedStatement prepare(Connection connection, SqlStatement sqlStatement) throws SQLException {
+        PreparedStatement stmt = prepareStatement(connection, sqlStatement.preparedSql());
+        setParameters(stmt, 1, Arrays.asList(sqlStatement.preparedParameters()));
+        setQueryTimeout(stmt, sqlStatement.getQueryTimeout());
+        return stmt;
+    }
+
+    /**
+     * 设置语句的查询超时时间, timeout为0时采用默认的查询超时时间<br>
+     * 缓存复用的语句会保留上次设置的值, 因此即使超时时间为0也需要设置
+     *
+     * @param stmt
+     * @param timeout 单位为秒
+     * @throws SQLException
+     */
+    protected void setQueryTimeout(Statement stmt, int timeout) throws SQLException {
+        stmt.setQueryTimeout(timeout > 0 ? timeout : queryTimeout);
+    }
+
+    /**
+     * 从第index个占位符开始依次绑定参数, 返回下一个占位符的索引
+     *
+     * @param stmt
+     * @param index
+     * @param fields
+     * @return
+     * @throws SQLException
+     */
+    protected int setParameters(PreparedStatement stmt, int index, Iterable<DataField> fields) throws SQLException {
+        for (DataField field : fields) {
             if (field.type == null || field.type == DataField.GenericType) {
-                stmt.setObject(i++, field.value);
+                stmt.setObject(index++, field.value);
             } else {
-                stmt.setObject(i++, field.value, field.type.getVendorTypeNumber());
+                stmt.setObject(index++, field.value, field.type.getVendorTypeNumber());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 获取实体对象的类型
+     *
+     * @param beans
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> entityClass(Collection<T> beans) {
+        return (Class<T>) beans.iterator().next().getClass();
+    }
+
+    /**
+     * 统计批量执行影响的记录数, 对于返回{@link Statement#SUCCESS_NO_INFO}的语句, 按影响一条记录计算
+     *
+     * @param counts
+     * @return
+     */
+    private static int affected(int[] counts) {
+        int sum = 0;
+        for (int count : counts) {
+            sum += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return sum;
+    }
+
+    /**
+     * 逐行读取结果集的迭代器, 持有查询相关的数据库资源, 遍历结束或关闭时释放
+     *
+     * @param <T>
+     */
+    private class RowIterator<T> implements Iterator<T>, AutoCloseable {
+        private final Connection connection;
+        private final Statement stmt;
+        private final ResultSet rs;
+        private final ResultSetHandler<T> rowHandler;
+        /**
+         * 游标是否已指向待读取的记录
+         */
+        private boolean fetched;
+        private boolean closed;
+
+        RowIterator(Connection connection, Statement stmt, ResultSet rs, ResultSetHandler<T> rowHandler) {
+            this.connection = connection;
+            this.stmt = stmt;
+            this.rs = rs;
+            this.rowHandler = rowHandler;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (!fetched) {
+                try {
+                    fetched = rs.next();
+                } catch (SQLException e) {
+                    close();
+                    throw ExceptionHandler.throwException(e);
+                }
+                if (!fetched) {
+                    close();
+                }
+            }
+            return fetched;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            fetched = false;
+            return rowHandler.handle(rs);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                Closer.close(rs, stmt);
+                releaseConnection(connection);
             }
         }
-        return stmt;
     }
 
 }
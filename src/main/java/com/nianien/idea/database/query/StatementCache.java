@@ -0,0 +1,158 @@
+package com.nianien.idea.database.query;
+
+import com.nianien.core.collection.map.LruMap;
+import com.nianien.core.io.Closer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * 单个数据库连接上的PreparedStatement缓存, 以SQL语句为键值, 按照LRU策略淘汰<br>
+ * 语句被淘汰或缓存关闭时才真正关闭, 复用前清除上次绑定的参数和批量命令<br>
+ * 语句从获取到归还期间处于占用状态, 例如在ResultSetHandler中嵌套执行相同的SQL语句时, 外层语句的结果集仍未关闭,
+ * 此时创建不缓存的新语句; 占用中的语句被淘汰时不关闭, 由归还方关闭<br>
+ * 该类不是线程安全的, 应当与所属连接在同一线程中使用
+ *
+ * @author skyfalling
+ */
+public class StatementCache implements AutoCloseable {
+
+    /**
+     * 所属连接
+     */
+    private final Connection connection;
+    /**
+     * 缓存的语句
+     */
+    private final LruMap<String, PreparedStatement> statements;
+    /**
+     * 缓存中的语句对象, 用于判断语句是否由缓存管理
+     */
+    private final Set<Statement> cached = Collections.newSetFromMap(new IdentityHashMap<Statement, Boolean>());
+    /**
+     * 已经取出尚未归还的缓存语句
+     */
+    private final Set<Statement> inUse = Collections.newSetFromMap(new IdentityHashMap<Statement, Boolean>());
+    /**
+     * 命中次数
+     */
+    private long hits;
+    /**
+     * 未命中次数
+     */
+    private long misses;
+
+    /**
+     * 构造方法,指定所属连接和缓存的语句数上限
+     *
+     * @param connection
+     * @param maxSize
+     */
+    public StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.statements = new LruMap<String, PreparedStatement>(maxSize, (sql, stmt) -> {
+            cached.remove(stmt);
+            if (!inUse.remove(stmt)) {
+                Closer.close(stmt);
+            }
+        });
+    }
+
+    /**
+     * 获取SQL语句对应的PreparedStatement对象, 缓存中不存在时创建并缓存<br>
+     * 缓存的语句正在被占用时, 返回不缓存的新语句, 使用后应调用{@link #release(Statement)}归还
+     *
+     * @param sql
+     * @return
+     * @throws SQLException
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt != null) {
+            if (inUse.contains(stmt)) {
+                misses++;
+                return connection.prepareStatement(sql);
+            }
+            hits++;
+            stmt.clearParameters();
+            stmt.clearBatch();
+            inUse.add(stmt);
+            return stmt;
+        }
+        misses++;
+        stmt = connection.prepareStatement(sql);
+        statements.put(sql, stmt);
+        cached.add(stmt);
+        inUse.add(stmt);
+        return stmt;
+    }
+
+    /**
+     * 归还语句, 由缓存管理的语句解除占用并保持打开
+     *
+     * @param stmt
+     * @return 语句由缓存管理时返回true, 否则调用方应当关闭语句
+     */
+    public boolean release(Statement stmt) {
+        if (cached.contains(stmt)) {
+            inUse.remove(stmt);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 判断语句是否由缓存管理, 由缓存管理的语句使用后不应关闭
+     *
+     * @param stmt
+     * @return
+     */
+    public boolean contains(Statement stmt) {
+        return cached.contains(stmt);
+    }
+
+    /**
+     * 缓存命中次数
+     *
+     * @return
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * 缓存未命中次数, 即创建语句的次数
+     *
+     * @return
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * 当前缓存的语句数
+     *
+     * @return
+     */
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * 关闭并清除缓存的全部语句, 不关闭所属连接
+     */
+    @Override
+    public void close() {
+        for (PreparedStatement stmt : statements.values()) {
+            Closer.close(stmt);
+        }
+        statements.clear();
+        cached.clear();
+        inUse.clear();
+    }
+}
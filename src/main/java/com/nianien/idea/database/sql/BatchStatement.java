@@ -0,0 +1,258 @@
+package com.nianien.idea.database.sql;
+
+import com.nianien.core.exception.ExceptionHandler;
+import com.nianien.idea.database.table.DataField;
+import com.nianien.idea.database.table.DataTable;
+import com.nianien.idea.database.table.DataTableFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 批量执行的SQL语句模板<br/>
+ * 根据实体类型的{@link DataTable}信息生成固定的SQL语句和参数字段, 所有实体对象共用同一条SQL语句, 每个实体对象只需按字段顺序绑定参数<br/>
+ * 与单条语句不同的是, 批量语句的字段不随字段值变化: null字段同样写入, 条件字段统一使用"="匹配<br/>
+ * 批量语句按照(实体类型, 语句类型, 条件字段)缓存, 多行insert语句随之复用
+ *
+ * @param <T>
+ * @author skyfalling
+ */
+public class BatchStatement<T> {
+
+    /**
+     * 实体类型到(语句类型和条件字段, 批量语句)的映射
+     */
+    private final static ClassValue<Map<String, BatchStatement<?>>> statements = new ClassValue<Map<String, BatchStatement<?>>>() {
+        @Override
+        protected Map<String, BatchStatement<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<String, BatchStatement<?>>();
+        }
+    };
+
+    /**
+     * 实体表
+     */
+    private final DataTable<T> table;
+    /**
+     * SQL语句的前缀, 对于insert语句, 即values之前的部分
+     */
+    private final String sql;
+    /**
+     * 每条记录的占位符, 仅用于insert语句, 其他语句为null
+     */
+    private final String values;
+    /**
+     * 按照占位符顺序排列的参数字段
+     */
+    private final String[] fieldNames;
+    /**
+     * 多行insert语句的缓存, 键值为行数
+     */
+    private final Map<Integer, String> multiValuesSql = new ConcurrentHashMap<Integer, String>();
+
+    private BatchStatement(DataTable<T> table, String sql, String values, List<String> fieldNames) {
+        this.table = table;
+        this.sql = sql;
+        this.values = values;
+        this.fieldNames = fieldNames.toArray(new String[fieldNames.size()]);
+    }
+
+    /**
+     * 构建批量insert语句, 写入实体的全部字段
+     *
+     * @param entityClass
+     * @param <T>
+     * @return
+     */
+    public static <T> BatchStatement<T> insert(Class<T> entityClass) {
+        return cached(entityClass, "insert", () -> createInsert(entityClass));
+    }
+
+    /**
+     * 构建批量update语句, 按照条件字段更新其余全部字段<br/>
+     * 如果未指定conditionFields, 则按键值更新
+     *
+     * @param entityClass
+     * @param conditionFields 条件字段,不分大小写
+     * @param <T>
+     * @return
+     */
+    public static <T> BatchStatement<T> update(Class<T> entityClass, String... conditionFields) {
+        return cached(entityClass, key("update", conditionFields), () -> createUpdate(entityClass, conditionFields));
+    }
+
+    /**
+     * 构建批量delete语句, 按照条件字段删除<br/>
+     * 如果未指定conditionFields, 则按键值删除
+     *
+     * @param entityClass
+     * @param conditionFields 条件字段,不分大小写
+     * @param <T>
+     * @return
+     */
+    public static <T> BatchStatement<T> delete(Class<T> entityClass, String... conditionFields) {
+        return cached(entityClass, key("delete", conditionFields), () -> createDelete(entityClass, conditionFields));
+    }
+
+    /**
+     * 获取实体类对应的数据表
+     *
+     * @param entityClass
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> DataTable<T> table(Class<T> entityClass) {
+        return DataTableFactory.get(entityClass);
+    }
+
+    private static <T> BatchStatement<T> createInsert(Class<T> entityClass) {
+        DataTable<T> table = table(entityClass);
+        List<String> fieldNames = new ArrayList<String>(table.getFieldNames());
+        StringBuilder names = new StringBuilder();
+        StringBuilder values = new StringBuilder("(");
+        for (String fieldName : fieldNames) {
+            if (names.length() > 0) {
+                names.append(SqlOperator.Stop.toString());
+                values.append(SqlOperator.Stop.toString());
+            }
+            names.append(fieldName);
+            values.append("?");
+        }
+        values.append(")");
+        return new BatchStatement<T>(table, "insert into " + table.getName() + " (" + names + ") values", values.toString(), fieldNames);
+    }
+
+    private static <T> BatchStatement<T> createUpdate(Class<T> entityClass, String... conditionFields) {
+        DataTable<T> table = table(entityClass);
+        List<String> conditions = conditionFields(table, conditionFields);
+        List<String> fieldNames = new ArrayList<String>();
+        StringBuilder sql = new StringBuilder("update ").append(table.getName()).append(" set ");
+        for (String fieldName : table.getFieldNames()) {
+            if (conditions.contains(fieldName)) {
+                continue;
+            }
+            if (!fieldNames.isEmpty()) {
+                sql.append(" ").append(SqlOperator.Stop.toString()).append(" ");
+            }
+            sql.append(SqlOperator.Equal.toSQL(fieldName));
+            fieldNames.add(fieldName);
+        }
+        ExceptionHandler.throwIf(fieldNames.isEmpty(), "required at least one field to update in table[" + table.getType() + "]");
+        fieldNames.addAll(conditions);
+        return new BatchStatement<T>(table, whereSql(sql, conditions), null, fieldNames);
+    }
+
+    private static <T> BatchStatement<T> createDelete(Class<T> entityClass, String... conditionFields) {
+        DataTable<T> table = table(entityClass);
+        List<String> conditions = conditionFields(table, conditionFields);
+        return new BatchStatement<T>(table, whereSql(new StringBuilder("delete from ").append(table.getName()), conditions), null, conditions);
+    }
+
+    /**
+     * 单条记录的SQL语句
+     *
+     * @return
+     */
+    public String sql() {
+        return values != null ? sql + values : sql;
+    }
+
+    /**
+     * 一次写入多条记录的insert语句, 即insert into ... values(...),(...),...<br/>
+     * 仅insert语句支持
+     *
+     * @param rows 记录数
+     * @return
+     */
+    public String sql(int rows) {
+        ExceptionHandler.throwIf(!isInsert(), "multi-row values is only supported by insert statement");
+        String multiValues = multiValuesSql.get(rows);
+        if (multiValues == null) {
+            StringBuilder sb = new StringBuilder(sql.length() + rows * (values.length() + 1));
+            sb.append(sql);
+            for (int i = 0; i < rows; i++) {
+                sb.append(i > 0 ? SqlOperator.Stop.toString() : "").append(values);
+            }
+            multiValues = sb.toString();
+            multiValuesSql.put(rows, multiValues);
+        }
+        return multiValues;
+    }
+
+    /**
+     * 是否为insert语句
+     *
+     * @return
+     */
+    public boolean isInsert() {
+        return values != null;
+    }
+
+    /**
+     * 实体对象按照占位符顺序排列的参数
+     *
+     * @param entity
+     * @return
+     */
+    public List<DataField> parameters(T entity) {
+        return table.getFields(entity, fieldNames);
+    }
+
+    /**
+     * 从缓存中获取批量语句, 不存在时创建
+     *
+     * @param entityClass
+     * @param key         语句类型和条件字段
+     * @param creator
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> BatchStatement<T> cached(Class<T> entityClass, String key, Supplier<BatchStatement<T>> creator) {
+        return (BatchStatement<T>) statements.get(entityClass).computeIfAbsent(key, (k) -> creator.get());
+    }
+
+    /**
+     * 语句的缓存键, 条件字段按原样区分, 大小写不同的条件字段生成相同的语句
+     *
+     * @param type
+     * @param conditionFields
+     * @return
+     */
+    private static String key(String type, String[] conditionFields) {
+        return conditionFields == null || conditionFields.length == 0 ? type : type + ":" + String.join(",", conditionFields);
+    }
+
+    /**
+     * 获取条件字段的名称, 未指定时使用键值字段
+     *
+     * @param table
+     * @param conditionFields
+     * @return
+     */
+    private static List<String> conditionFields(DataTable<?> table, String[] conditionFields) {
+        List<String> conditions = new ArrayList<String>();
+        if (conditionFields == null || conditionFields.length == 0) {
+            conditions.add(table.getIdName());
+        } else {
+            for (String fieldName : conditionFields) {
+                conditions.add(table.getFieldName(fieldName));
+            }
+        }
+        return conditions;
+    }
+
+    private static String whereSql(StringBuilder sql, Collection<String> conditions) {
+        String separator = " where ";
+        for (String condition : conditions) {
+            sql.append(separator).append(SqlOperator.Equal.toSQL(condition));
+            separator = " " + SqlOperator.And.toString() + " ";
+        }
+        return sql.toString();
+    }
+}
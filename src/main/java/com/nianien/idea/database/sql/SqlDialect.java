@@ -0,0 +1,342 @@
+package com.nianien.idea.database.sql;
+
+import com.nianien.idea.database.table.DataField;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 数据库方言, 负责将SQL语句改写为分页查询和计数查询, 使分页和计数在数据库端完成<br/>
+ * 分页参数以占位符的形式绑定, 相同SQL不同页码生成的语句保持一致<br/>
+ * 无法改写的语句(非SELECT语句, 已经包含分页或锁定子句的语句等)返回null, 由调用方在客户端遍历结果集完成分页和计数
+ *
+ * @author skyfalling
+ */
+public enum SqlDialect {
+
+    /**
+     * MySQL/MariaDB
+     */
+    MYSQL,
+    /**
+     * PostgreSQL
+     */
+    POSTGRESQL,
+    /**
+     * H2数据库
+     */
+    H2,
+    /**
+     * SQLite数据库
+     */
+    SQLITE,
+    /**
+     * Oracle 12c及以上版本
+     */
+    ORACLE {
+        @Override
+        public SqlStatement paginate(SqlStatement statement, int offset, int size) {
+            return fetch(statement, offset, size);
+        }
+    },
+    /**
+     * SQL Server 2012及以上版本, 分页查询必须包含ORDER BY子句, 原始语句没有时补充ORDER BY (SELECT NULL)<br/>
+     * 派生表中的ORDER BY子句必须与TOP或OFFSET同时使用, 因此键值分页时去掉原始语句末尾的ORDER BY子句, 由外层按键值排序
+     */
+    SQLSERVER {
+        @Override
+        public SqlStatement paginate(SqlStatement statement, int offset, int size) {
+            String sql = topLevel(statement.preparedSql());
+            if (findOrderBy(sql) >= 0) {
+                return fetch(statement, offset, size);
+            }
+            // TOP不能与OFFSET同时使用, 集合运算的ORDER BY只能引用查询列
+            if (!isPaginable(sql) || TOP_OR_SET.matcher(sql).find()) {
+                return null;
+            }
+            return fetch(statement.wrap("", "").append("order by (select null)"), offset, size);
+        }
+
+        @Override
+        public SqlStatement seek(SqlStatement statement, String keyColumn, Object lastKey, int size) {
+            return super.seek(removeOrderBy(statement), keyColumn, lastKey, size);
+        }
+    },
+    /**
+     * DB2
+     */
+    DB2 {
+        @Override
+        public SqlStatement paginate(SqlStatement statement, int offset, int size) {
+            return fetch(statement, offset, size);
+        }
+    },
+    /**
+     * 标准SQL:2008的OFFSET/FETCH语法
+     */
+    ANSI {
+        @Override
+        public SqlStatement paginate(SqlStatement statement, int offset, int size) {
+            return fetch(statement, offset, size);
+        }
+    },
+    /**
+     * 无法识别的数据库, 不改写SQL语句
+     */
+    UNKNOWN {
+        @Override
+        public SqlStatement paginate(SqlStatement statement, int offset, int size) {
+            return null;
+        }
+
+        @Override
+        public SqlStatement seek(SqlStatement statement, String keyColumn, Object lastKey, int size) {
+            return null;
+        }
+
+        @Override
+        public SqlStatement count(SqlStatement statement) {
+            return null;
+        }
+    };
+
+    /**
+     * 最外层的ORDER BY子句
+     */
+    private final static Pattern ORDER_BY = Pattern.compile("\\border\\s+by\\b");
+    /**
+     * 查询语句的起始关键字
+     */
+    private final static Pattern SELECT = Pattern.compile("^\\s*select\\b");
+    /**
+     * 不能出现在派生表中的子句, 如FOR UPDATE和SELECT INTO
+     */
+    private final static Pattern FOR_OR_INTO = Pattern.compile("\\b(for|into)\\b");
+    /**
+     * 分页子句
+     */
+    private final static Pattern LIMIT = Pattern.compile("\\b(limit|offset|fetch)\\b");
+    /**
+     * ORDER BY子句之后不能去掉的子句
+     */
+    private final static Pattern AFTER_ORDER_BY = Pattern.compile("\\b(limit|offset|fetch|union|for)\\b");
+    /**
+     * SQL Server中不能补充ORDER BY (SELECT NULL)的子句
+     */
+    private final static Pattern TOP_OR_SET = Pattern.compile("\\b(top|union|intersect|except)\\b");
+
+    /**
+     * 将SQL语句改写为分页查询, 跳过offset条记录后取size条, 默认采用LIMIT/OFFSET语法
+     *
+     * @param statement 原始查询语句
+     * @param offset    跳过的记录数, 起始值为0
+     * @param size      获取的记录数
+     * @return 新的SqlStatement对象, 原始语句不变; 不是SELECT语句或者已经包含分页、锁定子句时返回null
+     */
+    public SqlStatement paginate(SqlStatement statement, int offset, int size) {
+        if (!isPaginable(topLevel(statement.preparedSql()))) {
+            return null;
+        }
+        SqlStatement paginated = statement.wrap("", "");
+        return offset > 0 ? paginated.append("limit ? offset ?", size, offset) : paginated.append("limit ?", size);
+    }
+
+    /**
+     * 将SQL语句改写为基于键值的分页查询(keyset/seek), 取键值大于lastKey的size条记录<br/>
+     * 相比OFFSET分页, 数据库可以直接通过键值索引定位起始记录, 查询代价与页码无关<br/>
+     * 原始语句作为子查询, 结果按照键值升序排列, lastKey为null时取第一页
+     *
+     * @param statement 原始查询语句, 结果中必须包含键值列
+     * @param keyColumn 键值列, 应当唯一且有索引
+     * @param lastKey   上一页最后一条记录的键值
+     * @param size      获取的记录数
+     * @return 新的SqlStatement对象, 原始语句不变; 原始语句不能作为子查询时返回null
+     */
+    public SqlStatement seek(SqlStatement statement, String keyColumn, Object lastKey, int size) {
+        if (!isQuery(topLevel(statement.preparedSql()))) {
+            return null;
+        }
+        SqlStatement seek = statement.wrap("select * from (", ") t_seek");
+        if (lastKey != null) {
+            seek.append("where " + keyColumn + " > ?", lastKey);
+        }
+        return paginate(seek.append("order by " + keyColumn), 0, size);
+    }
+
+    /**
+     * 将SQL语句改写为计数查询, 返回结果集的第一列即为原始查询的记录数<br/>
+     * 如果原始语句以ORDER BY子句结尾, 该子句对计数没有意义, 改写时连同其中的参数一起去掉
+     *
+     * @param statement 原始查询语句
+     * @return 新的SqlStatement对象, 原始语句不变; 原始语句不能作为子查询时返回null
+     */
+    public SqlStatement count(SqlStatement statement) {
+        if (!isQuery(topLevel(statement.preparedSql()))) {
+            return null;
+        }
+        return removeOrderBy(statement).wrap("select count(*) from (", ") t_count");
+    }
+
+    /**
+     * 根据数据库产品名称获取方言, 参见{@link java.sql.DatabaseMetaData#getDatabaseProductName()}<br/>
+     * 无法识别时返回{@link #UNKNOWN}
+     *
+     * @param productName
+     * @return
+     */
+    public static SqlDialect of(String productName) {
+        String name = productName == null ? "" : productName.toLowerCase();
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return MYSQL;
+        } else if (name.contains("postgres")) {
+            return POSTGRESQL;
+        } else if (name.contains("h2")) {
+            return H2;
+        } else if (name.contains("sqlite")) {
+            return SQLITE;
+        } else if (name.contains("oracle")) {
+            return ORACLE;
+        } else if (name.contains("sql server")) {
+            return SQLSERVER;
+        } else if (name.contains("db2")) {
+            return DB2;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * 采用OFFSET/FETCH语法分页
+     *
+     * @param statement
+     * @param offset
+     * @param size
+     * @return 不能分页时返回null
+     */
+    private static SqlStatement fetch(SqlStatement statement, int offset, int size) {
+        if (!isPaginable(topLevel(statement.preparedSql()))) {
+            return null;
+        }
+        return statement.wrap("", "").append("offset ? rows fetch next ? rows only", offset, size);
+    }
+
+    /**
+     * 去掉SQL语句末尾位于最外层的ORDER BY子句, 以及子句中的参数
+     *
+     * @param statement
+     * @return 不存在可以去掉的ORDER BY子句时, 返回原始语句
+     */
+    private static SqlStatement removeOrderBy(SqlStatement statement) {
+        String sql = statement.preparedSql();
+        int orderBy = trailingOrderBy(sql);
+        if (orderBy < 0) {
+            return statement;
+        }
+        // 参数按占位符的顺序排列, ORDER BY子句中的参数位于末尾
+        List<DataField> parameters = Arrays.asList(statement.preparedParameters());
+        parameters = parameters.subList(0, parameters.size() - placeholders(sql, orderBy));
+        String prefix = sql.substring(0, orderBy).trim();
+        return SqlStatement.prepared(prefix, prefix, parameters).setQueryTimeout(statement.getQueryTimeout()).setReadOnly(statement.isReadOnly());
+    }
+
+    /**
+     * 统计SQL语句从start开始, 字符串之外的占位符个数
+     *
+     * @param sql
+     * @param start
+     * @return
+     */
+    private static int placeholders(String sql, int start) {
+        int count = 0;
+        for (int i = start; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = sql.indexOf(c, i + 1);
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 是否为可以作为子查询的SELECT语句
+     *
+     * @param topLevel 只保留最外层的SQL语句, 参见{@link #topLevel(String)}
+     * @return
+     */
+    private static boolean isQuery(String topLevel) {
+        return SELECT.matcher(topLevel).find() && !FOR_OR_INTO.matcher(topLevel).find();
+    }
+
+    /**
+     * 是否为可以追加分页子句的SELECT语句
+     *
+     * @param topLevel 只保留最外层的SQL语句, 参见{@link #topLevel(String)}
+     * @return
+     */
+    private static boolean isPaginable(String topLevel) {
+        return isQuery(topLevel) && !LIMIT.matcher(topLevel).find();
+    }
+
+    /**
+     * 查找最外层最后一个ORDER BY子句的位置, 不存在时返回-1
+     *
+     * @param topLevel 只保留最外层的SQL语句, 参见{@link #topLevel(String)}
+     * @return
+     */
+    private static int findOrderBy(String topLevel) {
+        Matcher matcher = ORDER_BY.matcher(topLevel);
+        int orderBy = -1;
+        while (matcher.find()) {
+            orderBy = matcher.start();
+        }
+        return orderBy;
+    }
+
+    /**
+     * 查找SQL语句末尾位于最外层的ORDER BY子句的位置, 不存在时返回-1<br/>
+     * ORDER BY子句之后如果还有分页子句, 同样返回-1
+     *
+     * @param sql 含占位符的SQL语句
+     * @return
+     */
+    private static int trailingOrderBy(String sql) {
+        String topLevel = topLevel(sql);
+        int orderBy = findOrderBy(topLevel);
+        if (orderBy < 0 || AFTER_ORDER_BY.matcher(topLevel).region(orderBy, topLevel.length()).find()) {
+            return -1;
+        }
+        return orderBy;
+    }
+
+    /**
+     * 将SQL语句转为小写, 并将字符串和括号内的内容替换为空格, 只保留最外层的语句, 字符位置不变
+     *
+     * @param sql
+     * @return
+     */
+    private static String topLevel(String sql) {
+        char[] chars = sql.toLowerCase().toCharArray();
+        int depth = 0;
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (c == '\'' || c == '"') {
+                int end = sql.indexOf(c, i + 1);
+                end = end < 0 ? chars.length - 1 : end;
+                Arrays.fill(chars, i, end + 1, ' ');
+                i = end;
+            } else if (c == '(') {
+                depth++;
+                chars[i] = ' ';
+            } else if (c == ')') {
+                depth--;
+                chars[i] = ' ';
+            } else if (depth > 0) {
+                chars[i] = ' ';
+            }
+        }
+        return new String(chars);
+    }
+}
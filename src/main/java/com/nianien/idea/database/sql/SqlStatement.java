@@ -8,8 +8,11 @@ import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
 /**
@@ -55,6 +58,21 @@ public class SqlStatement {
             new String[]{"'", "\"", "\n", "*/"};
 
 
+    /**
+     * 缓存的SQL语句数上限
+     */
+    private static final int MAX_TEMPLATES = 1024;
+
+    /**
+     * 已解析SQL语句的缓存, 键值为原始SQL语句, 读取不加锁
+     */
+    private static final ConcurrentMap<String, SqlTemplate> templates = new ConcurrentHashMap<String, SqlTemplate>();
+
+    /**
+     * 按参数个数缓存的占位符, 用于数组和集合参数的扩展
+     */
+    private static final String[] PLACEHOLDERS = new String[256];
+
     /**
      * SQL语句占位符?对应的参数值
      */
@@ -67,6 +85,14 @@ public class SqlStatement {
      * 原始SQL语句
      */
     private final StringBuilder originalSql = new StringBuilder();
+    /**
+     * 查询超时时间, 单位为秒, 为0时采用执行者的默认值
+     */
+    private int queryTimeout;
+    /**
+     * 是否为只读查询, 只读查询可以路由到只读副本
+     */
+    private boolean readOnly;
 
 
     /**
@@ -268,19 +294,119 @@ public class SqlStatement {
         return this;
     }
 
+    /**
+     * 在SQL语句的前后分别添加前缀和后缀, 返回新的SqlStatement对象, 参数保持不变<br/>
+     * 前缀和后缀不作解析, 因此不能包含参数
+     *
+     * @param prefix
+     * @param suffix
+     * @return
+     */
+    public SqlStatement wrap(String prefix, String suffix) {
+        return prepared(prefix + preparedSql() + suffix, prefix + originalSql() + suffix, preparedParameters).setQueryTimeout(queryTimeout).setReadOnly(readOnly);
+    }
+
+    /**
+     * 设置该语句的查询超时时间, 参见{@link java.sql.Statement#setQueryTimeout(int)}
+     *
+     * @param seconds 超时秒数, 为0时采用执行者的默认值
+     * @return
+     */
+    public SqlStatement setQueryTimeout(int seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("the value of queryTimeout cannot be low than 0: " + seconds);
+        }
+        this.queryTimeout = seconds;
+        return this;
+    }
+
+    /**
+     * 该语句的查询超时时间, 单位为秒, 为0时采用执行者的默认值
+     *
+     * @return
+     */
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * 标记该语句为只读查询, 参见{@link com.nianien.idea.database.datasource.RoutingDataSource}
+     *
+     * @param readOnly
+     * @return
+     */
+    public SqlStatement setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+        return this;
+    }
+
+    /**
+     * 是否为只读查询
+     *
+     * @return
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
     @Override
     public String toString() {
         return originalSql.toString();
     }
 
+    /**
+     * 根据解析后的SQL语句和参数创建SqlStatement对象
+     *
+     * @param preparedSql
+     * @param originalSql
+     * @param preparedParameters
+     * @return
+     */
+    static SqlStatement prepared(String preparedSql, String originalSql, List<DataField> preparedParameters) {
+        SqlStatement statement = new SqlStatement();
+        statement.preparedSql.append(preparedSql).append(" ");
+        statement.originalSql.append(originalSql).append(" ");
+        statement.preparedParameters.addAll(preparedParameters);
+        return statement;
+    }
+
 
     /**
-     * 解析SQL语句,将形如[:x]的参数替换为符合JDBC规则的占位符.
+     * 解析SQL语句,将形如[:x]的参数替换为符合JDBC规则的占位符.<br/>
+     * 相同SQL语句的解析结果会被缓存, 这里只需代入参数值
      *
      * @param sql
      * @param parameters
      */
     private static void parseSql(String sql, Map<String, Object> parameters, StringBuilder originalSql, StringBuilder preparedSql, List<DataField> preparedParameters) {
+        SqlTemplate template = templates.get(sql);
+        if (template == null) {
+            template = parseTemplate(sql);
+            // 达到上限时淘汰任意一条, 动态拼接的SQL语句不会使缓存无限增长
+            Iterator<String> iterator = templates.keySet().iterator();
+            while (templates.size() >= MAX_TEMPLATES && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+            templates.putIfAbsent(sql, template);
+        }
+        for (int i = 0; i < template.names.length; i++) {
+            preparedSql.append(template.segments[i]);
+            substituteNamedParameter(preparedSql, parameters.get(template.names[i]), preparedParameters);
+        }
+        preparedSql.append(template.segments[template.names.length]);
+        originalSql.append(template.sql);
+    }
+
+    /**
+     * 解析SQL语句, 将其拆分为参数之间的SQL片段和按出现顺序排列的参数名称
+     *
+     * @param sql
+     * @return
+     */
+    private static SqlTemplate parseTemplate(String sql) {
+        List<String> segments = new ArrayList<String>();
+        List<String> names = new ArrayList<String>();
         //这里统计参数个数
         int totalCount = 0;
         int lastIndex = 0;
@@ -313,11 +439,9 @@ public class SqlStatement {
                     j++;
                 }
                 if (j - i > 1) {
-                    String paramName = sql.substring(i + 1, j);
-                    Object paramValue = parameters.get(paramName);
+                    names.add(sql.substring(i + 1, j));
                     totalCount++;
-                    preparedSql.append(sqlToUse, lastIndex, i - escapes);
-                    substituteNamedParameter(preparedSql, paramValue, preparedParameters);
+                    segments.add(sqlToUse.substring(lastIndex, i - escapes));
                     lastIndex = j - escapes;
                 }
                 i = j - 1;
@@ -332,19 +456,16 @@ public class SqlStatement {
                     }
                 }
                 if (c == '?') {
-                    String paramName = String.valueOf(totalCount);
-                    Object paramValue = parameters.get(paramName);
+                    names.add(String.valueOf(totalCount));
                     totalCount++;
-                    preparedSql.append(sqlToUse, lastIndex, i - escapes);
-                    substituteNamedParameter(preparedSql, paramValue, preparedParameters);
+                    segments.add(sqlToUse.substring(lastIndex, i - escapes));
                     lastIndex = j - escapes;
                 }
             }
             i++;
         }
-        preparedSql.append(sqlToUse, lastIndex, sqlToUse.length());
-
-        originalSql.append(sqlToUse);
+        segments.add(sqlToUse.substring(lastIndex));
+        return new SqlTemplate(sqlToUse, segments.toArray(new String[segments.size()]), names.toArray(new String[names.size()]));
     }
 
 
@@ -364,8 +485,16 @@ public class SqlStatement {
         } else if (paramValue instanceof Collection) {
             substituteNamedParameter(sqlBuilder, new DataField(dataField.name, ((Collection) paramValue).toArray(new Object[0]), dataField.type), preparedParameters);
         } else if (paramValue.getClass().isArray()) {
-            sqlBuilder.append("(");
             int length = Array.getLength(paramValue);
+            if (length > 0 && length < PLACEHOLDERS.length && isFlat(paramValue, length)) {
+                // 元素均为单值时, 直接使用缓存的占位符
+                sqlBuilder.append(placeholders(length));
+                for (int i = 0; i < length; i++) {
+                    preparedParameters.add(new DataField(dataField.name, Array.get(paramValue, i), dataField.type));
+                }
+                return;
+            }
+            sqlBuilder.append("(");
             for (int i = 0; i < length; i++) {
                 if (i > 0) {
                     sqlBuilder.append(",");
@@ -379,6 +508,44 @@ public class SqlStatement {
         }
     }
 
+    /**
+     * 数组元素是否均为单值, 即不是数组或集合, 且不是DataField对象
+     *
+     * @param array
+     * @param length
+     * @return
+     */
+    private static boolean isFlat(Object array, int length) {
+        if (array.getClass().getComponentType().isPrimitive()) {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            Object element = Array.get(array, i);
+            if (element instanceof DataField || element instanceof Collection || element != null && element.getClass().isArray()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取length个参数的占位符, 即(?,?...)
+     *
+     * @param length
+     * @return
+     */
+    private static String placeholders(int length) {
+        String placeholders = PLACEHOLDERS[length];
+        if (placeholders == null) {
+            StringBuilder sb = new StringBuilder(length * 2 + 1).append("(");
+            for (int i = 0; i < length; i++) {
+                sb.append(i > 0 ? ",?" : "?");
+            }
+            PLACEHOLDERS[length] = placeholders = sb.append(")").toString();
+        }
+        return placeholders;
+    }
+
     /**
      * Skip over comments and quoted names present in an SQL statement
      *
@@ -443,4 +610,22 @@ public class SqlStatement {
         return false;
     }
 
+    /**
+     * 解析后的SQL语句模板, 由参数之间的SQL片段和参数名称组成, 片段数比参数数多一
+     */
+    private static final class SqlTemplate {
+        /**
+         * 去掉转义字符后的SQL语句
+         */
+        private final String sql;
+        private final String[] segments;
+        private final String[] names;
+
+        SqlTemplate(String sql, String[] segments, String[] names) {
+            this.sql = sql;
+            this.segments = segments;
+            this.names = names;
+        }
+    }
+
 }
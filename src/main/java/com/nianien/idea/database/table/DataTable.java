@@ -1,5 +1,6 @@
 package com.nianien.idea.database.table;
 
+import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Set;
 
@@ -93,6 +94,14 @@ public interface DataTable<T> {
     Class getFieldType(String fieldName);
 
 
+    /**
+     * 获取指定字段的setter方法
+     *
+     * @param fieldName
+     * @return
+     */
+    Method getSetter(String fieldName);
+
     /**
      * 获取键值字段
      *
@@ -100,4 +109,11 @@ public interface DataTable<T> {
      */
     DataField idField(T entity);
 
+    /**
+     * 获取键值字段名称, 如果未定义键值字段, 则抛出异常信息
+     *
+     * @return
+     */
+    String getIdName();
+
 }
@@ -12,7 +12,11 @@ public class DataTableFactory {
     /**
      * 存储Datable实例的容器,针对每个Class类型全局唯一
      */
-    private final static Map<Class, DataTable> container = new ConcurrentHashMap<Class, DataTable>();
+    private final static Map<Class<?>, DataTable<?>> container = new ConcurrentHashMap<Class<?>, DataTable<?>>();
+    /**
+     * 采用默认表名的DataTable包装对象, 包装对象不可变, 可以共享
+     */
+    private final static Map<Class<?>, DataTable<?>> wrappers = new ConcurrentHashMap<Class<?>, DataTable<?>>();
 
     /**
      * 禁止实例化
@@ -26,15 +30,8 @@ public class DataTableFactory {
      * @param entityClass
      * @return
      */
-    private static DataTable register(Class entityClass) {
-        if (!container.containsKey(entityClass)) {
-            synchronized (entityClass) {
-                if (!container.containsKey(entityClass)) {
-                    container.put(entityClass, new DataTableImpl(entityClass));
-                }
-            }
-        }
-        return container.get(entityClass);
+    private static DataTable<?> register(Class<?> entityClass) {
+        return container.computeIfAbsent(entityClass, (type) -> new DataTableImpl<>(type));
     }
 
     /**
@@ -60,7 +57,7 @@ public class DataTableFactory {
      * @return
      */
     public static DataTable get(Class entityClass) {
-        return new DataTableWrapper(register(entityClass));
+        return wrappers.computeIfAbsent(entityClass, (type) -> new DataTableWrapper<Object>(register(type)));
     }
 
 
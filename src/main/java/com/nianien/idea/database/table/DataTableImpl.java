@@ -4,6 +4,7 @@ import com.nianien.core.annotation.Ignore;
 import com.nianien.core.collection.map.CaseInsensitiveMap;
 import com.nianien.core.exception.ExceptionHandler;
 import com.nianien.core.log.LoggerFactory;
+import com.nianien.core.reflect.ClassMetadata;
 import com.nianien.core.reflect.Reflections;
 
 import java.lang.reflect.Method;
@@ -11,6 +12,8 @@ import java.sql.SQLType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 /**
@@ -32,6 +35,10 @@ class DataTableImpl<T> implements DataTable<T> {
      * 字段属性列表
      */
     private CaseInsensitiveMap<String, FieldProperty> fieldProperties = new CaseInsensitiveMap<String, FieldProperty>();
+    /**
+     * 字段属性数组, 顺序与fieldProperties的遍历顺序一致, 用于遍历全部字段
+     */
+    private FieldProperty[] properties;
 
     /**
      * 键值字段
@@ -59,6 +66,7 @@ class DataTableImpl<T> implements DataTable<T> {
         if (idField == null) {
             logger.warning("no id field defined in table[" + type + "]");
         }
+        this.properties = fieldProperties.values().toArray(new FieldProperty[fieldProperties.size()]);
     }
 
 
@@ -79,8 +87,8 @@ class DataTableImpl<T> implements DataTable<T> {
 
     @Override
     public List<DataField> getFields(T entity) {
-        List<DataField> fields = new ArrayList<DataField>();
-        for (FieldProperty property : this.fieldProperties.values()) {
+        List<DataField> fields = new ArrayList<DataField>(properties.length);
+        for (FieldProperty property : properties) {
             fields.add(property.getField(entity));
         }
         return fields;
@@ -122,10 +130,20 @@ class DataTableImpl<T> implements DataTable<T> {
         return fieldProperties.get(fieldName).getter.getReturnType();
     }
 
+    @Override
+    public Method getSetter(String fieldName) {
+        return fieldProperty(fieldName).setter;
+    }
+
     @Override
     public DataField idField(T entity) {
+        return getField(entity, getIdName());
+    }
+
+    @Override
+    public String getIdName() {
         ExceptionHandler.throwIfNull(idField, new NoSuchFieldException("no id field declared in table[" + type + "]"));
-        return getField(entity, idField);
+        return idField;
     }
 
 
@@ -163,28 +181,44 @@ class DataTableImpl<T> implements DataTable<T> {
 
     /**
      * 字段相关属性信息,包括名称,sqlType类型,getter和setter方法<br/>
-     * 字段的getter和setter方法名必须保持一致,且getter方法的返回类型为setter的参数类型
+     * 字段的getter和setter方法名必须保持一致,且getter方法的返回类型为setter的参数类型<br/>
+     * 字段的读写通过{@link ClassMetadata.Accessor}绑定的函数完成, 避免每次调用时Method.invoke的访问检查和参数数组
      */
     public static class FieldProperty {
         final Method getter;
         final Method setter;
         final String name;
         final SQLType type;
+        /**
+         * getter方法绑定的函数
+         */
+        private final Function<Object, Object> getterFunction;
+        /**
+         * setter方法绑定的函数, 没有setter方法时为null
+         */
+        private final BiConsumer<Object, Object> setterFunction;
 
         FieldProperty(String name, SQLType type, Method getter, Method setter) {
             this.name = name;
             this.type = type;
             this.getter = getter;
             this.setter = setter;
+            this.getterFunction = ClassMetadata.accessor(getter).function();
+            this.setterFunction = setter != null ? ClassMetadata.accessor(setter).consumer() : null;
         }
 
         DataField getField(Object obj) {
-            return new DataField(name, Reflections.invoke(getter, obj), type);
+            return new DataField(name, getValue(obj), type);
+        }
+
+        Object getValue(Object obj) {
+            return getterFunction.apply(obj);
         }
 
         void setField(Object obj, Object value) {
-            Reflections.invoke(setter, obj, value);
+            ExceptionHandler.throwIfNull(setter, new NoSuchMethodException("no setter declared for field[" + name + "] in " + getter.getDeclaringClass()));
+            setterFunction.accept(obj, value);
         }
     }
 
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.nianien.idea.database.table;
 
+import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Set;
 
@@ -72,8 +73,18 @@ public class DataTableWrapper<T> implements DataTable<T> {
         return table.getFieldType(fieldName);
     }
 
+    @Override
+    public Method getSetter(String fieldName) {
+        return table.getSetter(fieldName);
+    }
+
     @Override
     public DataField idField(T entity) {
         return table.idField(entity);
     }
+
+    @Override
+    public String getIdName() {
+        return table.getIdName();
+    }
 }
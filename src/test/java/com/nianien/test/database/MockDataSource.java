@@ -0,0 +1,371 @@
+package com.nianien.test.database;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * 基于内存数据的数据源, 所有查询均返回同一份数据, 同时记录执行的SQL语句和打开的连接数, 用于不依赖数据库的测试
+ *
+ * @author skyfalling
+ */
+public class MockDataSource {
+
+    private final String[] labels;
+    private final Object[][] rows;
+    private final List<String> sqlList = Collections.synchronizedList(new ArrayList<String>());
+    private final List<List<Object>> parametersList = Collections.synchronizedList(new ArrayList<List<Object>>());
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger preparedStatements = new AtomicInteger();
+    private final AtomicInteger openStatements = new AtomicInteger();
+    private volatile int fetchSize;
+    private volatile int queryTimeout;
+    private volatile long delay;
+    private volatile int updateCount = -1;
+
+    /**
+     * 构造方法, 指定查询返回的列标签和数据
+     *
+     * @param labels
+     * @param rows
+     */
+    public MockDataSource(String[] labels, Object[][] rows) {
+        this.labels = labels;
+        this.rows = rows;
+    }
+
+    /**
+     * 获取数据源
+     *
+     * @return
+     */
+    public DataSource dataSource() {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class[]{DataSource.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        return connection();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * 执行过的SQL语句
+     *
+     * @return
+     */
+    public List<String> getSqlList() {
+        return sqlList;
+    }
+
+    /**
+     * 执行过的SQL语句的参数, 批量执行时每组参数为一项
+     *
+     * @return
+     */
+    public List<List<Object>> getParametersList() {
+        return parametersList;
+    }
+
+    /**
+     * 当前未关闭的连接数
+     *
+     * @return
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * 获取过的连接总数
+     *
+     * @return
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * 创建过的PreparedStatement总数
+     *
+     * @return
+     */
+    public int getPreparedStatements() {
+        return preparedStatements.get();
+    }
+
+    /**
+     * 当前未关闭的PreparedStatement数
+     *
+     * @return
+     */
+    public int getOpenStatements() {
+        return openStatements.get();
+    }
+
+    /**
+     * 最近一次设置的查询超时时间
+     *
+     * @return
+     */
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * 设置每次查询的耗时, 用于模拟慢查询
+     *
+     * @param millis
+     * @return
+     */
+    public MockDataSource setDelay(long millis) {
+        this.delay = millis;
+        return this;
+    }
+
+    /**
+     * 设置executeUpdate返回的影响记录数, 用于模拟部分记录未写入<br>
+     * 默认返回语句中的记录数, 即多行insert语句的行数, 其他语句为1
+     *
+     * @param updateCount
+     * @return
+     */
+    public MockDataSource setUpdateCount(int updateCount) {
+        this.updateCount = updateCount;
+        return this;
+    }
+
+    /**
+     * 最近一次设置的fetchSize
+     *
+     * @return
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    private Connection connection() {
+        openConnections.incrementAndGet();
+        connections.incrementAndGet();
+        boolean[] state = {false, true};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return statement((String) args[0]);
+                        case "close":
+                            if (!state[0]) {
+                                state[0] = true;
+                                openConnections.decrementAndGet();
+                            }
+                            return null;
+                        case "isClosed":
+                            return state[0];
+                        case "getAutoCommit":
+                            return state[1];
+                        case "setAutoCommit":
+                            state[1] = (Boolean) args[0];
+                            return null;
+                        case "commit":
+                        case "rollback":
+                            return null;
+                        case "isValid":
+                            return !state[0];
+                        case "getMetaData":
+                            return Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(),
+                                    new Class[]{DatabaseMetaData.class}, (p, m, a) -> {
+                                        if (m.getName().equals("getDatabaseProductName")) {
+                                            return "MySQL";
+                                        }
+                                        throw new UnsupportedOperationException(m.getName());
+                                    });
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private PreparedStatement statement(String sql) {
+        preparedStatements.incrementAndGet();
+        openStatements.incrementAndGet();
+        List<Object> parameters = new ArrayList<Object>();
+        int[] batched = {0};
+        boolean[] closed = {false};
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setObject":
+                            int index = (Integer) args[0];
+                            while (parameters.size() < index) {
+                                parameters.add(null);
+                            }
+                            parameters.set(index - 1, args[1]);
+                            return null;
+                        case "setFetchSize":
+                            fetchSize = (Integer) args[0];
+                            return null;
+                        case "executeQuery":
+                            if (delay > 0) {
+                                Thread.sleep(delay);
+                            }
+                            sqlList.add(sql);
+                            parametersList.add(new ArrayList<Object>(parameters));
+                            return resultSet(labels, rows);
+                        case "executeUpdate":
+                            sqlList.add(sql);
+                            parametersList.add(new ArrayList<Object>(parameters));
+                            return updateCount >= 0 ? updateCount : sql.split("\\),\\(", -1).length;
+                        case "addBatch":
+                            parametersList.add(new ArrayList<Object>(parameters));
+                            parameters.clear();
+                            batched[0]++;
+                            return null;
+                        case "executeBatch":
+                            sqlList.add(sql);
+                            int[] counts = new int[batched[0]];
+                            Arrays.fill(counts, 1);
+                            batched[0] = 0;
+                            return counts;
+                        case "clearParameters":
+                            parameters.clear();
+                            return null;
+                        case "clearBatch":
+                            batched[0] = 0;
+                            return null;
+                        case "close":
+                            if (!closed[0]) {
+                                closed[0] = true;
+                                openStatements.decrementAndGet();
+                            }
+                            return null;
+                        case "setQueryTimeout":
+                            queryTimeout = (Integer) args[0];
+                            return null;
+                        case "setMaxRows":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * 创建基于内存数据的只进结果集
+     *
+     * @param labels
+     * @param rows
+     * @return
+     */
+    public static ResultSet resultSet(String[] labels, Object[][] rows) {
+        ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+                new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return labels.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return labels[(Integer) args[0] - 1];
+                        case "getColumnType":
+                            return sqlType(rows, (Integer) args[0] - 1);
+                        case "getPrecision":
+                            return sqlType(rows, (Integer) args[0] - 1) == Types.DECIMAL ? 38 : 0;
+                        case "getScale":
+                            return sqlType(rows, (Integer) args[0] - 1) == Types.DECIMAL ? 10 : 0;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        int[] cursor = {0};
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class[]{ResultSet.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    switch (name) {
+                        case "next":
+                            return ++cursor[0] <= rows.length;
+                        case "getMetaData":
+                            return meta;
+                        case "getType":
+                            return ResultSet.TYPE_FORWARD_ONLY;
+                        case "getRow":
+                            return cursor[0];
+                        case "findColumn":
+                            return findColumn(labels, (String) args[0]);
+                        case "wasNull":
+                            return wasNull[0];
+                        case "close":
+                            return null;
+                    }
+                    if (name.startsWith("get") && args != null && args.length == 1) {
+                        int index = args[0] instanceof String ? findColumn(labels, (String) args[0]) : (Integer) args[0];
+                        Object value = rows[cursor[0] - 1][index - 1];
+                        wasNull[0] = value == null;
+                        Class<?> type = method.getReturnType();
+                        if (type == int.class) {
+                            return value == null ? 0 : ((Number) value).intValue();
+                        } else if (type == long.class) {
+                            return value == null ? 0L : ((Number) value).longValue();
+                        } else if (type == double.class) {
+                            return value == null ? 0d : ((Number) value).doubleValue();
+                        } else if (type == float.class) {
+                            return value == null ? 0f : ((Number) value).floatValue();
+                        } else if (type == short.class) {
+                            return value == null ? (short) 0 : ((Number) value).shortValue();
+                        } else if (type == byte.class) {
+                            return value == null ? (byte) 0 : ((Number) value).byteValue();
+                        } else if (type == boolean.class) {
+                            return value != null && (Boolean) value;
+                        } else if (type == String.class) {
+                            return value == null ? null : value.toString();
+                        }
+                        return value;
+                    }
+                    throw new UnsupportedOperationException(name + Arrays.toString(args));
+                });
+    }
+
+    /**
+     * 根据第一个非null值推断列的JDBC类型
+     */
+    private static int sqlType(Object[][] rows, int index) {
+        for (Object[] row : rows) {
+            Object value = row[index];
+            if (value instanceof Integer) {
+                return Types.INTEGER;
+            } else if (value instanceof Long) {
+                return Types.BIGINT;
+            } else if (value instanceof Double) {
+                return Types.DOUBLE;
+            } else if (value instanceof BigDecimal) {
+                return Types.DECIMAL;
+            } else if (value instanceof String) {
+                return Types.VARCHAR;
+            } else if (value != null) {
+                return Types.OTHER;
+            }
+        }
+        return Types.NULL;
+    }
+
+    private static int findColumn(String[] labels, String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("no such column: " + label);
+    }
+}
@@ -0,0 +1,67 @@
+package com.nianien.test.database;
+
+import com.nianien.core.util.TimeCounter;
+import com.nianien.idea.database.query.AsyncQuery;
+import com.nianien.idea.database.query.SqlQuery;
+import com.nianien.idea.database.sql.SqlStatement;
+import com.nianien.test.bean.User;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 测试查询的异步执行
+ *
+ * @author skyfalling
+ */
+public class TestAsyncQuery {
+
+    private final static String[] labels = {"uuid", "userId", "userName"};
+    private final static Object[][] rows = {{1, "user1", "name1"}, {2, "user2", "name2"}};
+
+    @Test
+    public void testAsync() throws Exception {
+        MockDataSource mock = new MockDataSource(labels, rows);
+        SqlQuery query = new SqlQuery(mock.dataSource()).setQueryTimeout(30);
+        try (AsyncQuery async = new AsyncQuery(query, 4)) {
+            query.setSqlStatement(new SqlStatement("select * from users"));
+            List<User> users = async.getRowsAsync(User.class).get();
+            assertEquals(2, users.size());
+            assertEquals(30, mock.getQueryTimeout());
+            // 单条语句的超时时间优先
+            User user = async.submit(new SqlStatement("select * from users where uuid = ?", 1).setQueryTimeout(5), q -> q.getFirstRow(User.class)).get();
+            assertEquals(1, user.getId());
+            assertEquals(5, mock.getQueryTimeout());
+            assertEquals(2, async.getRowsAsync().get().size());
+        }
+        assertEquals(0, mock.getOpenConnections());
+    }
+
+    @Test
+    public void testFanOut() throws Exception {
+        MockDataSource mock = new MockDataSource(labels, rows).setDelay(50);
+        SqlQuery query = new SqlQuery(mock.dataSource());
+        try (AsyncQuery async = AsyncQuery.virtual(query, 10)) {
+            TimeCounter tc = new TimeCounter();
+            List<CompletableFuture<List<User>>> futures = new ArrayList<CompletableFuture<List<User>>>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(async.submit(new SqlStatement("select * from users where uuid = ?", i), q -> q.getRows(User.class)));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+            tc.stop();
+            System.out.println("20 queries time cost:" + tc.timePassed());
+            for (CompletableFuture<List<User>> future : futures) {
+                assertEquals(2, future.get().size());
+            }
+            // 每批10个查询并发执行, 共两批
+            assertTrue(tc.timePassed() < 20 * 50);
+            assertEquals(20, mock.getConnections());
+        }
+    }
+}
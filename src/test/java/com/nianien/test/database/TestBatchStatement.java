@@ -0,0 +1,103 @@
+package com.nianien.test.database;
+
+import com.nianien.idea.database.query.SqlQuery;
+import com.nianien.idea.database.sql.BatchStatement;
+import com.nianien.test.bean.User;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 测试实体对象的批量写入
+ *
+ * @author skyfalling
+ */
+public class TestBatchStatement {
+
+    @Test
+    public void testSql() {
+        BatchStatement<User> insert = BatchStatement.insert(User.class);
+        System.out.println(insert.sql());
+        assertTrue(insert.sql().startsWith("insert into users ("));
+        assertTrue(insert.sql().endsWith(") values(?,?,?,?)"));
+        assertTrue(insert.sql(3).endsWith(") values(?,?,?,?),(?,?,?,?),(?,?,?,?)"));
+
+        BatchStatement<User> update = BatchStatement.update(User.class);
+        System.out.println(update.sql());
+        assertTrue(update.sql().startsWith("update users set "));
+        assertTrue(update.sql().endsWith(" where uuid = ?"));
+        assertEquals(4, update.parameters(user(1)).size());
+        assertEquals(1, update.parameters(user(1)).get(3).value);
+
+        BatchStatement<User> delete = BatchStatement.delete(User.class, "userid", "USERNAME");
+        assertEquals("delete from users where userId = ? and userName = ?", delete.sql());
+        assertEquals(Arrays.asList("user2", "name2"), Arrays.asList(delete.parameters(user(2)).get(0).value, delete.parameters(user(2)).get(1).value));
+
+        // 相同实体类型和条件字段的批量语句被缓存
+        assertSame(insert, BatchStatement.insert(User.class));
+        assertSame(update, BatchStatement.update(User.class));
+        assertSame(delete, BatchStatement.delete(User.class, "userid", "USERNAME"));
+        assertNotSame(delete, BatchStatement.delete(User.class));
+        assertSame(insert.sql(3), BatchStatement.insert(User.class).sql(3));
+    }
+
+    @Test
+    public void testBatch() {
+        MockDataSource mock = new MockDataSource(new String[0], new Object[0][]);
+        SqlQuery query = new SqlQuery(mock.dataSource()).setBatchSize(4);
+        assertEquals(10, query.insertAll(users(10)));
+        // 一条语句分3批提交
+        assertEquals(3, mock.getSqlList().size());
+        assertEquals(10, mock.getParametersList().size());
+        assertEquals(1, mock.getConnections());
+
+        assertEquals(10, query.deleteAll(users(10)));
+        assertEquals("delete from users where uuid = ?", mock.getSqlList().get(3));
+        assertEquals(Arrays.asList(1), mock.getParametersList().get(10));
+        assertEquals(0, query.updateAll(new ArrayList<User>()));
+        assertEquals(0, mock.getOpenConnections());
+    }
+
+    @Test
+    public void testMultiValues() {
+        MockDataSource mock = new MockDataSource(new String[0], new Object[0][]);
+        SqlQuery query = new SqlQuery(mock.dataSource()).setBatchSize(4).setMultiValues(true).setBatchTransactional(true);
+        assertEquals(10, query.insertAll(users(10)));
+        List<String> sqlList = mock.getSqlList();
+        assertEquals(3, sqlList.size());
+        assertTrue(sqlList.get(0).endsWith("(?,?,?,?),(?,?,?,?),(?,?,?,?),(?,?,?,?)"));
+        assertEquals(sqlList.get(0), sqlList.get(1));
+        assertTrue(sqlList.get(2).endsWith("values(?,?,?,?),(?,?,?,?)"));
+        assertEquals(16, mock.getParametersList().get(0).size());
+        assertEquals(8, mock.getParametersList().get(2).size());
+        assertEquals(0, mock.getOpenConnections());
+
+        // 返回语句实际影响的记录数
+        mock.setUpdateCount(3);
+        assertEquals(9, query.insertAll(users(10)));
+    }
+
+    private static List<User> users(int size) {
+        List<User> users = new ArrayList<User>();
+        for (int i = 1; i <= size; i++) {
+            users.add(user(i));
+        }
+        return users;
+    }
+
+    private static User user(int id) {
+        User user = new User();
+        user.setId(id);
+        user.setUserId("user" + id);
+        user.setUserName("name" + id);
+        return user;
+    }
+}
@@ -0,0 +1,96 @@
+package com.nianien.test.database;
+
+import com.nianien.core.util.TimeCounter;
+import com.nianien.idea.database.query.ColumnTable;
+import com.nianien.idea.database.query.ResultSetAdapter;
+import com.nianien.idea.database.query.SqlQuery;
+import com.nianien.idea.database.sql.SqlStatement;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static com.nianien.test.database.MockDataSource.resultSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 测试按列存储的查询结果
+ *
+ * @author skyfalling
+ */
+public class TestColumnTable {
+
+    private final static String[] labels = {"id", "amount", "price", "city", "rate"};
+
+    @Test
+    public void testColumns() {
+        Object[][] rows = {
+                {1, 100L, 1.5, "beijing", new BigDecimal("0.10")},
+                {2, null, 2.5, "shanghai", null},
+                {null, 300L, null, "beijing", new BigDecimal("0.30")},
+                {4, 400L, 4.5, null, new BigDecimal("0.40")}};
+        ColumnTable table = ResultSetAdapter.getColumnTable(resultSet(labels, rows));
+        assertEquals(4, table.getRowCount());
+        assertEquals(5, table.getColumnCount());
+        assertEquals(ColumnTable.ColumnType.INT, table.getColumn("ID").getType());
+        assertEquals(ColumnTable.ColumnType.LONG, table.getColumn(2).getType());
+        assertEquals(ColumnTable.ColumnType.DOUBLE, table.getColumn("price").getType());
+        assertEquals(ColumnTable.ColumnType.STRING, table.getColumn("city").getType());
+        assertEquals(ColumnTable.ColumnType.OBJECT, table.getColumn("rate").getType());
+
+        ColumnTable.Column id = table.getColumn("id");
+        assertEquals(2, id.getInt(1));
+        assertTrue(id.isNull(2));
+        assertNull(id.get(2));
+        assertEquals(3, id.count());
+        assertEquals(7, id.sum(), 0);
+
+        ColumnTable.Column amount = table.getColumn("amount");
+        assertEquals(800, amount.sum(), 0);
+        assertEquals(800 / 3.0, amount.avg(), 1e-9);
+        assertEquals(100, amount.min(), 0);
+        assertEquals(400, amount.max(), 0);
+
+        ColumnTable.StringColumn city = (ColumnTable.StringColumn) table.getColumn("city");
+        assertEquals(2, city.cardinality());
+        assertEquals(city.getCode(0), city.getCode(2));
+        assertEquals("shanghai", city.decode(city.getCode(1)));
+        assertEquals(-1, city.getCode(3));
+
+        assertEquals(0.8, table.getColumn("rate").sum(), 1e-9);
+        Map<String, Object> row = table.getRow(1);
+        assertEquals("shanghai", row.get("CITY"));
+        assertNull(row.get("amount"));
+        assertEquals(-1, table.indexOf("none"));
+    }
+
+    @Test
+    public void testQuery() {
+        MockDataSource mock = new MockDataSource(labels, new Object[][]{{1, 1L, 1.0, "a", null}});
+        SqlQuery query = new SqlQuery(mock.dataSource());
+        ColumnTable table = query.setSqlStatement(new SqlStatement("select * from report")).getColumnTable();
+        assertEquals(1, table.getRowCount());
+        assertFalse(table.getColumn("city").isNull(0));
+        assertEquals(0, mock.getOpenConnections());
+    }
+
+    @Test
+    public void testPerformance() {
+        int size = 1000000;
+        Object[][] rows = new Object[size][];
+        for (int i = 0; i < size; i++) {
+            rows[i] = new Object[]{i, (long) i, i * 0.5, "city" + i % 100, null};
+        }
+        TimeCounter tc = new TimeCounter();
+        ColumnTable table = ResultSetAdapter.getColumnTable(resultSet(labels, rows));
+        tc.stop();
+        System.out.println("columnar " + size + " rows time cost:" + tc.timePassed());
+        assertEquals(size, table.getRowCount());
+        assertEquals(100, ((ColumnTable.StringColumn) table.getColumn("city")).cardinality());
+        assertEquals((double) size * (size - 1) / 2, table.getColumn("amount").sum(), 0);
+    }
+}
@@ -0,0 +1,93 @@
+package com.nianien.test.database;
+
+import com.nianien.core.annotation.Ignore;
+import com.nianien.core.reflect.Reflections;
+import com.nianien.core.util.TimeCounter;
+import com.nianien.idea.database.table.DataField;
+import com.nianien.idea.database.table.DataTable;
+import com.nianien.idea.database.table.DataTableFactory;
+import com.nianien.idea.database.table.TableHelper;
+import com.nianien.test.bean.User;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 测试实体对象与字段列表之间的转换
+ *
+ * @author skyfalling
+ */
+public class TestDataTable {
+
+    @Test
+    public void testFields() {
+        DataTable<User> table = DataTableFactory.get(User.class);
+        User user = user(1);
+        List<DataField> fields = table.getFields(user, "uuid", "userName", "password");
+        assertEquals(1, fields.get(0).value);
+        assertEquals("name1", fields.get(1).value);
+        assertEquals(null, fields.get(2).value);
+        table.setField(user, "uuid", 2);
+        table.setField(user, "USERNAME", "name2");
+        table.setField(user, "password", null);
+        assertEquals(2, user.getId());
+        assertEquals("name2", user.getUserName());
+        assertEquals(2, table.idField(user).value);
+    }
+
+    /**
+     * 对比反射调用与属性访问器的字段读取开销
+     */
+    @Test
+    public void testPerformance() {
+        DataTable<User> table = DataTableFactory.get(User.class);
+        List<Method> getters = Reflections.getters(User.class, m -> !m.isAnnotationPresent(Ignore.class));
+        String[] names = new String[getters.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = TableHelper.getColumnName(getters.get(i));
+        }
+        int count = 1000000;
+        User user = user(1);
+        for (int i = 0; i < count; i++) {
+            reflectFields(getters, names, user);
+            table.getFields(user);
+        }
+        int size = 0;
+        for (int round = 0; round < 3; round++) {
+            TimeCounter tc = new TimeCounter();
+            for (int i = 0; i < count; i++) {
+                size += reflectFields(getters, names, user).size();
+            }
+            tc.stop();
+            long reflection = tc.timePassed();
+            tc.start();
+            for (int i = 0; i < count; i++) {
+                size -= table.getFields(user).size();
+            }
+            tc.stop();
+            System.out.println("round " + round + ", " + count + " entities time cost, reflection: " + reflection + ", accessor: " + tc.timePassed());
+        }
+        assertEquals(0, size);
+    }
+
+    private static List<DataField> reflectFields(List<Method> getters, String[] names, Object bean) {
+        List<DataField> fields = new ArrayList<DataField>();
+        for (int i = 0; i < names.length; i++) {
+            fields.add(new DataField(names[i], Reflections.invoke(getters.get(i), bean)));
+        }
+        return fields;
+    }
+
+    private static User user(int id) {
+        User user = new User();
+        user.setId(id);
+        user.setUserId("user" + id);
+        user.setUserName("name" + id);
+        return user;
+    }
+}
@@ -0,0 +1,138 @@
+package com.nianien.test.database;
+
+import com.nianien.idea.database.query.QuerySession;
+import com.nianien.idea.database.query.ResultSetAdapter;
+import com.nianien.idea.database.query.SqlQuery;
+import com.nianien.idea.database.query.StatementCache;
+import com.nianien.idea.database.sql.SqlStatement;
+import com.nianien.test.bean.User;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 测试查询会话和语句缓存
+ *
+ * @author skyfalling
+ */
+public class TestQuerySession {
+
+    private final static String[] labels = {"uuid", "userId", "userName"};
+    private final static Object[][] rows = {{1, "user1", "name1"}, {2, "user2", "name2"}};
+
+    @Test
+    public void testWithoutSession() {
+        MockDataSource mock = new MockDataSource(labels, rows);
+        SqlQuery query = new SqlQuery(mock.dataSource()).setStatementCacheSize(16);
+        for (int i = 0; i < 3; i++) {
+            query.setSqlStatement(new SqlStatement("select * from users where uuid = ?", i)).getRows(User.class);
+        }
+        // 不在会话中时语句不会被缓存
+        assertEquals(3, mock.getConnections());
+        assertEquals(3, mock.getPreparedStatements());
+        assertEquals(0, mock.getOpenStatements());
+        assertNull(query.currentSession());
+    }
+
+    @Test
+    public void testStatementCache() {
+        MockDataSource mock = new MockDataSource(labels, rows);
+        SqlQuery query = new SqlQuery(mock.dataSource()).setStatementCacheSize(2);
+        try (QuerySession session = query.openSession()) {
+            for (int i = 0; i < 5; i++) {
+                List<User> users = query.setSqlStatement(new SqlStatement("select * from users where uuid = ?", i)).getRows(User.class);
+                assertEquals(2, users.size());
+                query.setSqlStatement(new SqlStatement("update users set userName = ? where uuid = ?", "name", i)).executeUpdate();
+            }
+            assertEquals(1, mock.getConnections());
+            assertEquals(2, mock.getPreparedStatements());
+            assertEquals(8, session.getCacheHits());
+            assertEquals(2, session.getCacheMisses());
+            // 复用的语句只绑定本次参数
+            assertEquals(2, mock.getParametersList().get(9).size());
+
+            // 超过缓存上限时淘汰最久未使用的select语句
+            query.setSqlStatement(new SqlStatement("delete from users where uuid = ?", 1)).executeUpdate();
+            StatementCache cache = session.getStatementCache();
+            assertEquals(2, cache.size());
+            assertEquals(2, mock.getOpenStatements());
+            query.setSqlStatement(new SqlStatement("select * from users where uuid = ?", 1)).getRows();
+            assertEquals(4, session.getCacheMisses());
+
+            // 流式读取不使用语句缓存
+            List<String> names = query.stream(User.class).map(User::getUserName).collect(Collectors.toList());
+            assertEquals(2, names.size());
+            assertEquals(5, mock.getPreparedStatements());
+            assertEquals(1, mock.getOpenConnections());
+        }
+        assertEquals(0, mock.getOpenStatements());
+        assertEquals(0, mock.getOpenConnections());
+        assertNull(query.currentSession());
+    }
+
+    @Test
+    public void testNestedQuery() {
+        MockDataSource mock = new MockDataSource(labels, rows);
+        SqlQuery query = new SqlQuery(mock.dataSource()).setStatementCacheSize(1);
+        String sql = "select * from users where uuid = ?";
+        try (QuerySession session = query.openSession()) {
+            // 外层结果集未关闭时, 嵌套执行相同的SQL语句使用不缓存的新语句
+            List<Integer> sizes = query.setSqlStatement(new SqlStatement(sql, 1)).executeQuery(rs -> {
+                List<Integer> list = new ArrayList<Integer>();
+                list.add(query.setSqlStatement(new SqlStatement(sql, 2)).getRows().size());
+                assertEquals(2, mock.getPreparedStatements());
+                assertEquals(1, mock.getOpenStatements());
+                list.add(ResultSetAdapter.getRows(rs).size());
+                return list;
+            });
+            assertEquals(Arrays.asList(2, 2), sizes);
+            // 归还后的语句可以复用
+            query.setSqlStatement(new SqlStatement(sql, 3)).getRows();
+            assertEquals(2, mock.getPreparedStatements());
+            assertEquals(1, session.getCacheHits());
+
+            // 嵌套查询淘汰占用中的外层语句时不关闭, 由外层归还时关闭
+            int size = query.setSqlStatement(new SqlStatement(sql, 1)).executeQuery(rs -> {
+                query.setSqlStatement(new SqlStatement("select * from users")).getRows();
+                assertEquals(2, mock.getOpenStatements());
+                return ResultSetAdapter.getRows(rs).size();
+            });
+            assertEquals(2, size);
+            assertEquals(1, mock.getOpenStatements());
+            assertEquals(1, session.getStatementCache().size());
+        }
+        assertEquals(0, mock.getOpenStatements());
+    }
+
+    @Test
+    public void testBatchInSession() {
+        MockDataSource mock = new MockDataSource(labels, rows);
+        SqlQuery query = new SqlQuery(mock.dataSource()).setStatementCacheSize(16);
+        QuerySession session = query.openSession();
+        try {
+            for (int i = 0; i < 3; i++) {
+                query.executeBatch("insert into users (uuid) values (?)", new Object[][]{{1}, {2}});
+            }
+            assertEquals(1, mock.getPreparedStatements());
+            assertEquals(2, session.getCacheHits());
+        } finally {
+            session.close();
+        }
+        assertTrue(session.isClosed());
+        assertEquals(0, mock.getOpenConnections());
+        // 会话关闭后可以重新打开
+        try (QuerySession another = query.openSession()) {
+            assertFalse(another.isClosed());
+            assertEquals(0, another.getCacheHits());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.nianien.test.database;
+
+import com.nianien.idea.database.query.SqlQuery;
+import com.nianien.idea.database.sql.SqlStatement;
+import com.nianien.test.bean.User;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 测试查询结果的流式读取
+ *
+ * @author skyfalling
+ */
+public class TestQueryStream {
+
+    private final static String[] labels = {"uuid", "userId", "userName"};
+
+    @Test
+    public void testStream() {
+        MockDataSource mock = new MockDataSource(labels, rows(10000));
+        SqlQuery query = new SqlQuery(mock.dataSource()).setFetchSize(500);
+        query.setSqlStatement(new SqlStatement("select * from users"));
+        try (Stream<User> stream = query.stream(User.class)) {
+            assertEquals(1, mock.getOpenConnections());
+            assertEquals(500, mock.getFetchSize());
+            assertEquals(10000, stream.filter(user -> user.getUserId().startsWith("user")).count());
+        }
+        assertEquals(0, mock.getOpenConnections());
+
+        try (Stream<Map<String, Object>> stream = query.stream()) {
+            assertEquals("name3", stream.skip(2).findFirst().get().get("USERNAME"));
+        }
+        assertEquals(0, mock.getOpenConnections());
+    }
+
+    @Test
+    public void testForEach() {
+        MockDataSource mock = new MockDataSource(labels, rows(1000));
+        SqlQuery query = new SqlQuery(mock.dataSource());
+        AtomicInteger sum = new AtomicInteger();
+        query.setSqlStatement(new SqlStatement("select * from users")).forEach(User.class, user -> sum.addAndGet(user.getId()));
+        assertEquals(1000 * 1001 / 2, sum.get());
+        assertEquals(0, mock.getOpenConnections());
+    }
+
+    @Test
+    public void testExhausted() {
+        MockDataSource mock = new MockDataSource(labels, rows(3));
+        SqlQuery query = new SqlQuery(mock.dataSource());
+        Stream<User> stream = query.setSqlStatement(new SqlStatement("select * from users")).stream(User.class);
+        Iterator<User> iterator = stream.iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        assertEquals(3, count);
+        // 遍历结束时即释放连接
+        assertEquals(0, mock.getOpenConnections());
+        stream.close();
+        assertTrue(mock.getConnections() == 1);
+    }
+
+    private static Object[][] rows(int size) {
+        Object[][] rows = new Object[size][];
+        for (int i = 0; i < size; i++) {
+            int n = i + 1;
+            rows[i] = new Object[]{n, "user" + n, "name" + n};
+        }
+        return rows;
+    }
+}
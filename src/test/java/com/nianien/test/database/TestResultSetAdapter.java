@@ -0,0 +1,283 @@
+package com.nianien.test.database;
+
+import com.nianien.core.util.TimeCounter;
+import com.nianien.idea.database.query.ResultSetAdapter;
+import com.nianien.idea.database.query.RowMapper;
+import com.nianien.test.bean.User;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.nianien.test.database.MockDataSource.resultSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 基于内存数据的ResultSet测试结果集的转换, 不依赖数据库
+ *
+ * @author skyfalling
+ */
+public class TestResultSetAdapter {
+
+    private final static String[] labels = {"uuid", "USERID", "userName", "password", "extra"};
+
+    /**
+     * 包装类型字段的实体
+     */
+    public static class Account {
+        private Integer id;
+        private Long balance;
+        private Double rate;
+        private Short level;
+        private Boolean active;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public Long getBalance() {
+            return balance;
+        }
+
+        public void setBalance(Long balance) {
+            this.balance = balance;
+        }
+
+        public Double getRate() {
+            return rate;
+        }
+
+        public void setRate(Double rate) {
+            this.rate = rate;
+        }
+
+        public Short getLevel() {
+            return level;
+        }
+
+        public void setLevel(Short level) {
+            this.level = level;
+        }
+
+        public Boolean getActive() {
+            return active;
+        }
+
+        public void setActive(Boolean active) {
+            this.active = active;
+        }
+    }
+
+    /**
+     * 包含只读属性的实体
+     */
+    public static class Summary {
+        private String userName;
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public void setUserName(String userName) {
+            this.userName = userName;
+        }
+
+        public int getTotal() {
+            return 0;
+        }
+    }
+
+    private final static String[] accountLabels = {"id", "balance", "rate", "level", "active"};
+
+    @Test
+    public void testGetRows() {
+        List<User> users = ResultSetAdapter.getRows(resultSet(labels, rows(3)), User.class);
+        assertEquals(3, users.size());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            System.out.println(user);
+            assertEquals(i + 1, user.getId());
+            assertEquals("user" + (i + 1), user.getUserId());
+            assertEquals("name" + (i + 1), user.getUserName());
+        }
+        // null值不会覆盖字段
+        assertNull(users.get(0).getPassword());
+        assertEquals("pwd2", users.get(1).getPassword());
+
+        List<Map<String, Object>> maps = ResultSetAdapter.getRows(resultSet(labels, rows(3)));
+        assertEquals(3, maps.size());
+        assertEquals("user2", maps.get(1).get("userid"));
+        assertEquals(3, maps.get(2).get("UUID"));
+
+        Map<Object, User> usersMap = ResultSetAdapter.getRowsMap(resultSet(labels, rows(3)), "USERID", User.class);
+        assertEquals(2, usersMap.get("user2").getId());
+    }
+
+    @Test
+    public void testDuplicateColumns() {
+        String[] labels = {"userName", "username"};
+        Object[][] rows = {{"first", "second"}};
+        List<User> users = ResultSetAdapter.getRows(resultSet(labels, rows), User.class);
+        assertEquals("first", users.get(0).getUserName());
+    }
+
+    @Test
+    public void testWrappers() {
+        Object[][] rows = {{1, 100000L, 0.5d, 3, true}, {2, null, null, null, null}};
+        List<Account> accounts = ResultSetAdapter.getRows(resultSet(accountLabels, rows), Account.class);
+        Account account = accounts.get(0);
+        assertEquals(Integer.valueOf(1), account.getId());
+        assertEquals(Long.valueOf(100000L), account.getBalance());
+        assertEquals(Double.valueOf(0.5d), account.getRate());
+        assertEquals(Short.valueOf((short) 3), account.getLevel());
+        assertEquals(Boolean.TRUE, account.getActive());
+        // NULL列不赋值, 不会变为0或false
+        account = accounts.get(1);
+        assertNull(account.getBalance());
+        assertNull(account.getRate());
+        assertNull(account.getLevel());
+        assertNull(account.getActive());
+    }
+
+    @Test
+    public void testReadOnlyProperty() {
+        Object[][] rows = {{"name", 3}};
+        List<Summary> summaries = ResultSetAdapter.getRows(resultSet(new String[]{"userName", "total"}, rows), Summary.class);
+        assertEquals("name", summaries.get(0).getUserName());
+    }
+
+    @Test
+    public void testMapperCache() {
+        Object[][] rows = {{1, 2L, 0.5d, 3, true}};
+        RowMapper<Account> mapper = RowMapper.of(Account.class, resultSet(accountLabels, rows));
+        assertSame(mapper, RowMapper.of(Account.class, resultSet(accountLabels, rows)));
+        assertNotSame(mapper, RowMapper.of(Account.class, resultSet(new String[]{"id", "rate"}, rows)));
+        // 超过上限的列签名不再缓存, 已缓存的映射计划不受影响
+        for (int i = 0; i < 300; i++) {
+            RowMapper.of(Account.class, resultSet(new String[]{"id", "c" + i}, rows));
+        }
+        String[] labels = {"id", "c299"};
+        assertNotSame(RowMapper.of(Account.class, resultSet(labels, rows)), RowMapper.of(Account.class, resultSet(labels, rows)));
+        assertSame(mapper, RowMapper.of(Account.class, resultSet(accountLabels, rows)));
+    }
+
+    @Test
+    public void testPerformance() {
+        Object[][] rows = new Object[1000000][];
+        Arrays.fill(rows, new Object[]{1, "user", "name", "pwd", "extra"});
+        ResultSetAdapter.getRows(resultSet(labels, rows), User.class);
+        TimeCounter tc = new TimeCounter();
+        List<User> users = ResultSetAdapter.getRows(resultSet(labels, rows), User.class);
+        tc.stop();
+        assertEquals(rows.length, users.size());
+        System.out.println("getRows " + rows.length + " rows time cost:" + tc.timePassed());
+    }
+
+    /**
+     * 统计1M条记录映射为实体对象时每条记录分配的内存, 减去只读取列值时的分配量, 即为映射本身的开销
+     */
+    @Test
+    public void testAllocation() throws Exception {
+        int size = 1000000;
+        Object[] row = {100000, "user", "name", "pwd", "extra"};
+        Object[][] rows = new Object[size][];
+        Arrays.fill(rows, row);
+        RowMapper<User> mapper = RowMapper.of(User.class, resultSet(labels, rows));
+        // 预热
+        readRows(resultSet(labels, rows));
+        mapRows(mapper, resultSet(labels, rows));
+
+        ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = bean.getThreadAllocatedBytes(threadId);
+        readRows(resultSet(labels, rows));
+        long baseline = bean.getThreadAllocatedBytes(threadId) - allocated;
+        allocated = bean.getThreadAllocatedBytes(threadId);
+        User last = mapRows(mapper, resultSet(labels, rows));
+        long mapped = bean.getThreadAllocatedBytes(threadId) - allocated;
+        System.out.println("read columns: " + baseline / size + " bytes/row, map rows: " + mapped / size + " bytes/row");
+        assertEquals(100000, last.getId());
+        // 除实体对象和原始类型列值的装箱外不应有其他分配
+        assertTrue((mapped - baseline) / size <= 64);
+    }
+
+    /**
+     * 统计1M条记录映射为包装类型字段的实体时每条记录分配的内存, 包装类型不再通过字符串构造
+     */
+    @Test
+    public void testWrapperAllocation() throws Exception {
+        int size = 1000000;
+        Object[] row = {100000, 100000L, 0.5d, 300, true};
+        Object[][] rows = new Object[size][];
+        Arrays.fill(rows, row);
+        RowMapper<Account> mapper = RowMapper.of(Account.class, resultSet(accountLabels, rows));
+        // 预热
+        readAccounts(resultSet(accountLabels, rows));
+        mapRows(mapper, resultSet(accountLabels, rows));
+
+        ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = bean.getThreadAllocatedBytes(threadId);
+        readAccounts(resultSet(accountLabels, rows));
+        long baseline = bean.getThreadAllocatedBytes(threadId) - allocated;
+        allocated = bean.getThreadAllocatedBytes(threadId);
+        Account last = mapRows(mapper, resultSet(accountLabels, rows));
+        long mapped = bean.getThreadAllocatedBytes(threadId) - allocated;
+        System.out.println("read columns: " + baseline / size + " bytes/row, map rows: " + mapped / size + " bytes/row");
+        assertEquals(Long.valueOf(100000L), last.getBalance());
+        // 实体对象(32字节)和Integer、Long、Double、Short的装箱(各16字节), Boolean使用常量; 通过字符串构造时约800字节
+        assertTrue((mapped - baseline) / size <= 128);
+    }
+
+    private static void readAccounts(ResultSet resultSet) throws Exception {
+        while (resultSet.next()) {
+            resultSet.getInt(1);
+            resultSet.getLong(2);
+            resultSet.getDouble(3);
+            resultSet.getShort(4);
+            resultSet.getBoolean(5);
+        }
+    }
+
+    /**
+     * 按映射计划相同的方式读取列值, 用于扣除结果集自身的分配
+     */
+    private static void readRows(ResultSet resultSet) throws Exception {
+        while (resultSet.next()) {
+            resultSet.getInt(1);
+            resultSet.getString(2);
+            resultSet.getString(3);
+            resultSet.getString(4);
+        }
+    }
+
+    private static <T> T mapRows(RowMapper<T> mapper, ResultSet resultSet) throws Exception {
+        T user = null;
+        while (resultSet.next()) {
+            user = mapper.map(resultSet);
+        }
+        return user;
+    }
+
+    private static Object[][] rows(int size) {
+        Object[][] rows = new Object[size][];
+        for (int i = 0; i < size; i++) {
+            int n = i + 1;
+            rows[i] = new Object[]{n, "user" + n, "name" + n, n % 2 == 0 ? "pwd" + n : null, "extra"};
+        }
+        return rows;
+    }
+}
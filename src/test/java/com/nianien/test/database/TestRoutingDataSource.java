@@ -0,0 +1,162 @@
+package com.nianien.test.database;
+
+import com.nianien.idea.database.datasource.LoadBalance;
+import com.nianien.idea.database.datasource.Replica;
+import com.nianien.idea.database.datasource.RoutingDataSource;
+import com.nianien.idea.database.query.SqlQuery;
+import com.nianien.idea.database.sql.SqlDialect;
+import com.nianien.idea.database.sql.SqlStatement;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 测试读写分离的路由数据源
+ *
+ * @author skyfalling
+ */
+public class TestRoutingDataSource {
+
+    private final static String[] labels = {"uuid"};
+    private final static Object[][] rows = {{1}};
+
+    @Test
+    public void testRouting() {
+        MockDataSource primary = new MockDataSource(labels, rows);
+        MockDataSource replica1 = new MockDataSource(labels, rows);
+        MockDataSource replica2 = new MockDataSource(labels, rows);
+        RoutingDataSource routing = new RoutingDataSource(primary.dataSource())
+                .addReplica("replica1", replica1.dataSource())
+                .addReplica("replica2", replica2.dataSource());
+        SqlQuery query = new SqlQuery(routing).setDialect(SqlDialect.MYSQL);
+        query.setSqlStatement(new SqlStatement("update users set userName = ?", "who")).executeUpdate();
+        query.setSqlStatement(new SqlStatement("select * from users")).getRows();
+        assertEquals(2, primary.getConnections());
+        for (int i = 0; i < 4; i++) {
+            query.setSqlStatement(new SqlStatement("select * from users").setReadOnly(true)).getRows();
+        }
+        assertEquals(2, primary.getConnections());
+        assertEquals(2, replica1.getConnections());
+        assertEquals(2, replica2.getConnections());
+        // 分页和计数查询保持只读标记
+        query.setSqlStatement(new SqlStatement("select * from users").setReadOnly(true));
+        assertEquals(1, query.getRowsCount());
+        assertEquals(1, query.getRows(1, 10).size());
+        assertEquals(2, primary.getConnections());
+        assertEquals(6, replica1.getConnections() + replica2.getConnections());
+        for (Replica replica : routing.getReplicas()) {
+            assertEquals(0, replica.getActive());
+            assertTrue(replica.getLatency() > 0);
+        }
+    }
+
+    @Test
+    public void testEjection() throws Exception {
+        MockDataSource primary = new MockDataSource(labels, rows);
+        MockDataSource healthy = new MockDataSource(labels, rows);
+        AtomicBoolean down = new AtomicBoolean(true);
+        RoutingDataSource routing = new RoutingDataSource(primary.dataSource())
+                .addReplica("broken", broken(healthy.dataSource(), down))
+                .addReplica("healthy", healthy.dataSource())
+                .setEjection(2, 60000);
+        for (int i = 0; i < 10; i++) {
+            routing.getReadConnection().close();
+        }
+        // 失败的副本被跳过, 不会回退到主库
+        assertEquals(10, healthy.getConnections());
+        assertEquals(0, primary.getConnections());
+        Replica broken = routing.getReplicas().get(0);
+        assertFalse(broken.isAvailable());
+        assertEquals(2, broken.getFailures());
+
+        // 健康检查成功后恢复
+        down.set(false);
+        routing.checkHealth(1);
+        assertTrue(broken.isAvailable());
+        assertEquals(0, broken.getFailures());
+
+        // 全部副本不可用时回退到主库
+        down.set(true);
+        routing.setEjection(1, 60000);
+        routing.checkHealth(1);
+        assertFalse(broken.isAvailable());
+        RoutingDataSource allBroken = new RoutingDataSource(primary.dataSource())
+                .addReplica("broken", broken(healthy.dataSource(), down)).setEjection(1, 60000);
+        allBroken.getReadConnection().close();
+        assertEquals(1, primary.getConnections());
+        assertEquals(0, primary.getOpenConnections());
+    }
+
+    @Test
+    public void testLeastActive() throws Exception {
+        MockDataSource primary = new MockDataSource(labels, rows);
+        MockDataSource replica1 = new MockDataSource(labels, rows);
+        MockDataSource replica2 = new MockDataSource(labels, rows);
+        RoutingDataSource routing = new RoutingDataSource(primary.dataSource())
+                .addReplica("replica1", replica1.dataSource())
+                .addReplica("replica2", replica2.dataSource())
+                .setLoadBalance(LoadBalance.LEAST_ACTIVE);
+        List<Connection> connections = new ArrayList<Connection>();
+        for (int i = 0; i < 6; i++) {
+            connections.add(routing.getReadConnection());
+        }
+        assertEquals(3, routing.getReplicas().get(0).getActive());
+        assertEquals(3, routing.getReplicas().get(1).getActive());
+        // 活跃连接数相同时交替分配, 释放replica1的全部连接
+        for (int i = 0; i < connections.size(); i += 2) {
+            connections.get(i).close();
+        }
+        assertEquals(0, replica1.getOpenConnections());
+        assertEquals(0, routing.getReplicas().get(0).getActive());
+        // 新连接都分配给活跃连接数少的replica1
+        routing.getReadConnection();
+        routing.getReadConnection();
+        assertEquals(5, replica1.getConnections());
+        assertEquals(3, replica2.getConnections());
+    }
+
+    @Test
+    public void testLatencyWeighted() throws Exception {
+        MockDataSource primary = new MockDataSource(labels, rows);
+        MockDataSource replica1 = new MockDataSource(labels, rows);
+        MockDataSource replica2 = new MockDataSource(labels, rows);
+        RoutingDataSource routing = new RoutingDataSource(primary.dataSource())
+                .addReplica("replica1", replica1.dataSource())
+                .addReplica("replica2", slow(replica2.dataSource(), 20))
+                .setLoadBalance(LoadBalance.LATENCY_WEIGHTED);
+        routing.checkHealth(1);
+        for (int i = 0; i < 100; i++) {
+            routing.getReadConnection().close();
+        }
+        System.out.println(routing.getReplicas());
+        assertTrue(replica1.getConnections() > replica2.getConnections());
+    }
+
+    private static DataSource broken(DataSource dataSource, AtomicBoolean down) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class[]{DataSource.class}, (proxy, method, args) -> {
+            if (down.get()) {
+                throw new SQLException("connection refused");
+            }
+            return method.invoke(dataSource, args);
+        });
+    }
+
+    private static DataSource slow(DataSource dataSource, long millis) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class[]{DataSource.class}, (proxy, method, args) -> {
+            Thread.sleep(millis);
+            return method.invoke(dataSource, args);
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package com.nianien.test.database;
+
+import com.nianien.idea.database.query.SqlQuery;
+import com.nianien.idea.database.sql.SqlDialect;
+import com.nianien.idea.database.sql.SqlStatement;
+import com.nianien.test.bean.User;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * 测试分页查询和计数查询的改写
+ *
+ * @author skyfalling
+ */
+public class TestSqlDialect {
+
+    @Test
+    public void testPaginate() {
+        SqlStatement statement = new SqlStatement("select * from users where userName = ? order by id", "who");
+        SqlStatement paginated = SqlDialect.MYSQL.paginate(statement, 20, 10);
+        assertEquals("select * from users where userName = ? order by id limit ? offset ?", paginated.preparedSql());
+        assertArrayEquals(new Object[]{"who", 10, 20}, paginated.preparedRawParameters());
+        assertEquals("select * from users where userName = ? order by id limit ?", SqlDialect.MYSQL.paginate(statement, 0, 10).preparedSql());
+        paginated = SqlDialect.ORACLE.paginate(statement, 20, 10);
+        assertEquals("select * from users where userName = ? order by id offset ? rows fetch next ? rows only", paginated.preparedSql());
+        assertArrayEquals(new Object[]{"who", 20, 10}, paginated.preparedRawParameters());
+        // 原始语句不变
+        assertEquals("select * from users where userName = ? order by id", statement.preparedSql());
+        assertEquals(1, statement.preparedParameters().length);
+    }
+
+    @Test
+    public void testSqlServer() {
+        // OFFSET/FETCH必须与ORDER BY同时使用
+        SqlStatement statement = new SqlStatement("select * from users where userName = ?", "who");
+        SqlStatement paginated = SqlDialect.SQLSERVER.paginate(statement, 20, 10);
+        assertEquals("select * from users where userName = ? order by (select null) offset ? rows fetch next ? rows only", paginated.preparedSql());
+        assertArrayEquals(new Object[]{"who", 20, 10}, paginated.preparedRawParameters());
+        // 子查询和字符串中的order by不算在内
+        statement = new SqlStatement("select * from (select top 5 * from users order by id) u where name = 'order by'");
+        assertEquals(statement.preparedSql() + " order by (select null) offset ? rows fetch next ? rows only", SqlDialect.SQLSERVER.paginate(statement, 0, 10).preparedSql());
+        statement = new SqlStatement("select * from users order by id");
+        assertEquals("select * from users order by id offset ? rows fetch next ? rows only", SqlDialect.SQLSERVER.paginate(statement, 0, 10).preparedSql());
+        // TOP和集合运算无法补充ORDER BY, 由客户端分页
+        assertNull(SqlDialect.SQLSERVER.paginate(new SqlStatement("select top 100 * from users"), 0, 10));
+        assertNull(SqlDialect.SQLSERVER.paginate(new SqlStatement("select id from users union select id from admins"), 0, 10));
+        assertNull(SqlDialect.SQLSERVER.paginate(new SqlStatement("select * from users order by id offset 5 rows"), 0, 10));
+    }
+
+    @Test
+    public void testUnsupported() {
+        SqlStatement statement = new SqlStatement("select * from users");
+        assertEquals(SqlDialect.UNKNOWN, SqlDialect.of("Informix Dynamic Server"));
+        assertEquals(SqlDialect.UNKNOWN, SqlDialect.of(null));
+        assertNull(SqlDialect.UNKNOWN.paginate(statement, 0, 10));
+        assertNull(SqlDialect.UNKNOWN.count(statement));
+        assertNull(SqlDialect.UNKNOWN.seek(statement, "id", null, 10));
+        // 已经包含分页或锁定子句的语句不能再追加分页子句
+        assertNull(SqlDialect.MYSQL.paginate(new SqlStatement("select * from users limit 10"), 0, 10));
+        assertNull(SqlDialect.ORACLE.paginate(new SqlStatement("select * from users order by id fetch first 10 rows only"), 0, 10));
+        assertNull(SqlDialect.MYSQL.paginate(new SqlStatement("select * from users for update"), 0, 10));
+        assertNull(SqlDialect.MYSQL.count(new SqlStatement("select * from users for update")));
+        assertEquals("select * from users where name = 'limit' limit ?", SqlDialect.MYSQL.paginate(new SqlStatement("select * from users where name = 'limit'"), 0, 10).preparedSql());
+        // 非SELECT语句不能作为子查询
+        assertNull(SqlDialect.MYSQL.paginate(new SqlStatement("show tables"), 0, 10));
+        assertNull(SqlDialect.MYSQL.count(new SqlStatement("show tables")));
+        assertNull(SqlDialect.MYSQL.count(new SqlStatement("call list_users(?)", 1)));
+        assertNull(SqlDialect.POSTGRESQL.seek(new SqlStatement("call list_users(?)", 1), "id", null, 10));
+    }
+
+    @Test
+    public void testFallback() {
+        MockDataSource mock = new MockDataSource(new String[]{"uuid", "userName"}, new Object[][]{{1, "a"}, {2, "b"}, {3, "c"}});
+        SqlQuery query = new SqlQuery(mock.dataSource());
+        query.setSqlStatement(new SqlStatement("show users"));
+        List<User> users = query.getRows(User.class, 2, 1);
+        assertEquals(1, users.size());
+        assertEquals("b", users.get(0).getUserName());
+        assertEquals(3, query.getRowsCount());
+        query.setDialect(SqlDialect.UNKNOWN).setSqlStatement(new SqlStatement("select * from users"));
+        assertEquals("c", query.getRows(3, 10).get(0).get("userName"));
+        assertEquals(Arrays.asList("show users", "show users", "select * from users"), mock.getSqlList());
+        try {
+            query.getRowsAfter("uuid", null, 10);
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void testCount() {
+        SqlStatement statement = new SqlStatement("select * from users where userName = ? order by id desc", "who");
+        SqlStatement count = SqlDialect.MYSQL.count(statement);
+        assertEquals("select count(*) from (select * from users where userName = ?) t_count", count.preparedSql());
+        assertArrayEquals(new Object[]{"who"}, count.preparedRawParameters());
+        // 子查询和字符串中的order by保持不变
+        statement = new SqlStatement("select * from (select * from users order by id) u where name = 'order by'");
+        assertEquals("select count(*) from (" + statement.preparedSql() + ") t_count", SqlDialect.MYSQL.count(statement).preparedSql());
+        // 带分页的order by不能去掉
+        statement = new SqlStatement("select * from users order by id limit 10");
+        assertEquals("select count(*) from (" + statement.preparedSql() + ") t_count", SqlDialect.MYSQL.count(statement).preparedSql());
+        // order by中的参数一并去掉, 字符串中的问号不是参数
+        statement = new SqlStatement("select * from users where userName = ? order by field(id, ?), name = '?'", "who", 3);
+        count = SqlDialect.SQLSERVER.count(statement);
+        assertEquals("select count(*) from (select * from users where userName = ?) t_count", count.preparedSql());
+        assertArrayEquals(new Object[]{"who"}, count.preparedRawParameters());
+    }
+
+    @Test
+    public void testSeek() {
+        SqlStatement statement = new SqlStatement("select * from users where userName = ?", "who");
+        SqlStatement seek = SqlDialect.POSTGRESQL.seek(statement, "id", 100, 10);
+        assertEquals("select * from (select * from users where userName = ?) t_seek where id > ? order by id limit ?", seek.preparedSql());
+        assertArrayEquals(new Object[]{"who", 100, 10}, seek.preparedRawParameters());
+        seek = SqlDialect.POSTGRESQL.seek(statement, "id", null, 10);
+        assertEquals("select * from (select * from users where userName = ?) t_seek order by id limit ?", seek.preparedSql());
+        // SQL Server的派生表中不能单独使用order by
+        statement = new SqlStatement("select * from users where userName = ? order by name", "who");
+        seek = SqlDialect.SQLSERVER.seek(statement, "id", 100, 10);
+        assertEquals("select * from (select * from users where userName = ?) t_seek where id > ? order by id offset ? rows fetch next ? rows only", seek.preparedSql());
+        assertArrayEquals(new Object[]{"who", 100, 0, 10}, seek.preparedRawParameters());
+    }
+
+    @Test
+    public void testQuery() {
+        MockDataSource mock = new MockDataSource(new String[]{"uuid", "userName"}, new Object[][]{{3, "who"}});
+        SqlQuery query = new SqlQuery(mock.dataSource());
+        query.setSqlStatement(new SqlStatement("select * from users order by id"));
+        List<User> users = query.getRows(User.class, 21, 10);
+        assertEquals(1, users.size());
+        assertEquals(3, query.getRowsCount());
+        query.getRowsAfter("uuid", 100, 10);
+        assertEquals(SqlDialect.MYSQL, query.dialect());
+        assertEquals(Arrays.asList(
+                "select * from users order by id limit ? offset ?",
+                "select count(*) from (select * from users) t_count",
+                "select * from (select * from users order by id) t_seek where uuid > ? order by uuid limit ?"),
+                mock.getSqlList());
+        assertEquals(Arrays.asList(10, 20), mock.getParametersList().get(0));
+        assertEquals(0, mock.getOpenConnections());
+    }
+}
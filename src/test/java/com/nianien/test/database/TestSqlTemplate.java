@@ -0,0 +1,98 @@
+package com.nianien.test.database;
+
+import com.nianien.core.util.TimeCounter;
+import com.nianien.idea.database.sql.SqlStatement;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 测试SQL语句解析结果的缓存, 不依赖数据库
+ *
+ * @author skyfalling
+ */
+public class TestSqlTemplate {
+
+    @Test
+    public void testNamedParameters() {
+        String sql = "select * from users where id in :ids and userName = :name and note = ':skip' and created::date = ? and tag = '\\:x'";
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> parameters = new HashMap<String, Object>();
+            parameters.put("ids", new int[]{1, 2, i + 3});
+            parameters.put("name", "name" + i);
+            SqlStatement statement = new SqlStatement(sql, parameters);
+            System.out.println(statement.preparedSql());
+            assertEquals("select * from users where id in (?,?,?) and userName = ? and note = ':skip' and created::date = ? and tag = '\\:x'", statement.preparedSql());
+            assertArrayEquals(new Object[]{1, 2, i + 3, "name" + i, null}, statement.preparedRawParameters());
+        }
+        SqlStatement escaped = new SqlStatement("select 'a\\:b' from dual where id = \\:id");
+        assertEquals("select 'a\\:b' from dual where id = :id", escaped.preparedSql());
+    }
+
+    @Test
+    public void testPositionalParameters() {
+        String sql = "select * from users where id in ? and userName = ?";
+        SqlStatement statement = new SqlStatement(sql, Arrays.asList(1, 2), "who");
+        assertEquals("select * from users where id in (?,?) and userName = ?", statement.preparedSql());
+        assertArrayEquals(new Object[]{1, 2, "who"}, statement.preparedRawParameters());
+        statement = new SqlStatement(sql, new Object[]{new Object[]{1, 2}, new Integer[]{3}}, "who");
+        assertEquals("select * from users where id in ((?,?),(?)) and userName = ?", statement.preparedSql());
+        assertArrayEquals(new Object[]{1, 2, 3, "who"}, statement.preparedRawParameters());
+        assertEquals(sql, statement.originalSql());
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    Map<String, Object> parameters = new HashMap<String, Object>();
+                    parameters.put("id", i);
+                    SqlStatement statement = new SqlStatement("select * from t" + thread + " where id = :id and n = " + (i % 600), parameters);
+                    assertEquals("select * from t" + thread + " where id = ? and n = " + (i % 600), statement.preparedSql());
+                    assertArrayEquals(new Object[]{i}, statement.preparedRawParameters());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        Field field = SqlStatement.class.getDeclaredField("templates");
+        field.setAccessible(true);
+        // 并发插入时可能短暂超过上限, 但不会无限增长
+        assertTrue(((Map<?, ?>) field.get(null)).size() <= 1024 + threads);
+    }
+
+    @Test
+    public void testPerformance() {
+        String sql = "select * from users where id = :id and userName = :name and password = :password order by id";
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("id", 1);
+        parameters.put("name", "who");
+        parameters.put("password", "pwd");
+        TimeCounter tc = new TimeCounter();
+        for (int i = 0; i < 100000; i++) {
+            new SqlStatement(sql, parameters);
+        }
+        tc.stop();
+        System.out.println("parse 100000 statements time cost:" + tc.timePassed());
+    }
+}
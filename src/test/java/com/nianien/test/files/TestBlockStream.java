@@ -0,0 +1,48 @@
+package com.nianien.test.files;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nianien.core.io.BlockInputStream;
+import com.nianien.core.io.BlockOutputStream;
+import com.nianien.core.io.Files;
+import com.nianien.core.loader.ResourceLoader;
+
+public class TestBlockStream {
+
+    @Test
+    public void test() throws IOException {
+        File file = ResourceLoader.getFile("all200000.txt");
+        byte[] bytes = Files.getBytes(file);
+        byte[] compressed = compress(bytes);
+        Assert.assertTrue(compressed.length < bytes.length);
+        Assert.assertArrayEquals(bytes, Files.getBytes(new BlockInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test(expected = IOException.class)
+    public void testChecksum() throws IOException {
+        byte[] compressed = compress("hello world".getBytes());
+        // 篡改CRC32校验码
+        compressed[8] ^= 1;
+        BlockInputStream in = new BlockInputStream(new ByteArrayInputStream(compressed));
+        try {
+            in.read();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte[] compress(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream os = new BlockOutputStream(out, 4096, 1);
+        os.write(bytes);
+        os.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,117 @@
+package com.nianien.test.generic;
+
+import com.nianien.core.reflect.Generics;
+import com.nianien.core.reflect.TypeToken;
+import com.nianien.core.util.PriorityHeap;
+import org.junit.Test;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author skyfalling
+ */
+public class TestGenerics {
+
+    static class LevelImpl2 extends LevelImpl<String> {
+    }
+
+    static class LevelImpl3 extends LevelImpl2 {
+    }
+
+    static class Pair<A, B> implements ILevelFirst<B, List<A>> {
+    }
+
+    static class StringPair extends Pair<String, Integer> {
+    }
+
+    static class LengthComparator implements Comparator<String> {
+        @Override
+        public int compare(String o1, String o2) {
+            return o1.length() - o2.length();
+        }
+    }
+
+    static class ReverseLengthComparator extends LengthComparator {
+        @Override
+        public int compare(String o1, String o2) {
+            return -super.compare(o1, o2);
+        }
+    }
+
+    @Test
+    public void testFind() {
+        assertEquals(Character.class, Generics.find(LevelImpl.class, ILevelSecond.class, 0));
+        assertNull(Generics.find(LevelImpl.class, ILevelSecond.class, 1));
+        assertEquals(List.class, Generics.find(LevelImpl.class, ILevelSecond.class, 2));
+        assertEquals(String.class, Generics.find(LevelImpl2.class, LevelImpl.class, 0));
+        assertEquals(List.class, Generics.find(LevelImpl2.class, ILevel.class, 0));
+        assertEquals(List.class, Generics.find(LevelImpl.class, ILevel.class, 0));
+        assertEquals(Character.class, Generics.find(LevelImpl.class, ILevelFirst.class, 0));
+        assertEquals(List.class, Generics.find(LevelImpl.class, ILevelFirst.class, 1));
+        assertEquals(String.class, Generics.find(LevelImpl3.class, LevelImpl.class, 0));
+        assertEquals(String.class, Generics.find(LevelImpl3.class, ILevelSecond.class, 1));
+        assertNull(Generics.find(String.class, ILevel.class, 0));
+        assertNull(Generics.find(LevelImpl.class, LevelImpl.class, 0));
+    }
+
+    @Test
+    public void testResolve() {
+        // 泛型变量被替换为子类绑定的类型
+        Type[] types = Generics.resolve(StringPair.class, ILevel.class);
+        assertEquals(1, types.length);
+        assertEquals(new TypeToken<List<String>>() {
+        }.getType(), types[0]);
+        assertEquals(Generics.parameterize(List.class, String.class), types[0]);
+        assertEquals(types[0].hashCode(), new TypeToken<List<String>>() {
+        }.getType().hashCode());
+        assertArrayEquals(new Type[]{Integer.class, types[0]}, Generics.resolve(StringPair.class, ILevelFirst.class));
+        // 返回的数组可以修改, 不影响缓存
+        types[0] = null;
+        assertEquals(List.class, Generics.find(StringPair.class, ILevel.class, 0));
+        assertTrue(Generics.resolve(Pair.class, ILevel.class)[0] instanceof ParameterizedType);
+    }
+
+    @Test
+    public void testTypeToken() {
+        TypeToken<Map<String, List<Integer>>> token = new TypeToken<Map<String, List<Integer>>>() {
+        };
+        System.out.println(token);
+        assertEquals(Map.class, token.getRawType());
+        assertEquals(TypeToken.of(String.class), token.getTypeArgument(0));
+        assertEquals(TypeToken.parameterized(List.class, Integer.class), token.getTypeArgument(1));
+        assertEquals(TypeToken.parameterized(Map.class, String.class, Generics.parameterize(List.class, Integer.class)), token);
+        assertEquals(TypeToken.of(String.class), TypeToken.of(LevelImpl3.class, LevelImpl.class, 0));
+        assertNull(TypeToken.of(LevelImpl.class, ILevelSecond.class, 1));
+    }
+
+    @Test
+    public void testPriorityHeap() {
+        PriorityHeap<String> heap = new PriorityHeap<String>(2, new LengthComparator());
+        heap.add("a");
+        heap.add("abc");
+        heap.add("ab");
+        assertEquals(String.class, heap.toArray().getClass().getComponentType());
+        // 泛型参数声明在父类上
+        heap = new PriorityHeap<String>(2, new ReverseLengthComparator());
+        assertEquals(String.class, heap.toArray().getClass().getComponentType());
+    }
+
+    @Test
+    public void testPerformance() {
+        int times = 1000000;
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            Generics.find(LevelImpl3.class, ILevel.class, 0);
+        }
+        System.out.println("find " + times + " times: " + (System.nanoTime() - start) / 1000000 + "ms");
+    }
+}
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.type.ClassStack;
 import com.fasterxml.jackson.databind.type.TypeBindings;
 import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.nianien.core.reflect.TypeToken;
 import com.nianien.core.util.JsonParser;
 import com.nianien.test.bean.Color;
 import com.nianien.test.bean.User;
@@ -64,6 +65,16 @@ public class TestJson {
     }
 
 
+    @Test
+    public void testTypeToken() {
+        JsonParser jp = new JsonParser();
+        String json = "{name:[{userName:'lining'},{userName:'wuhao'}]}";
+        Map<String, List<User>> map = jp.toBean(json, new TypeToken<Map<String, List<User>>>() {
+        });
+        System.out.println(map);
+        assert map.get("name").get(1).getUserName().equals("wuhao");
+    }
+
     @Test
     public void testMap() throws Exception {
         JsonParser jp = new JsonParser();
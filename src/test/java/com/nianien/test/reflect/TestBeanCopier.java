@@ -0,0 +1,213 @@
+package com.nianien.test.reflect;
+
+import com.nianien.core.annotation.Property;
+import com.nianien.core.io.Files;
+import com.nianien.core.reflect.BeanCopier;
+import com.nianien.core.reflect.Reflections;
+import com.nianien.test.bean.User;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author skyfalling
+ */
+public class TestBeanCopier {
+
+    public static class UserDto {
+        private Integer id;
+        private String name;
+        private String userId;
+        private long version;
+        private String[] userDesc;
+
+        @Property("uuid")
+        public Integer getId() {
+            return id;
+        }
+
+        @Property("uuid")
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        @Property("userName")
+        public String getName() {
+            return name;
+        }
+
+        @Property("userName")
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public void setVersion(long version) {
+            this.version = version;
+        }
+
+        public String[] getUserDesc() {
+            return userDesc;
+        }
+
+        public void setUserDesc(String[] userDesc) {
+            this.userDesc = userDesc;
+        }
+    }
+
+    /**
+     * 由自身加载指定类的类加载器, 模拟webapp的类加载器
+     */
+    static class ChildLoader extends ClassLoader {
+        private final String className;
+
+        ChildLoader(Class<?> clazz) {
+            super(clazz.getClassLoader());
+            this.className = clazz.getName();
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!className.equals(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> clazz = findLoadedClass(name);
+                if (clazz == null) {
+                    byte[] bytes = Files.getBytes(getParent().getResourceAsStream(name.replace('.', '/') + ".class"));
+                    clazz = defineClass(name, bytes, 0, bytes.length);
+                }
+                return clazz;
+            }
+        }
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(7);
+        user.setUserId("u007");
+        user.setUserName("skyfalling");
+        user.setPassword("secret");
+        user.setUserDesc(new String[]{"a", "b"});
+        return user;
+    }
+
+    @Test
+    public void testBeanToBean() {
+        UserDto dto = BeanCopier.copyProperties(user(), new UserDto());
+        assertEquals(Integer.valueOf(7), dto.getId());
+        assertEquals("skyfalling", dto.getName());
+        assertEquals("u007", dto.getUserId());
+        assertArrayEquals(new String[]{"a", "b"}, dto.getUserDesc());
+
+        User user = new User();
+        user.setUserId("keep");
+        dto.setUserId(null);
+        dto.setId(null);
+        BeanCopier.copyProperties(dto, user);
+        // null值不复制, 包装类型的null不会赋值给原始类型
+        assertEquals("keep", user.getUserId());
+        assertEquals(0, user.getId());
+        assertEquals("skyfalling", user.getUserName());
+        assertNull(user.getPassword());
+
+        assertSame(BeanCopier.of(User.class, UserDto.class), BeanCopier.of(User.class, UserDto.class));
+        System.out.println(BeanCopier.of(User.class, UserDto.class).getClass().getName());
+    }
+
+    @Test
+    public void testMap() {
+        Map<String, Object> map = BeanCopier.copyProperties(user(), new HashMap<String, Object>());
+        System.out.println(map);
+        assertEquals(Reflections.getProperties(user()).keySet(), map.keySet());
+        assertEquals(7, map.get("uuid"));
+
+        map.put("uuid", 9);
+        map.put("version", "not a long");
+        map.put("userName", null);
+        UserDto dto = BeanCopier.copyProperties(map, new UserDto());
+        assertEquals(Integer.valueOf(9), dto.getId());
+        assertEquals(0, dto.getVersion());
+        assertNull(dto.getName());
+        assertEquals("u007", dto.getUserId());
+
+        map.put("version", 3L);
+        assertEquals(3, BeanCopier.copyProperties(map, new UserDto()).getVersion());
+        // User的getter和setter属性名称不同, 分别为uuid和id
+        map.put("id", 11);
+        User user = BeanCopier.copyProperties(map, new User());
+        assertEquals(11, user.getId());
+        assertEquals("secret", user.getPassword());
+
+        Map<String, Object> copy = BeanCopier.copyProperties(map, new HashMap<String, Object>());
+        assertFalse(copy.containsKey("userName"));
+        assertEquals(map.size() - 1, copy.size());
+    }
+
+    @Test
+    public void testClassLoader() throws Exception {
+        ClassLoader loader = new ChildLoader(User.class);
+        Class<?> userClass = loader.loadClass(User.class.getName());
+        assertNotSame(User.class, userClass);
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("userName", "skyfalling");
+        Object user = BeanCopier.copyProperties(map, userClass.newInstance());
+        assertEquals("skyfalling", userClass.getMethod("getUserName").invoke(user));
+        assertEquals("skyfalling", BeanCopier.copyProperties(user, new HashMap<String, Object>()).get("userName"));
+        assertEquals("skyfalling", BeanCopier.copyProperties(user, new User()).getUserName());
+        // 复制器由子加载器中的类持有, HashMap和User不会阻止子加载器的回收
+        WeakReference<ClassLoader> reference = new WeakReference<ClassLoader>(loader);
+        loader = null;
+        userClass = null;
+        user = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get());
+    }
+
+    @Test
+    public void testBenchmark() {
+        int times = 200000;
+        User user = user();
+        Map<String, Object> map = Reflections.getProperties(user);
+        BeanCopier toDto = BeanCopier.of(User.class, UserDto.class);
+        BeanCopier toUser = BeanCopier.of(HashMap.class, User.class);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < times; i++) {
+                Reflections.copyProperties(new UserDto(), user);
+                Reflections.setProperties(new User(), map);
+            }
+            long reflection = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < times; i++) {
+                toDto.copy(user, new UserDto());
+                toUser.copy(map, new User());
+            }
+            long copier = System.nanoTime() - start;
+            System.out.println("round " + round + " reflection: " + reflection / 1000000 + "ms, copier: " + copier / 1000000 + "ms");
+        }
+    }
+}
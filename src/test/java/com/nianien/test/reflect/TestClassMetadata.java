@@ -0,0 +1,129 @@
+package com.nianien.test.reflect;
+
+import com.nianien.core.reflect.ClassMetadata;
+import com.nianien.core.reflect.Reflections;
+import com.nianien.test.bean.User;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author skyfalling
+ */
+public class TestClassMetadata {
+
+    static class Counter {
+        private int count;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+
+    @Test
+    public void testCache() {
+        ClassMetadata metadata = ClassMetadata.of(User.class);
+        assertSame(metadata, ClassMetadata.of(User.class));
+        assertEquals(Reflections.getMethods(User.class, Object.class, Reflections.IS_GETTER), metadata.getGetters());
+        assertEquals(Reflections.getMethods(User.class, Object.class, Reflections.IS_SETTER), metadata.getSetters());
+        assertEquals(Reflections.getFields(User.class, Object.class, null), metadata.getFields());
+        ClassMetadata.evict(User.class);
+        ClassMetadata reloaded = ClassMetadata.of(User.class);
+        assertTrue(reloaded != metadata);
+        assertEquals(metadata.getMethods(), reloaded.getMethods());
+    }
+
+    @Test
+    public void testLookup() {
+        Method getter = Reflections.getter(User.class, "uuid");
+        assertEquals("getId", getter.getName());
+        assertNull(Reflections.getter(User.class, "id"));
+        assertEquals("setUserName", Reflections.setter(User.class, "userName").getName());
+        assertEquals("setUserName", Reflections.setter(User.class, "userName", String.class).getName());
+        assertEquals("setUserName", Reflections.setter(User.class, "userName", (Object) "test").getName());
+        assertNull(Reflections.setter(User.class, "userName", Integer.class));
+        assertEquals("setId", Reflections.setter(User.class, "id", (Object) 1).getName());
+        assertNotNull(Reflections.getField(User.class, "userId"));
+        assertNull(Reflections.getField(User.class, "none"));
+        // 返回的列表可以修改, 不影响缓存
+        Reflections.getters(User.class).clear();
+        assertEquals(5, Reflections.getters(User.class).size());
+    }
+
+    @Test
+    public void testProperties() {
+        User user = new User();
+        Reflections.setPropertyValue(user, "userName", "skyfalling");
+        Reflections.setPropertyValue(user, "id", 7);
+        assertEquals("skyfalling", Reflections.getPropertyValue(user, "userName"));
+        assertEquals(7, Reflections.getPropertyValue(user, "uuid"));
+
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("userId", "u001");
+        map.put("password", "secret");
+        Reflections.setProperties(user, map);
+        Map<String, Object> properties = Reflections.getProperties(user);
+        System.out.println(properties);
+        assertEquals("u001", properties.get("userId"));
+        assertEquals("secret", properties.get("password"));
+        assertEquals(7, properties.get("uuid"));
+
+        User copy = new User();
+        Reflections.copyProperties(copy, user);
+        assertEquals(user.toString().replace("id=7", "id=0"), copy.toString());
+    }
+
+    @Test
+    public void testAccessor() {
+        User user = new User();
+        ClassMetadata metadata = ClassMetadata.of(User.class);
+        ClassMetadata.Accessor setter = metadata.setter("userId");
+        ClassMetadata.Accessor getter = metadata.getter("userId");
+        assertEquals(String.class, setter.getType());
+        int times = 1000000;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < times; i++) {
+                setter.set(user, "u" + (i & 7));
+                getter.get(user);
+            }
+            long accessor = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < times; i++) {
+                Reflections.invoke(setter.getMethod(), user, "u" + (i & 7));
+                Reflections.invoke(getter.getMethod(), user);
+            }
+            long reflection = System.nanoTime() - start;
+            System.out.println("round " + round + " accessor: " + accessor / 1000000 + "ms, reflection: " + reflection / 1000000 + "ms");
+        }
+        assertEquals("u7", getter.get(user));
+    }
+
+    @Test
+    public void testBinding() {
+        // 同一方法共享同一个访问器
+        assertSame(ClassMetadata.of(User.class).getter("uuid"), ClassMetadata.accessor(Reflections.getter(User.class, "uuid")));
+        // 非public类的方法同样绑定为函数对象, 原始类型自动装箱和拆箱
+        ClassMetadata.Accessor getter = ClassMetadata.of(Counter.class).getter("count");
+        ClassMetadata.Accessor setter = ClassMetadata.of(Counter.class).setter("count");
+        assertTrue(getter.function().getClass().getName().startsWith(Counter.class.getName() + "$$Lambda"));
+        assertTrue(setter.consumer().getClass().getName().startsWith(Counter.class.getName() + "$$Lambda"));
+        assertSame(getter.function(), getter.function());
+        Counter counter = new Counter();
+        setter.set(counter, 3);
+        assertEquals(3, counter.getCount());
+        assertEquals(3, getter.get(counter));
+    }
+}
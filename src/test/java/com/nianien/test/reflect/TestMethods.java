@@ -4,6 +4,12 @@ import org.junit.Test;
 
 import com.nianien.core.reflect.Methods;
 
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
 /**
  * @author skyfalling.
  */
@@ -19,4 +25,42 @@ public class TestMethods {
     private void demo(int depth) {
         System.out.println(Methods.getCallerClassName(depth) + "#" + Methods.getCallerMethodName(depth));
     }
+
+    @Test
+    public void testParameterNames() throws Exception {
+        assertArrayEquals(new String[]{"depth"}, Methods.getParameterNames(TestMethods.class, "demo", int.class));
+        Method method = TestMethods.class.getDeclaredMethod("sample", long.class, String.class, double[].class, int.class);
+        String[] names = Methods.getParameterNames(method);
+        assertArrayEquals(new String[]{"id", "name", "values", "count"}, names);
+        // 返回的数组可以修改, 不影响缓存
+        assertNotSame(names, Methods.getParameterNames(method));
+        assertArrayEquals(new String[]{"userName", "age"},
+                Methods.getParameterNames(Sample.class.getDeclaredConstructor(String.class, long.class)));
+    }
+
+    @Test
+    public void testScannedNames() throws Exception {
+        // 未使用-parameters编译时, 参数名称只能通过javassist读取局部变量表获得
+        Method method = TestMethods.class.getDeclaredMethod("scanned", double.class, long.class, String.class);
+        assertFalse("test classes must be compiled without -parameters", method.getParameters()[0].isNamePresent());
+        assertArrayEquals(new String[]{"rate", "total", "label"}, Methods.getParameterNames(method));
+        assertArrayEquals(new String[]{"id", "name", "values", "count"},
+                Methods.getParameterNames(TestMethods.class, "sample", long.class, String.class, double[].class, int.class));
+        assertArrayEquals(new String[]{"userName", "age"},
+                Methods.getParameterNames(Sample.class.getDeclaredConstructor(String.class, long.class)));
+    }
+
+    private String scanned(double rate, long total, String label) {
+        double local = rate * total;
+        return label + local;
+    }
+
+    private static String sample(long id, String name, double[] values, int count) {
+        return id + name + values.length + count;
+    }
+
+    static class Sample {
+        Sample(String userName, long age) {
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.nianien.test.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nianien.core.util.ConcurrentTopK;
+
+public class TestConcurrentTopK {
+
+    @Test
+    public void test() throws Exception {
+        final ConcurrentTopK<Integer> topK = new ConcurrentTopK<Integer>(100, Integer.class);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            final int offset = t;
+            executor.execute(() -> {
+                for (int i = offset; i < 100000; i += 8) {
+                    topK.add(i);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 99999; i >= 99900; i--) {
+            expected.add(i);
+        }
+        Assert.assertEquals(expected, topK.snapshot());
+    }
+
+    @Test
+    public void testWindow() {
+        final long[] clock = {0};
+        ConcurrentTopK<Integer> topK = new ConcurrentTopK<Integer>(2, Integer.class, 1000, 4) {
+            @Override
+            protected long now() {
+                return clock[0];
+            }
+        };
+        topK.add(10);
+        topK.add(20);
+        clock[0] = 500;
+        topK.add(5);
+        Assert.assertEquals(Arrays.asList(20, 10), topK.snapshot());
+        // 第一个时间片滑出窗口
+        clock[0] = 1100;
+        Assert.assertEquals(Collections.singletonList(5), topK.snapshot());
+        topK.add(7);
+        Assert.assertEquals(Arrays.asList(7, 5), topK.snapshot());
+        clock[0] = 5000;
+        Assert.assertTrue(topK.snapshot().isEmpty());
+    }
+}
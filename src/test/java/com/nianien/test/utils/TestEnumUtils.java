@@ -3,8 +3,14 @@ package com.nianien.test.utils;
 import com.nianien.core.util.EnumUtils;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 /**
  * @author skyfalling
  */
@@ -19,9 +25,84 @@ public class TestEnumUtils {
         }
     }
 
+    static enum Status {
+        DELETED(-1, "deleted"), DRAFT(0, "draft"), ONLINE(1, "online"), ARCHIVED(100000, "archived");
+        final int value;
+        final String label;
+
+        Status(int value, String label) {
+            this.value = value;
+            this.label = label;
+        }
+    }
+
+    static enum Grade {
+        HIGH('H', (short) 1), LOW('L', (short) 2);
+        final char code;
+        final short level;
+
+        Grade(char code, short level) {
+            this.code = code;
+            this.level = level;
+        }
+    }
+
     @Test
     public void test() {
         assert EnumUtils.withField(TimeUnit.class, "C0", 1) == null;
         assert EnumUtils.withField(Goat.class, "value", (int) 'A') == Goat.A;
     }
+
+    @Test
+    public void testIndex() {
+        assertSame(Goat.E, EnumUtils.valueOf(Goat.class, (Object) (int) 'E'));
+        assertNull(EnumUtils.valueOf(Goat.class, (Object) (long) 'E'));
+        assertNull(EnumUtils.valueOf(Goat.class, 'F'));
+        assertSame(Status.DELETED, EnumUtils.valueOf(Status.class, -1));
+        assertSame(Status.ARCHIVED, EnumUtils.valueOf(Status.class, 100000));
+        assertSame(Status.ONLINE, EnumUtils.withField(Status.class, "label", "online"));
+        assertSame(Status.DRAFT, EnumUtils.withField(Status.class, "none", 0, Status.DRAFT));
+        assertSame(Status.ONLINE, EnumUtils.nameOf(Status.class, "ONLINE"));
+        assertSame(Status.DRAFT, EnumUtils.nameOf(Status.class, "online", Status.DRAFT));
+    }
+
+    @Test
+    public void testBoxing() {
+        // 字段值按声明类型装箱后比较, char和short不会被拓宽为int
+        assertSame(Grade.HIGH, EnumUtils.withField(Grade.class, "code", 'H'));
+        assertSame(Grade.LOW, EnumUtils.withField(Grade.class, "level", (short) 2));
+        assertNull(EnumUtils.withField(Grade.class, "code", (int) 'H'));
+        assertNull(EnumUtils.withField(Grade.class, "level", 2));
+        assertNull(EnumUtils.valueOf(Goat.class, 'A'));
+        assertSame(Goat.A, EnumUtils.valueOf(Goat.class, (int) 'A'));
+    }
+
+    @Test
+    public void testMisses() {
+        long misses = EnumUtils.getMisses();
+        EnumUtils.nameOf(Status.class, "NONE");
+        EnumUtils.valueOf(Status.class, 2);
+        EnumUtils.withField(Status.class, "none", "online");
+        EnumUtils.valueOf(Status.class, 1);
+        assertEquals(misses + 3, EnumUtils.getMisses());
+    }
+
+    @Test
+    public void testAllocation() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        int times = 1000000;
+        for (int i = 0; i < times; i++) {
+            EnumUtils.valueOf(Goat.class, 'A' + (i % 5));
+        }
+        long allocated = bean.getThreadAllocatedBytes(id);
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            EnumUtils.valueOf(Goat.class, 'A' + (i % 5));
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = bean.getThreadAllocatedBytes(id) - allocated;
+        System.out.println(times + " lookups: " + elapsed / 1000000 + "ms, " + allocated + " bytes allocated");
+        assertTrue(allocated < times);
+    }
 }
@@ -0,0 +1,75 @@
+package com.nianien.test.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nianien.core.collection.map.CounterMap;
+import com.nianien.core.util.ConsistentHash;
+import com.nianien.core.util.HashRing;
+import com.nianien.core.util.Hashing;
+import com.nianien.core.util.TimeCounter;
+
+public class TestHashRing {
+
+    private final static List<String> nodes = Arrays.asList("1", "2", "3", "4", "5");
+
+    /**
+     * 测试平衡性
+     */
+    @Test
+    public void testBalance() {
+        List<String> data = getAllData(100000);
+        for (Hashing hashing : Hashing.values()) {
+            HashRing<String> ring = new HashRing<String>(nodes, 512, hashing);
+            CounterMap<String> counterMap = new CounterMap<String>();
+            for (String key : data) {
+                counterMap.increase(ring.getTarget(key));
+            }
+            for (String node : nodes) {
+                float percent = (float) counterMap.get(node) / data.size() * 100;
+                System.out.println(hashing + " key :" + node + " - Percent : " + percent + "%");
+                Assert.assertTrue(percent > 15 && percent < 25);
+            }
+        }
+    }
+
+    /**
+     * 对比ConsistentHash的查找性能
+     */
+    @Test
+    public void testPerformance() {
+        List<String> data = getAllData(200000);
+        ConsistentHash<String> hash = new ConsistentHash<String>(nodes);
+        HashRing<String> ring = new HashRing<String>(nodes);
+        TimeCounter tc = new TimeCounter();
+        for (String key : data) {
+            hash.getTarget(key);
+        }
+        tc.stop();
+        System.out.println("ConsistentHash time cost:" + tc.timePassed());
+        tc.start();
+        for (String key : data) {
+            ring.getTarget(key);
+        }
+        tc.stop();
+        System.out.println("HashRing time cost:" + tc.timePassed());
+    }
+
+    private static List<String> getAllData(int size) {
+        Random random = new Random();
+        List<String> list = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(20) + 10; j > 0; j--) {
+                sb.append((char) (random.nextInt(95) + 32));
+            }
+            list.add(sb.toString());
+        }
+        return list;
+    }
+}
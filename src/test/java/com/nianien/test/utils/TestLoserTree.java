@@ -2,13 +2,16 @@ package com.nianien.test.utils;
 
 import com.nianien.core.tree.LoserTree;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class TestLoserTree {
 
@@ -49,4 +52,19 @@ public class TestLoserTree {
 			System.out.print(n + " ");
 	}
 
+	@Test
+	public void testStream() {
+		for (int batchSize : new int[]{1, 3}) {
+			List<Iterator<Integer>> list = new ArrayList<Iterator<Integer>>();
+			list.add(Arrays.asList(1, 4, 7, 10).iterator());
+			list.add(Arrays.asList(2, 5, 8).iterator());
+			list.add(Arrays.<Integer>asList().iterator());
+			list.add(Arrays.asList(3, 6, 9).iterator());
+			LoserTree<Integer> tree = new LoserTree<Integer>(list, Comparator.<Integer>naturalOrder(), batchSize);
+			Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10),
+					tree.stream().collect(Collectors.toList()));
+			Assert.assertFalse(tree.hasNext());
+		}
+	}
+
 }
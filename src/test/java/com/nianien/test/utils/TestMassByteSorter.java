@@ -0,0 +1,102 @@
+package com.nianien.test.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nianien.core.io.Files;
+import com.nianien.core.loader.ResourceLoader;
+import com.nianien.core.util.MassByteSorter;
+import com.nianien.core.util.MassByteSorter.RecordFormat;
+
+public class TestMassByteSorter {
+
+	@Test
+	public void testLines() throws Exception {
+		File src = ResourceLoader.getFile("all200000.txt");
+		List<String> expected = Files.readLines(src);
+		Collections.sort(expected);
+		for (boolean mapped : new boolean[]{false, true}) {
+			MassByteSorter sorter = new MassByteSorter(100000, RecordFormat.lines()).mapped(mapped);
+			File dest = File.createTempFile("~.sort", "");
+			try {
+				sorter.sort(src, dest);
+				Assert.assertEquals(expected, Files.readLines(dest));
+				Assert.assertEquals(1, sorter.getPassCount());
+			} finally {
+				dest.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testFixedWidth() throws Exception {
+		// 每条记录占用3字节数据和16字节索引, 每个分段2条记录
+		MassByteSorter sorter = new MassByteSorter(40, RecordFormat.fixedWidth(3));
+		File dest = File.createTempFile("~.sort", "");
+		try {
+			sorter.sort(new ByteArrayInputStream("ccc bbaaaÿzzbba".getBytes(StandardCharsets.ISO_8859_1)), dest);
+			Assert.assertEquals(" bbaaabbacccÿzz", new String(Files.getBytes(dest), StandardCharsets.ISO_8859_1));
+			Assert.assertEquals(3, sorter.getRunCount());
+		} finally {
+			dest.delete();
+		}
+	}
+
+	@Test
+	public void testIndexBudget() throws Exception {
+		// 1字节的短记录, 记录索引计入缓冲区大小, 每个分段最多1024 / (2 + 16)条记录
+		int size = 10000;
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			input.append((char) ('a' + (i * 7) % 26)).append('\n');
+		}
+		MassByteSorter sorter = new MassByteSorter(1024, RecordFormat.lines());
+		File dest = File.createTempFile("~.sort", "");
+		try {
+			sorter.sort(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.ISO_8859_1)), dest);
+			List<String> lines = Files.readLines(dest);
+			Assert.assertEquals(size, lines.size());
+			for (int i = 1; i < size; i++) {
+				Assert.assertTrue(lines.get(i - 1).compareTo(lines.get(i)) <= 0);
+			}
+			Assert.assertEquals((size + 55) / 56, sorter.getRunCount());
+			// 179个分段, 每趟最多归并64个: 179 -> 3 -> 1
+			Assert.assertEquals(2, sorter.getPassCount());
+			// 每趟最多归并4个: 179 -> 45 -> 12 -> 3 -> 1
+			sorter.maxOpenFiles(4).sort(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.ISO_8859_1)), dest);
+			Assert.assertEquals(lines, Files.readLines(dest));
+			Assert.assertEquals(4, sorter.getPassCount());
+		} finally {
+			dest.delete();
+		}
+	}
+
+	@Test
+	public void testOverwrite() throws Exception {
+		File dest = File.createTempFile("~.sort", "");
+		try {
+			// 多个分段归并, 以及单个分段直接发布, 都应覆盖目标文件的原有内容
+			for (int maxBufferSize : new int[]{8, 128}) {
+				Files.write(dest, "0123456789012345678901234567890123456789", false);
+				MassByteSorter sorter = new MassByteSorter(maxBufferSize, RecordFormat.lines());
+				sorter.sort(new ByteArrayInputStream("c\nb\na\nd\n".getBytes(StandardCharsets.ISO_8859_1)), dest);
+				Assert.assertEquals("a\nb\nc\nd\n", new String(Files.getBytes(dest), StandardCharsets.ISO_8859_1));
+			}
+			// 输入为空时输出空文件
+			new MassByteSorter(8, RecordFormat.lines()).sort(new ByteArrayInputStream(new byte[0]), dest);
+			Assert.assertTrue(dest.exists());
+			Assert.assertEquals(0, dest.length());
+			dest.delete();
+			new MassByteSorter(8, RecordFormat.lines()).sort(new ByteArrayInputStream(new byte[0]), dest);
+			Assert.assertTrue(dest.exists());
+		} finally {
+			dest.delete();
+		}
+	}
+}
@@ -1,10 +1,19 @@
 package com.nianien.test.utils;
 
 import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
 
+import org.junit.Assert;
 import org.junit.Test;
 
+import com.nianien.core.io.Files;
+
 import com.nianien.core.loader.ResourceLoader;
 import com.nianien.core.util.MassSorter;
 
@@ -33,4 +42,97 @@ public class TestMassDataSort {
 		mds.sort(f1, f2);
 
 	}
+
+	@Test
+	public void testParallel() throws Exception {
+		MassSorter mds = new MassSorter(20000).parallelism(4);
+		File src = ResourceLoader.getFile("all200000.txt");
+		File dest = File.createTempFile("~.sort", "");
+		try {
+			mds.sort(src, dest);
+			List<String> expected = Files.readLines(src);
+			Collections.sort(expected);
+			Assert.assertEquals(expected, Files.readLines(dest));
+			Assert.assertEquals(20, mds.getRunCount());
+			Assert.assertEquals(1, mds.getPassCount());
+		} finally {
+			dest.delete();
+		}
+	}
+
+	@Test
+	public void testReplacementSelection() throws Exception {
+		MassSorter mds = new MassSorter(20000).maxBufferBytes(1 << 20).replacementSelection(true);
+		File src = ResourceLoader.getFile("all200000.txt");
+		File dest = File.createTempFile("~.sort", "");
+		try {
+			mds.sort(src, dest);
+			List<String> expected = Files.readLines(src);
+			Collections.sort(expected);
+			Assert.assertEquals(expected, Files.readLines(dest));
+			// 置换选择的分段长度约为缓冲区的两倍
+			Assert.assertTrue(mds.getRunCount() < 20);
+		} finally {
+			dest.delete();
+		}
+	}
+
+	@Test
+	public void testReplacementSelectionBytes() throws Exception {
+		// 少量的长行: 记录数远低于maxBufferSize, 只有内存预算会触发分段
+		Random random = new Random(7);
+		StringBuilder input = new StringBuilder();
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 40; i++) {
+			char[] chars = new char[4000];
+			Arrays.fill(chars, (char) ('a' + random.nextInt(26)));
+			String line = random.nextInt(100000) + new String(chars);
+			expected.add(line);
+			input.append(line).append('\n');
+		}
+		Collections.sort(expected);
+		File dest = File.createTempFile("~.sort", "");
+		try {
+			// 每行约8KB, 32KB的预算最多容纳5行
+			MassSorter mds = new MassSorter(10000).maxBufferBytes(32 << 10).replacementSelection(true);
+			mds.sort(new StringReader(input.toString()), dest);
+			Assert.assertEquals(expected, Files.readLines(dest));
+			int runs = mds.getRunCount();
+			Assert.assertTrue("runs: " + runs, runs > 1);
+			// 不限制内存时只有一个分段
+			mds.maxBufferBytes(0).sort(new StringReader(input.toString()), dest);
+			Assert.assertEquals(expected, Files.readLines(dest));
+			Assert.assertEquals(1, mds.getRunCount());
+			// 置换选择的分段长度约为普通分段的两倍
+			mds.maxBufferBytes(32 << 10).replacementSelection(false).sort(new StringReader(input.toString()), dest);
+			Assert.assertEquals(8, mds.getRunCount());
+			Assert.assertTrue("runs: " + runs, runs < 8);
+		} finally {
+			dest.delete();
+		}
+	}
+
+	@Test
+	public void testCompress() throws Exception {
+		File dir1 = File.createTempFile("~.spill", "");
+		File dir2 = File.createTempFile("~.spill", "");
+		dir1.delete();
+		dir2.delete();
+		dir1.mkdirs();
+		dir2.mkdirs();
+		MassSorter mds = new MassSorter(20000).compress(true).spillDirectories(dir1, dir2);
+		File src = ResourceLoader.getFile("all200000.txt");
+		File dest = File.createTempFile("~.sort", "");
+		try {
+			mds.sort(src, dest);
+			List<String> expected = Files.readLines(src);
+			Collections.sort(expected);
+			Assert.assertEquals(expected, Files.readLines(dest));
+			Assert.assertEquals(0, dir1.list().length + dir2.list().length);
+		} finally {
+			dest.delete();
+			dir1.delete();
+			dir2.delete();
+		}
+	}
 }
@@ -0,0 +1,156 @@
+package com.nianien.test.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nianien.core.util.ConsistentHash;
+import com.nianien.core.util.HashRing;
+import com.nianien.core.util.Hashing;
+import com.nianien.core.util.JumpHash;
+import com.nianien.core.util.LoadReport;
+import com.nianien.core.util.MaglevHash;
+import com.nianien.core.util.NodeSelector;
+import com.nianien.core.util.RendezvousHash;
+
+public class TestNodeSelector {
+
+    private final static List<String> nodes = Arrays.asList("node-1", "node-2", "node-3", "node-4", "node-5");
+
+    private static List<NodeSelector<String>> selectors() {
+        List<NodeSelector<String>> list = new ArrayList<NodeSelector<String>>();
+        list.add(new ConsistentHash<String>(nodes, 160));
+        list.add(new HashRing<String>(nodes));
+        list.add(new JumpHash<String>(nodes));
+        list.add(new RendezvousHash<String>(nodes));
+        list.add(new MaglevHash<String>(nodes));
+        return list;
+    }
+
+    /**
+     * 测试平衡性
+     */
+    @Test
+    public void testBalance() {
+        List<String> keys = getAllData(50000);
+        for (NodeSelector<String> selector : selectors()) {
+            LoadReport<String> report = selector.report(keys);
+            System.out.println(selector.getClass().getSimpleName() + " " + report);
+            Assert.assertEquals(keys.size(), report.getTotal());
+            Assert.assertTrue(report.getMaxSkew() < 1.25);
+            Assert.assertTrue(report.getMinSkew() > 0.75);
+        }
+    }
+
+    /**
+     * 测试增删节点时的数据迁移
+     */
+    @Test
+    public void testMembership() {
+        List<String> keys = getAllData(20000);
+        for (NodeSelector<String> selector : selectors()) {
+            String name = selector.getClass().getSimpleName();
+            Map<String, String> before = assign(selector, keys);
+            selector.addNode("node-6");
+            Assert.assertEquals(6, selector.getNodes().size());
+            Map<String, String> after = assign(selector, keys);
+            int moved = 0;
+            for (String key : keys) {
+                if (!before.get(key).equals(after.get(key))) {
+                    moved++;
+                    if (!(selector instanceof MaglevHash)) {
+                        // 新增节点时, 数据只会迁移到新节点(Maglev重建查找表, 允许少量其他迁移)
+                        Assert.assertEquals(name, "node-6", after.get(key));
+                    }
+                }
+            }
+            System.out.println(name + " add node, moved : " + moved);
+            Assert.assertTrue(name, moved > keys.size() / 10 && moved < keys.size() / 4);
+
+            selector.removeNode("node-6");
+            Assert.assertEquals(before, assign(selector, keys));
+
+            selector.removeNode("node-3");
+            after = assign(selector, keys);
+            moved = 0;
+            for (String key : keys) {
+                if (!before.get(key).equals(after.get(key))) {
+                    moved++;
+                }
+                Assert.assertNotEquals(name, "node-3", after.get(key));
+            }
+            System.out.println(name + " remove node, moved : " + moved);
+            Assert.assertTrue(name, moved < keys.size() / 2);
+        }
+    }
+
+    /**
+     * 测试节点权重
+     */
+    @Test
+    public void testWeight() {
+        List<String> keys = getAllData(50000);
+        for (NodeSelector<String> selector : selectors()) {
+            selector.addNode("node-1", 3);
+            Assert.assertEquals(3, selector.getNodes().get("node-1").intValue());
+            LoadReport<String> report = selector.report(keys);
+            System.out.println(selector.getClass().getSimpleName() + " " + report);
+            long count = report.getCounts().get("node-1");
+            Assert.assertTrue(count > keys.size() * 0.35 && count < keys.size() * 0.5);
+            Assert.assertTrue(report.getSkew("node-1") > 0.8 && report.getSkew("node-1") < 1.2);
+        }
+    }
+
+    /**
+     * 测试空节点
+     */
+    @Test
+    public void testEmpty() {
+        for (NodeSelector<String> selector : selectors()) {
+            for (String node : nodes) {
+                selector.removeNode(node);
+            }
+            Assert.assertTrue(selector.getNodes().isEmpty());
+            Assert.assertNull(selector.getTarget("key"));
+        }
+    }
+
+    /**
+     * 测试Maglev查找表大小不是质数
+     */
+    @Test(timeout = 10000)
+    public void testMaglevTableSize() {
+        MaglevHash<String> selector = new MaglevHash<String>(nodes, 6, Hashing.MURMUR3);
+        Assert.assertEquals(7, selector.getTableSize());
+        Set<String> targets = new HashSet<String>();
+        for (String key : getAllData(1000)) {
+            targets.add(selector.getTarget(key));
+        }
+        Assert.assertEquals(new HashSet<String>(nodes), targets);
+        Assert.assertEquals(65537, new MaglevHash<String>(nodes, 65536, Hashing.MURMUR3).getTableSize());
+        Assert.assertEquals(2, new MaglevHash<String>(nodes, 2, Hashing.MURMUR3).getTableSize());
+    }
+
+    private static Map<String, String> assign(NodeSelector<String> selector, List<String> keys) {
+        Map<String, String> map = new HashMap<String, String>();
+        for (String key : keys) {
+            map.put(key, selector.getTarget(key));
+        }
+        return map;
+    }
+
+    private static List<String> getAllData(int size) {
+        List<String> list = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            list.add("key-" + i);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,114 @@
+package com.nianien.test.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nianien.core.tree.LongLoserTree;
+import com.nianien.core.tree.LoserTree;
+import com.nianien.core.util.DoublePriorityHeap;
+import com.nianien.core.util.LongPriorityHeap;
+import com.nianien.core.util.PriorityHeap;
+import com.nianien.core.util.TimeCounter;
+
+/**
+ * 基本类型版本与泛型版本的PriorityHeap和LoserTree的对比测试
+ */
+public class TestPrimitiveHeap {
+
+    private final static int count = 2000000;
+    private final static int topN = 100;
+
+    @Test
+    public void testHeap() {
+        long[] data = new Random(1).longs(count).toArray();
+
+        TimeCounter tc = new TimeCounter();
+        PriorityHeap<Long> heap = new PriorityHeap<Long>(topN, Long.class);
+        for (long value : data) {
+            heap.add(value);
+        }
+        Long[] expected = heap.popAll();
+        tc.stop();
+        System.out.println("PriorityHeap<Long> time cost:" + tc.timePassed());
+
+        String[] names = {"v0", "v1", "v2", "v3", "v4", "v5", "v6", "v7"};
+        tc.start();
+        LongPriorityHeap<String> longHeap = new LongPriorityHeap<String>(topN);
+        for (long value : data) {
+            longHeap.add(value, names[(int) (value & 7)]);
+        }
+        String[] payloads = new String[topN];
+        long[] actual = longHeap.popAll(payloads);
+        tc.stop();
+        System.out.println("LongPriorityHeap time cost:" + tc.timePassed());
+
+        Assert.assertEquals(topN, actual.length);
+        for (int i = 0; i < topN; i++) {
+            Assert.assertEquals(expected[i].longValue(), actual[i]);
+            Assert.assertEquals(names[(int) (actual[i] & 7)], payloads[i]);
+        }
+    }
+
+    @Test
+    public void testDoubleHeap() {
+        double[] data = new Random(1).doubles(count).toArray();
+        DoublePriorityHeap<Object> heap = new DoublePriorityHeap<Object>(topN, true);
+        for (double value : data) {
+            heap.add(value);
+        }
+        double[] actual = heap.popAll();
+        double[] expected = Arrays.copyOf(data, data.length);
+        Arrays.sort(expected);
+        Assert.assertArrayEquals(Arrays.copyOf(expected, topN), actual, 0);
+    }
+
+    @Test
+    public void testLoserTree() {
+        int branches = 64;
+        long[][] data = new long[branches][];
+        Random random = new Random(1);
+        for (int i = 0; i < branches; i++) {
+            data[i] = random.longs(count / branches).toArray();
+            Arrays.sort(data[i]);
+        }
+
+        TimeCounter tc = new TimeCounter();
+        List<Iterator<Long>> list = new ArrayList<Iterator<Long>>();
+        for (long[] branch : data) {
+            list.add(Arrays.stream(branch).iterator());
+        }
+        LoserTree<Long> tree = new LoserTree<Long>(list, Comparator.<Long>naturalOrder());
+        long[] expected = new long[count];
+        int n = 0;
+        Long value;
+        while ((value = tree.pop()) != null) {
+            expected[n++] = value;
+        }
+        tc.stop();
+        System.out.println("LoserTree<Long> time cost:" + tc.timePassed());
+
+        tc.start();
+        List<PrimitiveIterator.OfLong> longList = new ArrayList<PrimitiveIterator.OfLong>();
+        for (long[] branch : data) {
+            longList.add(Arrays.stream(branch).iterator());
+        }
+        LongLoserTree<Object> longTree = new LongLoserTree<Object>(longList);
+        long[] actual = new long[count];
+        n = 0;
+        while (longTree.hasNext()) {
+            actual[n++] = longTree.nextLong();
+        }
+        tc.stop();
+        System.out.println("LongLoserTree time cost:" + tc.timePassed());
+
+        Assert.assertArrayEquals(expected, actual);
+    }
+}